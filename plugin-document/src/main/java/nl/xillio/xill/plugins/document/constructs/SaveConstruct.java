@@ -64,6 +64,7 @@ public class SaveConstruct extends AbstractUDMConstruct {
         id.registerReference(); // Adding it to an object
         Map<String, MetaExpression> values = document.getValue();
         values.put("_id", id);
+        document.markModified();
 
         /*
          Return a COPY for the scoping administration.
@@ -15,8 +15,8 @@
  */
 package nl.xillio.events;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /**
@@ -28,8 +28,9 @@ public class Event<T> {
 
 	/**
 	 * This is a list of listeners for this event.
+	 * Listeners may be added by robots that run on other threads, such as the robots started by runBulk.
 	 */
-	protected List<Consumer<T>> listeners = new ArrayList<>();
+	protected List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
 
 	/**
 	 * Adds a listener to the event.
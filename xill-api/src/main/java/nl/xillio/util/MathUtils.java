@@ -43,7 +43,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number add(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.add(a, b);
     }
 
@@ -68,7 +68,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number subtract(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.subtract(a, b);
     }
 
@@ -81,7 +81,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number divide(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.divide(a, b);
     }
 
@@ -94,7 +94,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number multiply(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.multiply(a, b);
     }
 
@@ -107,7 +107,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number modulo(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.modulo(a, b);
     }
 
@@ -120,7 +120,7 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static Number power(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.power(a, b);
     }
 
@@ -135,10 +135,224 @@ public class MathUtils {
      * @throws UnsupportedOperationException if no supported number type is found
      */
     public static int compare(Number a, Number b) {
-        NumberType type = NumberType.forClass(a.getClass(), b.getClass());
+        NumberType type = NumberType.forNumbers(a, b);
         return type.compare(a, b);
     }
 
+    /**
+     * Performs the arithmetic addition operation on two ints, promoting the result to a long on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number add(int a, int b) {
+        Integer result = addExactWithoutException(a, b);
+        return result != null ? result : add((long) a, (long) b);
+    }
+
+    /**
+     * Performs the arithmetic addition operation on two longs, promoting the result to a BigInteger on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number add(long a, long b) {
+        Long result = addExactWithoutException(a, b);
+        return result != null ? result : BigInteger.valueOf(a).add(BigInteger.valueOf(b));
+    }
+
+    /**
+     * Performs the arithmetic addition operation on two doubles.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number add(double a, double b) {
+        return a + b;
+    }
+
+    /**
+     * Performs the arithmetic subtraction operation on two ints, promoting the result to a long on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number subtract(int a, int b) {
+        Integer result = subtractExactWithoutException(a, b);
+        return result != null ? result : subtract((long) a, (long) b);
+    }
+
+    /**
+     * Performs the arithmetic subtraction operation on two longs, promoting the result to a BigInteger on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number subtract(long a, long b) {
+        Long result = subtractExactWithoutException(a, b);
+        return result != null ? result : BigInteger.valueOf(a).subtract(BigInteger.valueOf(b));
+    }
+
+    /**
+     * Performs the arithmetic subtraction operation on two doubles.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number subtract(double a, double b) {
+        return a - b;
+    }
+
+    /**
+     * Performs the arithmetic division operation on two ints.
+     * The result is a double if the division is not whole or the divisor is zero.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number divide(int a, int b) {
+        if (b == 0) {
+            return divideByZero(a);
+        }
+        int result = a / b;
+        // Check if the result is a whole number
+        if (result * b == a) {
+            return result;
+        }
+        return divide((double) a, (double) b);
+    }
+
+    /**
+     * Performs the arithmetic division operation on two longs.
+     * The result is a double if the division is not whole or the divisor is zero.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number divide(long a, long b) {
+        if (b == 0) {
+            return divideByZero(a);
+        }
+        long result = a / b;
+        // Check if the result is a whole number
+        if (result * b == a) {
+            return result;
+        }
+        return divide((double) a, (double) b);
+    }
+
+    /**
+     * Performs the arithmetic division operation on two doubles.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number divide(double a, double b) {
+        return a / b;
+    }
+
+    private static Double divideByZero(long a) {
+        if (a == 0) {
+            return Double.NaN;
+        }
+        return a > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Performs the arithmetic multiplication operation on two ints, promoting the result to a long on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number multiply(int a, int b) {
+        Integer result = multiplyExactWithoutException(a, b);
+        return result != null ? result : multiply((long) a, (long) b);
+    }
+
+    /**
+     * Performs the arithmetic multiplication operation on two longs, promoting the result to a BigInteger on overflow.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number multiply(long a, long b) {
+        Long result = multiplyExactWithoutException(a, b);
+        return result != null ? result : BigInteger.valueOf(a).multiply(BigInteger.valueOf(b));
+    }
+
+    /**
+     * Performs the arithmetic multiplication operation on two doubles.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number multiply(double a, double b) {
+        return a * b;
+    }
+
+    /**
+     * Performs the arithmetic modulo operation on two ints.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation or NaN if the divisor is zero
+     */
+    public static Number modulo(int a, int b) {
+        if (b == 0) {
+            return Double.NaN;
+        }
+        return a % b;
+    }
+
+    /**
+     * Performs the arithmetic modulo operation on two longs.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation or NaN if the divisor is zero
+     */
+    public static Number modulo(long a, long b) {
+        if (b == 0) {
+            return Double.NaN;
+        }
+        return a % b;
+    }
+
+    /**
+     * Performs the arithmetic modulo operation on two doubles.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number modulo(double a, double b) {
+        return a % b;
+    }
+
+    /**
+     * Performs the arithmetic exponential operation on two doubles. Integral operands are widened, so the result is
+     * always a double.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result of the operation
+     */
+    public static Number power(double a, double b) {
+        return Math.pow(a, b);
+    }
+
     /**
      * Recreates the addExact method from Math.java to check for overflow while avoiding throwing and handling
      * Exceptions (including empty catch blocks).
@@ -304,7 +518,7 @@ public class MathUtils {
         DOUBLE(Double.class, Float.class) {
             @Override
             public Number add(Number a, Number b) {
-                return a.doubleValue() + b.doubleValue();
+                return MathUtils.add(a.doubleValue(), b.doubleValue());
             }
 
             @Override
@@ -314,27 +528,27 @@ public class MathUtils {
 
             @Override
             public Number subtract(Number a, Number b) {
-                return a.doubleValue() - b.doubleValue();
+                return MathUtils.subtract(a.doubleValue(), b.doubleValue());
             }
 
             @Override
             public Number divide(Number a, Number b) {
-                return a.doubleValue() / b.doubleValue();
+                return MathUtils.divide(a.doubleValue(), b.doubleValue());
             }
 
             @Override
             public Number multiply(Number a, Number b) {
-                return a.doubleValue() * b.doubleValue();
+                return MathUtils.multiply(a.doubleValue(), b.doubleValue());
             }
 
             @Override
             public Number modulo(Number a, Number b) {
-                return a.doubleValue() % b.doubleValue();
+                return MathUtils.modulo(a.doubleValue(), b.doubleValue());
             }
 
             @Override
             public Number power(Number a, Number b) {
-                return Math.pow(a.doubleValue(), b.doubleValue());
+                return MathUtils.power(a.doubleValue(), b.doubleValue());
             }
 
             @Override
@@ -345,12 +559,7 @@ public class MathUtils {
         LONG(Long.class) {
             @Override
             public Number add(Number a, Number b) {
-                Long longR = addExactWithoutException(a.longValue(), b.longValue());
-                if (longR != null) {
-                    return longR;
-                } else {
-                    return BIG.add(a, b);
-                }
+                return MathUtils.add(a.longValue(), b.longValue());
             }
 
             @Override
@@ -360,49 +569,22 @@ public class MathUtils {
 
             @Override
             public Number subtract(Number a, Number b) {
-                Long longR = subtractExactWithoutException(a.longValue(), b.longValue());
-                if (longR != null) {
-                    return longR;
-                } else {
-                    return BIG.subtract(a, b);
-                }
+                return MathUtils.subtract(a.longValue(), b.longValue());
             }
 
             @Override
             public Number divide(Number a, Number b) {
-                if (b.longValue() == 0) {
-                    if (a.longValue() == 0) {
-                        return Double.NaN;
-                    }
-
-                    return a.longValue() > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
-                }
-
-                long longResult = a.longValue() / b.longValue();
-                // Check if the result is a whole number
-                if (longResult * b.longValue() == a.longValue()) {
-                    return longResult;
-                } else {
-                    return DOUBLE.divide(a, b);
-                }
+                return MathUtils.divide(a.longValue(), b.longValue());
             }
 
             @Override
             public Number multiply(Number a, Number b) {
-                Long longR = multiplyExactWithoutException(a.longValue(), b.longValue());
-                if (longR != null) {
-                    return longR;
-                } else {
-                    return BIG.multiply(a, b);
-                }
+                return MathUtils.multiply(a.longValue(), b.longValue());
             }
 
             @Override
             public Number modulo(Number a, Number b) {
-                if (b.longValue() == 0) {
-                    return Double.NaN;
-                }
-                return a.longValue() % b.longValue();
+                return MathUtils.modulo(a.longValue(), b.longValue());
             }
 
             @Override
@@ -494,13 +676,7 @@ public class MathUtils {
         INT(Integer.class, Byte.class, Short.class) {
             @Override
             public Number add(Number a, Number b) {
-                Integer intR = addExactWithoutException(a.intValue(), b.intValue());
-                // Try to add as longs when overflow occurs
-                if (intR != null) {
-                    return intR;
-                } else {
-                    return LONG.add(a, b);
-                }
+                return MathUtils.add(a.intValue(), b.intValue());
             }
 
             @Override
@@ -510,48 +686,22 @@ public class MathUtils {
 
             @Override
             public Number subtract(Number a, Number b) {
-                Integer intR = subtractExactWithoutException(a.intValue(), b.intValue());
-                if (intR != null) {
-                    return intR;
-                } else {
-                    return LONG.subtract(a, b);
-                }
+                return MathUtils.subtract(a.intValue(), b.intValue());
             }
 
             @Override
             public Number divide(Number a, Number b) {
-                if (b.intValue() == 0) {
-                    if (a.intValue() == 0) {
-                        return Double.NaN;
-                    }
-
-                    return a.intValue() > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
-                }
-                int intResult = a.intValue() / b.intValue();
-                // Check if the result is a whole number
-                if (intResult * b.intValue() == a.intValue()) {
-                    return intResult;
-                } else {
-                    return DOUBLE.divide(a, b);
-                }
+                return MathUtils.divide(a.intValue(), b.intValue());
             }
 
             @Override
             public Number multiply(Number a, Number b) {
-                Integer intR = multiplyExactWithoutException(a.intValue(), b.intValue());
-                if (intR != null) {
-                    return intR;
-                } else {
-                    return LONG.multiply(a, b);
-                }
+                return MathUtils.multiply(a.intValue(), b.intValue());
             }
 
             @Override
             public Number modulo(Number a, Number b) {
-                if (b.intValue() == 0) {
-                    return Double.NaN;
-                }
-                return a.intValue() % b.intValue();
+                return MathUtils.modulo(a.intValue(), b.intValue());
             }
 
             @Override
@@ -669,6 +819,27 @@ public class MathUtils {
             throw new IllegalArgumentException("Incompatible number type for " + classA.getSimpleName());
         }
 
+        /**
+         * Finds the type for two operands. The common combinations of boxed primitives are resolved without
+         * searching through the supported classes of every type.
+         *
+         * @param a the left operand
+         * @param b the right operand
+         * @return the type with the highest precedence that supports either operand
+         */
+        public static NumberType forNumbers(Number a, Number b) {
+            if (a instanceof Integer && b instanceof Integer) {
+                return INT;
+            }
+            if (a instanceof Double || b instanceof Double) {
+                return DOUBLE;
+            }
+            if ((a instanceof Long || a instanceof Integer) && (b instanceof Long || b instanceof Integer)) {
+                return LONG;
+            }
+            return forClass(a.getClass(), b.getClass());
+        }
+
         public static NumberType forClass(Class<? extends Number> classA, Class<? extends Number> classB) {
             for (NumberType type : values) {
                 if (type.supports(classA) || type.supports(classB)) {
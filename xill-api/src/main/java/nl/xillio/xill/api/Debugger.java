@@ -217,6 +217,19 @@ public interface Debugger extends ErrorHandlingPolicy {
      */
     void removeChild(final Debugger debugger);
 
+    /**
+     * Get the runtime state of the robot invocation that is processed using this debugger.
+     * Debuggers that wrap another debugger share its frame, child debuggers get a frame of their own.
+     * <p>
+     * The default implementation keeps one frame per debugger instance for as long as the debugger is reachable.
+     * Implementations should override this and hold the frame in a field.
+     *
+     * @return the execution frame, never null
+     */
+    default ExecutionFrame getExecutionFrame() {
+        return ExecutionFrame.of(this);
+    }
+
     /**
      * Starts processing a function call.
      *
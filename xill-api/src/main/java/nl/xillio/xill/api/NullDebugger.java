@@ -34,6 +34,7 @@ import java.util.List;
  * @author Thomas Biesaart
  */
 public class NullDebugger implements Debugger {
+    private final ExecutionFrame executionFrame = new ExecutionFrame();
     private OutputHandler outputHandler;
 
     @Override
@@ -186,9 +187,19 @@ public class NullDebugger implements Debugger {
         return 0;
     }
 
+    /**
+     * @return the handler for all logging output for this debugger
+     */
+    protected OutputHandler getOutputHandler() {
+        return outputHandler;
+    }
+
     @Override
     public Debugger createChild() {
-        return this;
+        // Every child runs a robot of its own, so it gets its own frame
+        NullDebugger child = new NullDebugger();
+        child.setOutputHandler(outputHandler);
+        return child;
     }
 
     @Override
@@ -196,6 +207,11 @@ public class NullDebugger implements Debugger {
         // No Op
     }
 
+    @Override
+    public ExecutionFrame getExecutionFrame() {
+        return executionFrame;
+    }
+
     @Override
     public void startFunction(Processable functionDeclaration) {
         // No Op
@@ -32,7 +32,7 @@ public class StoppableDebugger extends NullDebugger {
 
     private final Stack<Instruction> currentStack = new Stack<>();
     private ErrorHandlingPolicy errorHandlingPolicy;
-    private boolean stop = false;
+    private volatile boolean stop = false;
     private boolean errorOccurred = false;
     private boolean stopOnError = false;
     private final Debugger parent;
@@ -58,15 +58,12 @@ public class StoppableDebugger extends NullDebugger {
 
     @Override
     public boolean shouldStop() {
-        return stop;
+        return stop || (parent instanceof StoppableDebugger && parent.shouldStop());
     }
 
     @Override
     public void handle(Throwable e) {
-        errorOccurred = true;
-        if (stopOnError) {
-            stop = true;
-        }
+        markErrorOccurred();
         if (errorHandlingPolicy == null) {
             super.handle(e);
         } else {
@@ -86,6 +83,40 @@ public class StoppableDebugger extends NullDebugger {
         return parent.getOnRobotInterrupt();
     }
 
+    private void markErrorOccurred() {
+        errorOccurred = true;
+        if (stopOnError) {
+            stop = true;
+        }
+        if (parent instanceof StoppableDebugger) {
+            ((StoppableDebugger) parent).markErrorOccurred();
+        }
+    }
+
+    /**
+     * Create a child that runs a robot in a frame of its own.
+     * The child stops when this debugger stops and reports its errors to this debugger.
+     *
+     * @return the child debugger
+     */
+    @Override
+    public Debugger createChild() {
+        StoppableDebugger child = newChild();
+        child.setOutputHandler(getOutputHandler());
+        child.setErrorHandler(errorHandlingPolicy);
+        child.setStopOnError(stopOnError);
+        return child;
+    }
+
+    /**
+     * Create a new, unconfigured child of this debugger.
+     *
+     * @return the child debugger
+     */
+    protected StoppableDebugger newChild() {
+        return new StoppableDebugger(this);
+    }
+
     /**
      * @return whether an error occurred
      */
@@ -17,18 +17,124 @@ package nl.xillio.xill.api.components;
 
 import nl.xillio.xill.api.io.IOStream;
 
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Abstraction for Objects and Lists since they have commonalities.
+ * <p>
+ * The JSON representation of a collection is cached until the collection, or a collection nested in it, is modified.
+ * When a collection builds its representation, every collection nested in it remembers the collection that directly
+ * contains it. {@link #markModified()} follows those links to drop the cached representations of all collections that
+ * contain the modified one, so a cached representation can be used without looking at the nested collections. The
+ * links are weak, and collections are walked without recursion, so deep and circular values are handled.
  *
  * @author Pieter Dirk Soels
  */
 public abstract class CollectionExpression extends MetaExpression {
+    /**
+     * Hands out versions, so a version is newer than every version handed out before it.
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private volatile long version;
+    private volatile CachedString cachedString;
+    // The collections whose representation contains this collection, guarded by this
+    private List<WeakReference<CollectionExpression>> parents;
+
+    /**
+     * @return the values in this collection
+     */
+    protected abstract Collection<? extends MetaExpression> elements();
 
     @Override
     public String getStringValue() {
         return toString();
     }
 
+    @Override
+    public String toString() {
+        long current = version;
+        CachedString cached = cachedString;
+        if (cached != null && cached.version == current) {
+            return cached.value;
+        }
+
+        // Link the nested collections first, so a modification while building makes the result stale right away
+        linkNestedCollections();
+        String value = super.toString();
+        cachedString = new CachedString(value, current);
+        return value;
+    }
+
+    @Override
+    public void markModified() {
+        Deque<CollectionExpression> pending = new ArrayDeque<>();
+        Set<CollectionExpression> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            CollectionExpression collection = pending.pop();
+            if (visited.add(collection)) {
+                collection.version = VERSIONS.incrementAndGet();
+                collection.cachedString = null;
+                pending.addAll(collection.parents());
+            }
+        }
+    }
+
+    /**
+     * Make every collection nested in this collection a child of the collection that contains it.
+     */
+    private void linkNestedCollections() {
+        Deque<CollectionExpression> pending = new ArrayDeque<>();
+        Set<CollectionExpression> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            CollectionExpression collection = pending.pop();
+            if (visited.add(collection)) {
+                for (MetaExpression element : collection.elements()) {
+                    if (element instanceof CollectionExpression) {
+                        CollectionExpression child = (CollectionExpression) element;
+                        child.addParent(collection);
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized void addParent(CollectionExpression parent) {
+        if (parents == null) {
+            parents = new ArrayList<>(1);
+        }
+        Iterator<WeakReference<CollectionExpression>> iterator = parents.iterator();
+        while (iterator.hasNext()) {
+            CollectionExpression existing = iterator.next().get();
+            if (existing == parent) {
+                return;
+            }
+            if (existing == null) {
+                iterator.remove();
+            }
+        }
+        parents.add(new WeakReference<>(parent));
+    }
+
+    private synchronized List<CollectionExpression> parents() {
+        if (parents == null) {
+            return Collections.emptyList();
+        }
+        List<CollectionExpression> result = new ArrayList<>(parents.size());
+        for (WeakReference<CollectionExpression> reference : parents) {
+            CollectionExpression parent = reference.get();
+            if (parent != null) {
+                result.add(parent);
+            }
+        }
+        return result;
+    }
+
     @Override
     public boolean getBooleanValue() {
         return true;
@@ -48,4 +154,17 @@ public abstract class CollectionExpression extends MetaExpression {
     public Number getNumberValue() {
         return Double.NaN;
     }
+
+    /**
+     * A JSON representation and the version it was built from.
+     */
+    private static final class CachedString {
+        private final String value;
+        private final long version;
+
+        private CachedString(String value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
 }
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.api.components;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * This class holds the runtime state of a single robot invocation.
+ * <p>
+ * Compiled program trees do not store values themselves. Every {@link Processable} that needs state while running
+ * (e.g. the values of a variable) stores it in the frame of the {@link nl.xillio.xill.api.Debugger} it is processed
+ * with. This allows one compiled robot to be run by multiple threads at the same time, as long as every run uses its
+ * own debugger.
+ * <p>
+ * Nodes that are assigned a slot index at compile time store their state in an array slot. Other nodes use an identity
+ * map keyed by the node itself.
+ * <p>
+ * A frame is not thread-safe. It should only be used by the thread that runs the invocation. Work that is handed to
+ * other threads runs with a frame of its own that {@link #inherit(ExecutionFrame) inherits} the state of this frame.
+ */
+public class ExecutionFrame {
+    private static final int INITIAL_SLOTS = 16;
+    // Frames of debuggers that do not hold one themselves, the keys are weak and compared by identity
+    private static final ConcurrentMap<Object, ExecutionFrame> DETACHED_FRAMES = new MapMaker().weakKeys().makeMap();
+    private final Map<Object, Object> state = new IdentityHashMap<>();
+    private Object[] slots = new Object[INITIAL_SLOTS];
+
+    /**
+     * Get the frame that belongs to an owner that does not hold a frame itself, such as a
+     * {@link nl.xillio.xill.api.Debugger} that does not override {@link nl.xillio.xill.api.Debugger#getExecutionFrame()}.
+     * The frame is dropped when the owner is garbage collected.
+     *
+     * @param owner the owner
+     * @return the frame of the owner
+     */
+    public static ExecutionFrame of(Object owner) {
+        return DETACHED_FRAMES.computeIfAbsent(owner, key -> new ExecutionFrame());
+    }
+
+    /**
+     * Get the state of a node, creating it if it does not exist yet.
+     *
+     * @param owner       the node that owns the state
+     * @param initializer creates the state if the node has none in this frame
+     * @param <T>         the type of the state
+     * @return the state
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object owner, Supplier<T> initializer) {
+        Object value = state.get(owner);
+        if (value == null) {
+            value = initializer.get();
+            state.put(owner, value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Get the state of a node.
+     *
+     * @param owner the node that owns the state
+     * @param <T>   the type of the state
+     * @return the state or null if the node has no state in this frame
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object owner) {
+        return (T) state.get(owner);
+    }
+
+    /**
+     * Remove the state of a node.
+     *
+     * @param owner the node that owns the state
+     */
+    public void remove(Object owner) {
+        state.remove(owner);
+    }
+
+    /**
+     * Get the state in a slot, creating it if it does not exist yet.
+     *
+     * @param slot        the slot index that was assigned at compile time
+     * @param initializer creates the state if the slot is empty in this frame
+     * @param <T>         the type of the state
+     * @return the state
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSlot(int slot, Supplier<T> initializer) {
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, slot + 1));
+        }
+        Object value = slots[slot];
+        if (value == null) {
+            value = initializer.get();
+            slots[slot] = value;
+        }
+        return (T) value;
+    }
+
+    /**
+     * Copy the {@link Inheritable} state of another frame into this frame.
+     * This must be called on the thread that uses the other frame.
+     *
+     * @param parent the frame to copy the state from
+     */
+    public void inherit(ExecutionFrame parent) {
+        parent.state.forEach((owner, value) -> {
+            if (value instanceof Inheritable) {
+                state.put(owner, ((Inheritable) value).inherit());
+            }
+        });
+        if (slots.length < parent.slots.length) {
+            slots = Arrays.copyOf(slots, parent.slots.length);
+        }
+        for (int i = 0; i < parent.slots.length; i++) {
+            if (parent.slots[i] instanceof Inheritable) {
+                slots[i] = ((Inheritable) parent.slots[i]).inherit();
+            }
+        }
+    }
+
+    /**
+     * Remove all state from this frame.
+     */
+    public void clear() {
+        state.clear();
+        Arrays.fill(slots, null);
+    }
+
+    /**
+     * Release all {@link Releasable} state and remove all state from this frame.
+     * This should be called when a worker that uses this frame is done.
+     */
+    public void release() {
+        state.values().forEach(ExecutionFrame::releaseState);
+        for (Object slot : slots) {
+            releaseState(slot);
+        }
+        clear();
+    }
+
+    private static void releaseState(Object value) {
+        if (value instanceof Releasable) {
+            ((Releasable) value).release();
+        }
+    }
+
+    /**
+     * State that holds resources which have to be released together with the frame.
+     */
+    public interface Releasable {
+        /**
+         * Release the resources held by this state, this is called when the frame is released.
+         */
+        void release();
+    }
+
+    /**
+     * State that is copied into the frames of workers that run part of an invocation on another thread.
+     */
+    public interface Inheritable extends Releasable {
+        /**
+         * Create a copy of this state for another frame.
+         *
+         * @return the copy
+         */
+        Inheritable inherit();
+    }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This class contains various useful utility functions to create Expressions.
@@ -54,6 +55,18 @@ public class ExpressionBuilderHelper {
      */
     public static final MetaExpression NULL = new ImmutableLiteral(NullLiteral.Instance);
 
+    private static final int SMALL_INTEGER_LOW = -128;
+    private static final int SMALL_INTEGER_HIGH = 1023;
+    private static final MetaExpression[] SMALL_INTEGERS = new MetaExpression[SMALL_INTEGER_HIGH - SMALL_INTEGER_LOW + 1];
+    private static final MetaExpression[] SMALL_LONGS = new MetaExpression[SMALL_INTEGER_HIGH - SMALL_INTEGER_LOW + 1];
+
+    static {
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = new ImmutableLiteral(new NumberBehavior(i + SMALL_INTEGER_LOW));
+            SMALL_LONGS[i] = new ImmutableLiteral(new NumberBehavior((long) (i + SMALL_INTEGER_LOW)));
+        }
+    }
+
     /**
      * Creates a new expression containing binary data.
      *
@@ -74,6 +87,34 @@ public class ExpressionBuilderHelper {
         return buildAtomicOrNull(value, NumberBehavior::new);
     }
 
+    /**
+     * Creates an immutable expression containing an integer, like {@link #TRUE} and {@link #FALSE}.
+     * Small values are shared, so metadata cannot be stored on the result.
+     *
+     * @param value the value of the expression
+     * @return the expression
+     */
+    public static MetaExpression immutableValue(final int value) {
+        if (value >= SMALL_INTEGER_LOW && value <= SMALL_INTEGER_HIGH) {
+            return SMALL_INTEGERS[value - SMALL_INTEGER_LOW];
+        }
+        return new ImmutableLiteral(new NumberBehavior(value));
+    }
+
+    /**
+     * Creates an immutable expression containing a long, like {@link #TRUE} and {@link #FALSE}.
+     * Small values are shared, so metadata cannot be stored on the result.
+     *
+     * @param value the value of the expression
+     * @return the expression
+     */
+    public static MetaExpression immutableValue(final long value) {
+        if (value >= SMALL_INTEGER_LOW && value <= SMALL_INTEGER_HIGH) {
+            return SMALL_LONGS[(int) value - SMALL_INTEGER_LOW];
+        }
+        return new ImmutableLiteral(new NumberBehavior(value));
+    }
+
     /**
      * Creates a new expression containing a boolean.
      *
@@ -108,6 +149,17 @@ public class ExpressionBuilderHelper {
         return buildAtomicOrNull(value, StringConstantBehavior::new);
     }
 
+    /**
+     * Creates a new expression containing a string that is computed when it is first needed.
+     * Use this when building the value is expensive and it is often never read, e.g. the description of an iterator.
+     *
+     * @param value supplies the value of the expression, should not return null
+     * @return the expression
+     */
+    public static MetaExpression lazyValue(final Supplier<String> value) {
+        return buildAtomicOrNull(value, StringBehavior::new);
+    }
+
     /**
      * Creates a new {@link ExpressionDataType#LIST} containing a value.
      * For empty lists you can use {@link ExpressionBuilderHelper#emptyList()}.
@@ -58,6 +58,11 @@ class ListExpression extends CollectionExpression {
         return new ListExpression(value.stream().map(MetaExpression::copy).collect(Collectors.toList()));
     }
 
+    @Override
+    protected Collection<? extends MetaExpression> elements() {
+        return value;
+    }
+
     @Override
     public Number getSize() {
         return value.size();
@@ -31,7 +31,7 @@ import nl.xillio.xill.services.json.JsonParser;
 import java.time.Instant;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * This class represents a general expression in the Xill language.
@@ -43,6 +43,8 @@ public abstract class MetaExpression implements Expression, Processable {
      * This will prevent disposal of the value field and add it to the error messages.
      */
     private static final boolean DEBUG = false;
+    private static final AtomicIntegerFieldUpdater<MetaExpression> SHARED_REFERENCE_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(MetaExpression.class, "sharedReferenceCount");
     private Throwable closedLocation;
 
     @Inject
@@ -55,6 +57,8 @@ public abstract class MetaExpression implements Expression, Processable {
     private ExpressionDataType type = ExpressionDataType.ATOMIC;
     private boolean isClosed;
     private int referenceCount;
+    private volatile int sharedReferenceCount;
+    private volatile boolean shared;
     private boolean preventDispose;
 
     /**
@@ -183,6 +187,7 @@ public abstract class MetaExpression implements Expression, Processable {
      * <li>{@link ExpressionDataType#OBJECT}: Returns a {@link Map
      * Map&lt;String, MetaExpression&gt;}</li>
      * </ul>
+     * A list or map that is changed in place must be marked with {@link #markModified()} afterwards.
      *
      * @param <T> the return type
      * @return the value according to the {@link ExpressionDataType} specification
@@ -243,7 +248,7 @@ public abstract class MetaExpression implements Expression, Processable {
      * @throws JsonException if the value cannot be parsed by the JsonParser
      */
     public String toString(final JsonParser jsonParser) throws JsonException {
-        return jsonParser.toJson((Object) extractValue(this));
+        return jsonParser.toJson(this);
     }
 
     public Number getSize() {
@@ -356,70 +361,140 @@ public abstract class MetaExpression implements Expression, Processable {
         return (T) extractValue(expression, new IdentityHashMap<>(), metaExpressionSerializer);
     }
 
-    private static Object extractValue(final MetaExpression expression, final Map<MetaExpression, Object> results, final MetaExpressionSerializer metaExpressionSerializer) {
-
-        if (results.containsKey(expression)) {
-            return results.get(expression);
+    @SuppressWarnings("unchecked")
+    private static Object extractValue(final MetaExpression root, final Map<MetaExpression, Object> results, final MetaExpressionSerializer metaExpressionSerializer) {
+        if (root.getType() == ExpressionDataType.ATOMIC) {
+            return extractAtomicValue(root, metaExpressionSerializer);
         }
-        Object result;
-        switch (expression.getType()) {
-            case ATOMIC:
-                // null
-                if (expression.isNull()) {
-                    return null;
-                }
-
-                result = metaExpressionSerializer.extractValue(expression);
 
-                if (result != null) {
-                    return result;
+        // Walk the tree with an explicit stack so deeply nested values cannot overflow the call stack
+        Deque<ExtractionFrame> stack = new ArrayDeque<>();
+        Object result = startExtraction(root, results, stack);
+        try {
+            while (!stack.isEmpty()) {
+                ExtractionFrame frame = stack.peek();
+                if (!frame.children.hasNext()) {
+                    stack.pop();
+                    continue;
                 }
 
-                // First we check for the presence of a date
-                Date date = expression.getMeta(Date.class);
-                if (date != null) {
-                    // We have a Date, convert it to a java.util.Date
-                    return java.util.Date.from(date.getZoned().toInstant());
+                Object next = frame.children.next();
+                String key = null;
+                MetaExpression child;
+                if (frame.object != null) {
+                    Entry<String, MetaExpression> entry = (Entry<String, MetaExpression>) next;
+                    key = entry.getKey();
+                    child = entry.getValue();
+                } else {
+                    child = (MetaExpression) next;
                 }
 
-                Object behaviour = expression.getValue();
-
-                if (behaviour instanceof BooleanBehavior) {
-                    result = expression.getBooleanValue();
-                } else if (behaviour instanceof StringBehavior) {
-                    result = expression.getStringValue();
-                } else if (behaviour instanceof NumberBehavior) {
-                    result = expression.getNumberValue();
-                } else if (behaviour instanceof BinaryBehavior) {
-                    result = expression.getStringValue();
+                Object value;
+                if (child.getType() == ExpressionDataType.ATOMIC) {
+                    value = extractAtomicValue(child, metaExpressionSerializer);
+                } else if (results.containsKey(child)) {
+                    value = results.get(child);
                 } else {
-                    throw new UnsupportedOperationException("No extraction found for " + behaviour.getClass().getSimpleName());
+                    value = startExtraction(child, results, stack);
                 }
-                break;
+                frame.add(key, value);
+            }
+        } catch (ConcurrentModificationException cme) {
+            throw new RobotConcurrentModificationException(cme);
+        }
+        return result;
+    }
+
+    /**
+     * Create the empty Java collection for a LIST or OBJECT expression and schedule its children for extraction.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object startExtraction(final MetaExpression expression, final Map<MetaExpression, Object> results, final Deque<ExtractionFrame> stack) {
+        switch (expression.getType()) {
             case LIST:
-                List<Object> resultList = new ArrayList<>();
+                List<MetaExpression> children = expression.getValue();
+                List<Object> resultList = new ArrayList<>(children.size());
                 results.put(expression, resultList);
-                try{
-                    resultList.addAll((expression.<List<MetaExpression>>getValue()).stream().map(v -> extractValue(v, results, metaExpressionSerializer))
-                            .collect(Collectors.toList()));
-                } catch (ConcurrentModificationException cme){
-                    throw new RobotConcurrentModificationException(cme);
-                }
-                result = resultList;
-                break;
+                stack.push(new ExtractionFrame(children.iterator(), resultList, null));
+                return resultList;
             case OBJECT:
+                Map<String, MetaExpression> entries = expression.getValue();
                 Map<String, Object> resultObject = new LinkedHashMap<>();
                 results.put(expression, resultObject);
-                for (Entry<String, MetaExpression> pair : (expression.<Map<String, MetaExpression>>getValue()).entrySet()) {
-                    resultObject.put(pair.getKey(), extractValue(pair.getValue(), results, metaExpressionSerializer));
-                }
-                result = resultObject;
-                break;
+                stack.push(new ExtractionFrame(entries.entrySet().iterator(), null, resultObject));
+                return resultObject;
             default:
                 throw new NotImplementedException("This type has not been implemented.");
         }
-        return result;
+    }
+
+    private static Object extractAtomicValue(final MetaExpression expression, final MetaExpressionSerializer metaExpressionSerializer) {
+        // null
+        if (expression.isNull()) {
+            return null;
+        }
+
+        Object result = metaExpressionSerializer.extractValue(expression);
 
+        if (result != null) {
+            return result;
+        }
+
+        // First we check for the presence of a date
+        Date date = expression.getMeta(Date.class);
+        if (date != null) {
+            // We have a Date, convert it to a java.util.Date
+            return java.util.Date.from(date.getZoned().toInstant());
+        }
+
+        Object behaviour = expression.getValue();
+
+        if (behaviour instanceof BooleanBehavior) {
+            return expression.getBooleanValue();
+        } else if (behaviour instanceof StringBehavior) {
+            return expression.getStringValue();
+        } else if (behaviour instanceof NumberBehavior) {
+            return expression.getNumberValue();
+        } else if (behaviour instanceof BinaryBehavior) {
+            return expression.getStringValue();
+        }
+        throw new UnsupportedOperationException("No extraction found for " + behaviour.getClass().getSimpleName());
+    }
+
+    /**
+     * A list or object that is being extracted, with the children that still have to be visited.
+     */
+    private static final class ExtractionFrame {
+        private final Iterator<?> children;
+        private final List<Object> list;
+        private final Map<String, Object> object;
+
+        private ExtractionFrame(Iterator<?> children, List<Object> list, Map<String, Object> object) {
+            this.children = children;
+            this.list = list;
+            this.object = object;
+        }
+
+        private void add(String key, Object value) {
+            if (list != null) {
+                list.add(value);
+            } else {
+                object.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Notifies this expression that the list or map returned by {@link #getValue()} was changed in place.
+     * <p>
+     * LIST and OBJECT values cache their string representation. Constructs and plugins that add, remove or replace
+     * values in an existing list or map must call this on that collection once they are done, otherwise
+     * {@link #getStringValue()} may keep returning the old representation. Only the changed collection has to be
+     * marked, the collections that contain it notice the change themselves. Collections that are built by the caller
+     * and have not been handed out yet do not need to be marked.
+     */
+    public void markModified() {
+        // Only collections cache a representation of their value
     }
 
     /**
@@ -428,7 +503,11 @@ public abstract class MetaExpression implements Expression, Processable {
      */
     public final void registerReference() {
         // When this variable is assigned, take over ownership
-        referenceCount++;
+        if (shared) {
+            SHARED_REFERENCE_COUNT.incrementAndGet(this);
+        } else {
+            referenceCount++;
+        }
     }
 
     /**
@@ -436,18 +515,56 @@ public abstract class MetaExpression implements Expression, Processable {
      * This generally only happens at the end of scope.
      */
     public final void releaseReference() {
-        referenceCount--;
+        int remaining = shared ? SHARED_REFERENCE_COUNT.decrementAndGet(this) : --referenceCount;
 
-        if (!preventDispose && referenceCount <= 0) {
+        if (!preventDispose && remaining <= 0) {
             close();
         }
     }
 
+    /**
+     * Makes the reference count of this expression and all its children safe to use from multiple threads.
+     * Expressions are counted without synchronization until they are shared, so this must be called by the
+     * thread that owns the expression before it is handed to another thread.
+     * Sharing is permanent and values that are added to a shared collection afterwards are not shared automatically.
+     *
+     * @return this expression
+     */
+    @SuppressWarnings("unchecked")
+    public final MetaExpression share() {
+        Deque<MetaExpression> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            MetaExpression expression = pending.pop();
+            if (expression.shared || expression.isClosed) {
+                continue;
+            }
+            expression.sharedReferenceCount = expression.referenceCount;
+            expression.shared = true;
+
+            if (expression.type == ExpressionDataType.LIST) {
+                ((List<MetaExpression>) expression.value).forEach(pending::push);
+            } else if (expression.type == ExpressionDataType.OBJECT) {
+                ((Map<String, MetaExpression>) expression.value).values().forEach(pending::push);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return whether this expression uses thread-safe reference counting
+     */
+    public final boolean isShared() {
+        return shared;
+    }
+
     /**
      * Prevents this expression from being disposed.
+     * Children of a list or object hold a reference from their parent, so they stay alive as long as the parent
+     * does and do not need to be marked themselves.
      */
     public final void preventDisposal() {
-        setPreventDispose(true);
+        preventDispose = true;
     }
 
     /**
@@ -461,26 +578,7 @@ public abstract class MetaExpression implements Expression, Processable {
      * Allows this expression to be disposed.
      */
     public final void allowDisposal() {
-        setPreventDispose(false);
-    }
-
-    @SuppressWarnings("unchecked")
-    private void setPreventDispose(boolean value) {
-        if (preventDispose == value) {
-            return;
-        }
-
-        preventDispose = value;
-
-        if (getType() == ExpressionDataType.OBJECT) {
-            ((Map<String, MetaExpression>) getValue())
-                    .values()
-                    .forEach(child -> child.setPreventDispose(value));
-        } else if (getType() == ExpressionDataType.LIST) {
-            ((List<MetaExpression>) getValue())
-                    .forEach(child -> child.setPreventDispose(value));
-        }
-
+        preventDispose = false;
     }
 
     public final MetaExpression copy() {
@@ -508,11 +606,10 @@ public abstract class MetaExpression implements Expression, Processable {
     @SuppressWarnings("unchecked")
     @Override
     public void close() {
-        if (isClosed || this == ExpressionBuilderHelper.NULL) {
+        if (this == ExpressionBuilderHelper.NULL || !markClosed()) {
             return;
         }
 
-        isClosed = true;
         closeMetaPool();
 
         // Close children
@@ -534,6 +631,30 @@ public abstract class MetaExpression implements Expression, Processable {
     }
 
 
+    /**
+     * Marks this expression as closed.
+     * Shared expressions can be released by several threads at once, so only one of them may do the actual closing.
+     *
+     * @return true if the caller should close this expression, false if it was already closed
+     */
+    private boolean markClosed() {
+        if (!shared) {
+            if (isClosed) {
+                return false;
+            }
+            isClosed = true;
+            return true;
+        }
+
+        synchronized (this) {
+            if (isClosed) {
+                return false;
+            }
+            isClosed = true;
+            return true;
+        }
+    }
+
     /**
      * Disposes all items in the {@link MetadataExpressionPool}.
      */
@@ -548,6 +669,7 @@ public abstract class MetaExpression implements Expression, Processable {
      */
     protected void resetReferences() {
         referenceCount = 0;
+        sharedReferenceCount = 0;
     }
 
     /**
@@ -573,59 +695,69 @@ public abstract class MetaExpression implements Expression, Processable {
         return parseObject(value, new IdentityHashMap<>(), metaExpressionDeserializer);
     }
 
-    @SuppressWarnings("unchecked")
     private static MetaExpression parseObject(final Object root, final Map<Object, MetaExpression> cache, final MetaExpressionDeserializer metaExpressionDeserializer) {
-        // Check the cache (Don't use key because we need REFERENCE equality not CONTENT)
-        for (Map.Entry<Object, MetaExpression> entry : cache.entrySet()) {
-            if (entry.getKey() == root) {
-                // It seems like we found our match
-                return entry.getValue();
+        if (!(root instanceof List) && !(root instanceof Map)) {
+            return parseAtomic(root, metaExpressionDeserializer);
+        }
+
+        // Walk the graph with an explicit stack so deeply nested values cannot overflow the call stack
+        Deque<ParseFrame> stack = new ArrayDeque<>();
+        MetaExpression result = startParsing(root, cache, stack);
+        while (!stack.isEmpty()) {
+            ParseFrame frame = stack.peek();
+            if (!frame.children.hasNext()) {
+                stack.pop();
+                continue;
             }
-        }
 
-        if (root == null) {
-            return ExpressionBuilder.NULL;
-        }
+            Object next = frame.children.next();
+            String key = null;
+            Object child = next;
+            if (frame.object != null) {
+                Entry<?, ?> entry = (Entry<?, ?>) next;
+                key = entry.getKey().toString();
+                child = entry.getValue();
+            }
 
-        if (root instanceof List) {
-            // Push stub
-            MetaExpression result = ExpressionBuilderHelper.emptyList();
-            cache.put(root, result);
-            List<MetaExpression> values = result.getValue();
-
-            // Parse children
-            for (Object child : (List<?>) root) {
-                MetaExpression current = parseObject(child, cache, metaExpressionDeserializer);
-                values.add(current);
-                current.registerReference();
+            MetaExpression current;
+            if (!(child instanceof List) && !(child instanceof Map)) {
+                current = parseAtomic(child, metaExpressionDeserializer);
+            } else {
+                // The cache holds the containers that were already seen, this preserves shared and circular references
+                current = cache.get(child);
+                if (current == null) {
+                    current = startParsing(child, cache, stack);
+                }
             }
+            frame.add(key, current);
+            current.registerReference();
+        }
 
-            // Push list
-            result.setValue(values);
+        return result;
+    }
 
+    /**
+     * Create the empty LIST or OBJECT expression for a Java collection and schedule its children for parsing.
+     */
+    private static MetaExpression startParsing(final Object container, final Map<Object, MetaExpression> cache, final Deque<ParseFrame> stack) {
+        if (container instanceof List) {
+            MetaExpression result = ExpressionBuilderHelper.emptyList();
+            cache.put(container, result);
+            stack.push(new ParseFrame(((List<?>) container).iterator(), result.getValue(), null));
             return result;
         }
 
-        if (root instanceof Map) {
-            // Push stub
-            MetaExpression result = ExpressionBuilderHelper.emptyObject();
-            cache.put(root, result);
-            LinkedHashMap<String, MetaExpression> values = result.getValue();
-
-            // Parse children
-            for (Entry<?, ?> child : ((Map<?, ?>) root).entrySet()) {
-                MetaExpression current = parseObject(child.getValue(), cache, metaExpressionDeserializer);
-                values.put(child.getKey().toString(), current);
-                current.registerReference();
-            }
-
-            // Push map
-            result.setValue(values);
+        MetaExpression result = ExpressionBuilderHelper.emptyObject();
+        cache.put(container, result);
+        stack.push(new ParseFrame(((Map<?, ?>) container).entrySet().iterator(), null, result.getValue()));
+        return result;
+    }
 
-            return result;
+    private static MetaExpression parseAtomic(final Object root, final MetaExpressionDeserializer metaExpressionDeserializer) {
+        if (root == null) {
+            return ExpressionBuilder.NULL;
         }
 
-        // No list, no map. This must be an atomic value. No need to cache those since they cannot be circular
         // Boolean
         if (root instanceof Boolean) {
             return ExpressionBuilderHelper.fromValue((Boolean) root);
@@ -667,6 +799,29 @@ public abstract class MetaExpression implements Expression, Processable {
         throw new IllegalArgumentException("Unable to deserialize " + root.getClass().getName());
     }
 
+    /**
+     * A Java list or map that is being parsed, with the children that still have to be visited.
+     */
+    private static final class ParseFrame {
+        private final Iterator<?> children;
+        private final List<MetaExpression> list;
+        private final Map<String, MetaExpression> object;
+
+        private ParseFrame(Iterator<?> children, List<MetaExpression> list, Map<String, MetaExpression> object) {
+            this.children = children;
+            this.list = list;
+            this.object = object;
+        }
+
+        private void add(String key, MetaExpression value) {
+            if (list != null) {
+                list.add(value);
+            } else {
+                object.put(key, value);
+            }
+        }
+    }
+
     /**
      * Make a deep copy of the expression.
      *
@@ -69,6 +69,11 @@ class ObjectExpression extends CollectionExpression {
     }
 
 
+    @Override
+    protected Collection<? extends MetaExpression> elements() {
+        return value.values();
+    }
+
     @Override
     public Number getSize() {
         return value.size();
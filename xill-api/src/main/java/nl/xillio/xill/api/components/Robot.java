@@ -15,6 +15,7 @@
  */
 package nl.xillio.xill.api.components;
 
+import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
 
 import java.util.List;
@@ -58,5 +59,26 @@ public interface Robot extends InstructionSet {
      */
     boolean hasArgument();
 
+    /**
+     * Sets the argument for a single run of this robot. This is used by the callbot and runBulk components of the
+     * language, which can run the same compiled robot multiple times at once.
+     *
+     * @param debugger   the debugger of the run
+     * @param expression the value to set for the argument expression
+     */
+    void setArgument(Debugger debugger, MetaExpression expression);
+
+    /**
+     * @param debugger the debugger of the run
+     * @return the argument which was set for the run, or the argument which was set for this robot
+     */
+    MetaExpression getArgument(Debugger debugger);
+
+    /**
+     * @param debugger the debugger of the run
+     * @return whether an argument has been set for the run or for this robot
+     */
+    boolean hasArgument(Debugger debugger);
+
     UUID getCompilerSerialId();
 }
@@ -18,6 +18,7 @@ package nl.xillio.xill.api.components;
 import nl.xillio.util.MathUtils;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -31,11 +32,15 @@ import java.util.regex.Pattern;
  * <li><b>{@link Boolean}: </b> {@code false} if the value is null or empty, {@code true} otherwise</li>
  * <li><b>{@link Number}: </b> if the value is a number then that number as a {@link Double}, otherwise {@link Double#NaN}</li>
  * </ul>
+ * <p>
+ * The value can be supplied lazily, in which case it is computed the first time it is needed.
+ * </p>
  */
 class StringBehavior extends AbstractBehavior {
     private static final Pattern NUMBER_PATTERN = Pattern.compile("((-?\\d*\\.\\d+(E[-\\+]\\d+)?)|(-?\\d+))");
     private Number cachedNumber;
-    private final String value;
+    private String value;
+    private final Supplier<String> valueSupplier;
 
     /**
      * Default constructor.
@@ -45,12 +50,24 @@ class StringBehavior extends AbstractBehavior {
     public StringBehavior(String value) {
         Objects.requireNonNull(value);
         this.value = value;
+        this.valueSupplier = null;
+    }
+
+    /**
+     * Create a string behavior of which the value is computed when it is first needed.
+     *
+     * @param valueSupplier supplies the value, should not return null
+     */
+    public StringBehavior(Supplier<String> valueSupplier) {
+        Objects.requireNonNull(valueSupplier);
+        this.valueSupplier = valueSupplier;
     }
 
     @Override
     public Number getNumberValue() {
         if (cachedNumber == null) {
-            if (value == null || value.isEmpty() || !NUMBER_PATTERN.matcher(value).matches()) {
+            String value = getStringValue();
+            if (value.isEmpty() || !NUMBER_PATTERN.matcher(value).matches()) {
                 cachedNumber = Double.NaN;
             } else {
                 cachedNumber = MathUtils.parse(value);
@@ -62,11 +79,16 @@ class StringBehavior extends AbstractBehavior {
 
     @Override
     public String getStringValue() {
+        if (value == null) {
+            // Computing the value twice from different threads is harmless
+            value = Objects.requireNonNull(valueSupplier.get());
+        }
         return value;
     }
 
     @Override
     public boolean getBooleanValue() {
+        String value = getStringValue();
         if("false".equals(value) || "0".equals(value) || "null".equals(value)) {
             return false;
         }
@@ -76,6 +98,6 @@ class StringBehavior extends AbstractBehavior {
 
     @Override
     public StringBehavior copy() {
-        return new StringBehavior(value);
+        return new StringBehavior(getStringValue());
     }
 }
@@ -104,12 +104,21 @@ public class Argument implements AutoCloseable {
         if (!acceptedTypes[value.getType().toInt()]) {
             return false;
         }
+        setCheckedValue(value);
+        return true;
+    }
+
+    /**
+     * Sets the value of this argument without checking its type.
+     *
+     * @param value the value, its type must be one of the accepted types
+     */
+    void setCheckedValue(final MetaExpression value) {
         value.registerReference();
         if(this.value != null) {
             this.value.releaseReference();
         }
         this.value = value;
-        return true;
     }
 
     /**
@@ -39,6 +39,7 @@ public class ConstructContext {
     private final RobotID robotID;
     private final RobotID rootRobot;
     private final UUID compilerSerialId;
+    private final UUID rootCompilerSerialId;
     private final OutputHandler outputHandler;
     private final ResourceLoader resourceLoader;
     /**
@@ -47,6 +48,7 @@ public class ConstructContext {
      */
     private final EventHost<RobotStartedAction> robotStartedEvent;
     private final EventHost<RobotStoppedAction> robotStoppedEvent;
+    private final EventHost<RobotStoppedAction> rootRobotStoppedEvent;
     /**
      * This event is used to forward deprecated method calls to the correct methods.
      *
@@ -74,14 +76,37 @@ public class ConstructContext {
      */
     public ConstructContext(final Path workingDirectory, final RobotID robot, final RobotID rootRobot, final Construct construct, ResourceLoader resourceLoader, final Debugger debugger, UUID compilerSerialId, OutputHandler outputHandler, final EventHost<RobotStartedAction> robotStartedEvent,
                             final EventHost<RobotStoppedAction> robotStoppedEvent) {
+        this(workingDirectory, robot, rootRobot, construct, resourceLoader, debugger, compilerSerialId, compilerSerialId, outputHandler, robotStartedEvent, robotStoppedEvent, robotStoppedEvent);
+    }
+
+    /**
+     * Creates a new {@link ConstructContext} for a robot that was compiled for a root robot.
+     *
+     * @param workingDirectory      the workingDirectory of the current robot
+     * @param robot                 the robotID of the current robot
+     * @param rootRobot             the robotID of the root robot
+     * @param construct             the construct that will be using this context
+     * @param resourceLoader        the loader of the robot resources
+     * @param debugger              the debugger that is being used
+     * @param compilerSerialId      the serial id of the compiler instance
+     * @param rootCompilerSerialId  the serial id of the compiler instance of the root robot
+     * @param outputHandler         the event handler for all robot output
+     * @param robotStartedEvent     the event host for started robots
+     * @param robotStoppedEvent     the event host for stopped robots
+     * @param rootRobotStoppedEvent the event host for the root robot stopping
+     */
+    public ConstructContext(final Path workingDirectory, final RobotID robot, final RobotID rootRobot, final Construct construct, ResourceLoader resourceLoader, final Debugger debugger, UUID compilerSerialId, UUID rootCompilerSerialId, OutputHandler outputHandler,
+                            final EventHost<RobotStartedAction> robotStartedEvent, final EventHost<RobotStoppedAction> robotStoppedEvent, final EventHost<RobotStoppedAction> rootRobotStoppedEvent) {
         this.workingDirectory = workingDirectory;
         robotID = robot;
         this.rootRobot = rootRobot;
         this.resourceLoader = resourceLoader;
         this.compilerSerialId = compilerSerialId;
+        this.rootCompilerSerialId = rootCompilerSerialId;
         this.outputHandler = outputHandler;
         this.robotStartedEvent = robotStartedEvent;
         this.robotStoppedEvent = robotStoppedEvent;
+        this.rootRobotStoppedEvent = rootRobotStoppedEvent;
         this.debugger = debugger;
     }
 
@@ -181,6 +206,18 @@ public class ConstructContext {
         }
     }
 
+    /**
+     * Adds a listener that will be called when the root robot stops. Unlike {@link #addRobotStoppedListener(Consumer)}
+     * this is not called when a sub-robot stops, so it can be used to clean up state that lives for a whole run.
+     *
+     * @param listener the listener to add
+     */
+    public void addRootRobotStoppedListener(Consumer<RobotStoppedAction> listener) {
+        if (rootRobotStoppedEvent != null) {
+            rootRobotStoppedEvent.getEvent().addListener(listener);
+        }
+    }
+
     /**
      * This method is deprecated. Use {@link ConstructContext#addRobotInterruptListener(Consumer)}.
      *
@@ -231,6 +268,32 @@ public class ConstructContext {
         return compilerSerialId;
     }
 
+    /**
+     * Gets the serial number of the compiler used to compile the root robot.
+     * All robots that run as part of the same run of the root robot share it.
+     *
+     * @return the serial number
+     */
+    public UUID getRootCompilerSerialId() {
+        return rootCompilerSerialId;
+    }
+
+    /**
+     * Creates a context for a single run of a compiled robot that is shared by multiple runs, such as a robot that is
+     * called by callbot or runBulk. The run gets its own serial id, events and debugger, so state that constructs keep
+     * per serial id and clean up when the robot stops is not shared with other runs. The root robot values are kept.
+     *
+     * @param debugger          the debugger of the run
+     * @param compilerSerialId  the serial id of the run
+     * @param robotStartedEvent the event host that is invoked when the run starts
+     * @param robotStoppedEvent the event host that is invoked when the run stops
+     * @return the context of the run
+     */
+    public ConstructContext forRun(final Debugger debugger, UUID compilerSerialId, final EventHost<RobotStartedAction> robotStartedEvent, final EventHost<RobotStoppedAction> robotStoppedEvent) {
+        return new ConstructContext(workingDirectory, robotID, rootRobot, null, resourceLoader, debugger, compilerSerialId, rootCompilerSerialId, outputHandler,
+                robotStartedEvent, robotStoppedEvent, rootRobotStoppedEvent);
+    }
+
     /**
      * Create a processor using the current debugger as the parent.
      *
@@ -149,6 +149,17 @@ public class ConstructProcessor implements AutoCloseable {
         return parameters[index].setValue(value);
     }
 
+    /**
+     * Sets the value of the argument in slot index without checking its type.
+     * This should only be used for values whose type was already checked when the robot was compiled.
+     *
+     * @param index the index of the argument from 0 to {@link ConstructProcessor#getNumberOfArguments()} - 1
+     * @param value the value to set the argument to, its type must be accepted by the argument
+     */
+    public void setCheckedArgument(final int index, final MetaExpression value) {
+        parameters[index].setCheckedValue(value);
+    }
+
     /**
      * Finds the first missing argument.
      *
@@ -16,8 +16,10 @@
 package nl.xillio.xill.services.json;
 
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.io.IOContext;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
@@ -27,6 +29,9 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import nl.xillio.xill.api.components.MetaExpression;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.text.SimpleDateFormat;
 
@@ -52,9 +57,16 @@ public class JacksonParser implements PrettyJsonParser {
         }
     }
 
+    // Mappers and factories are thread-safe once configured, so all parsers share one for reading
+    private static final ObjectMapper READER = new ObjectMapper();
+    private static final JsonFactory READER_FACTORY = READER.getFactory()
+            .disable(com.fasterxml.jackson.core.JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
     private final ObjectMapper mapper;
+    private final boolean pretty;
 
     public JacksonParser(boolean pretty) {
+        this.pretty = pretty;
         if (pretty) {
             mapper = new ObjectMapper(new Factory());
             mapper.enable(SerializationFeature.INDENT_OUTPUT);
@@ -79,16 +91,76 @@ public class JacksonParser implements PrettyJsonParser {
 
     @Override
     public String toJson(MetaExpression metaExpression) throws JsonException {
-        return toJson((Object) MetaExpression.extractValue(metaExpression));
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = configure(mapper.getFactory().createGenerator(writer))) {
+            JsonExpressionWriter.write(metaExpression, generator);
+        } catch (IOException e) {
+            throw new JsonException("Failed to write json: " + e.getMessage(), e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void toJson(MetaExpression metaExpression, OutputStream output) throws JsonException {
+        try (JsonGenerator generator = configure(mapper.getFactory().createGenerator(output, JsonEncoding.UTF8))) {
+            JsonExpressionWriter.write(metaExpression, generator);
+        } catch (IOException e) {
+            throw new JsonException("Failed to write json: " + e.getMessage(), e);
+        }
+    }
+
+    private JsonGenerator configure(JsonGenerator generator) {
+        // The target belongs to the caller and a failed write should not be completed with closing brackets
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        if (pretty) {
+            // Pretty printers keep track of the indentation, so every generator needs its own
+            generator.setPrettyPrinter(new PrettyPrinter());
+        }
+        return generator;
     }
 
     @Override
     public <T> T fromJson(String json, Class<T> type) throws JsonException {
-        ObjectMapper newMapper = new ObjectMapper();
         try {
-            return newMapper.readValue(json, type);
+            return READER.readValue(json, type);
         } catch (IOException e) {
             throw new JsonException("Failed to parse json: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public MetaExpression parse(String json) throws JsonException {
+        try (com.fasterxml.jackson.core.JsonParser parser = READER_FACTORY.createParser(json)) {
+            return parse(parser);
+        } catch (IOException e) {
+            throw new JsonException("Failed to parse json: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public MetaExpression parse(InputStream json) throws JsonException {
+        try (com.fasterxml.jackson.core.JsonParser parser = READER_FACTORY.createParser(json)) {
+            return parse(parser);
+        } catch (IOException e) {
+            throw new JsonException("Failed to parse json: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public JsonExpressionIterator iterate(InputStream json, JsonExpressionIterator.Mode mode) throws JsonException {
+        try {
+            return new JsonExpressionIterator(READER_FACTORY.createParser(json), mode);
+        } catch (IOException e) {
+            throw new JsonException("Failed to read json: " + e.getMessage(), e);
+        }
+    }
+
+    private static MetaExpression parse(com.fasterxml.jackson.core.JsonParser parser) throws IOException {
+        MetaExpression result = JsonExpressionReader.read(parser);
+        if (result == null) {
+            throw new JsonParseException(parser, "No content to parse");
+        }
+        return result;
+    }
 }
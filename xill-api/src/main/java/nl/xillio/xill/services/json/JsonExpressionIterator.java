@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.services.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.errors.OperationFailedException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This iterator reads json values from a Jackson parser one at a time.
+ * Depending on the {@link Mode} it returns the elements of a single array or every top-level value in the input.
+ * The latter supports newline-delimited json.
+ * Only the value that is currently being read is held in memory.
+ */
+public final class JsonExpressionIterator implements Iterator<MetaExpression>, AutoCloseable {
+    private final com.fasterxml.jackson.core.JsonParser parser;
+    private final Mode mode;
+    private boolean started;
+    private boolean array;
+    private boolean finished;
+    private MetaExpression next;
+
+    /**
+     * Create an iterator that reads from a parser that has not read any tokens yet.
+     *
+     * @param parser the parser, it is closed when this iterator is closed
+     * @param mode   how the values are found in the input
+     */
+    public JsonExpressionIterator(com.fasterxml.jackson.core.JsonParser parser, Mode mode) {
+        this.parser = parser;
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                finished = true;
+                throw new OperationFailedException("read JSON", e.getMessage(), e);
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public MetaExpression next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MetaExpression result = next;
+        next = null;
+        return result;
+    }
+
+    private MetaExpression readNext() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            array = mode == Mode.ARRAY || mode == Mode.AUTO && token == JsonToken.START_ARRAY;
+            if (array) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "The input is not a JSON array");
+                }
+                token = parser.nextToken();
+            }
+        }
+
+        if (token == null) {
+            if (array) {
+                throw new JsonParseException(parser, "The array was not closed before the end of the input");
+            }
+            return null;
+        }
+        if (array && token == JsonToken.END_ARRAY) {
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected data after the end of the array");
+            }
+            return null;
+        }
+        return JsonExpressionReader.read(parser);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        next = null;
+        parser.close();
+    }
+
+    /**
+     * How an iterator finds the values in its input.
+     */
+    public enum Mode {
+        /**
+         * The input is a single array and its elements are returned.
+         */
+        ARRAY,
+        /**
+         * Every top-level value in the input is returned, as in newline-delimited json.
+         */
+        LINES,
+        /**
+         * Use {@link #ARRAY} if the input starts with an array and {@link #LINES} otherwise.
+         */
+        AUTO
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.services.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+import nl.xillio.xill.api.components.ExpressionBuilderHelper;
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class builds {@link MetaExpression MetaExpressions} directly from the tokens of a Jackson parser.
+ * No intermediate Java tree is created and nesting depth is not limited by the call stack.
+ */
+public final class JsonExpressionReader {
+    private JsonExpressionReader() {
+        // Utility class
+    }
+
+    /**
+     * Read one complete value from a parser.
+     * If the parser is not positioned on a token yet the next token is read first.
+     * When this method returns the parser is positioned on the last token of the value.
+     *
+     * @param parser the parser
+     * @return the value or null if the end of the input was reached
+     * @throws IOException when reading or parsing the input failed
+     */
+    public static MetaExpression read(com.fasterxml.jackson.core.JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == null) {
+            return null;
+        }
+        if (!token.isStructStart()) {
+            return readScalar(parser, token);
+        }
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        MetaExpression result = start(token, stack);
+        while (!stack.isEmpty()) {
+            token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input");
+            }
+
+            Frame frame = stack.peek();
+            if (token == JsonToken.FIELD_NAME) {
+                frame.key = parser.getCurrentName();
+            } else if (token.isStructEnd()) {
+                stack.pop();
+            } else if (token.isStructStart()) {
+                frame.add(start(token, stack));
+            } else {
+                frame.add(readScalar(parser, token));
+            }
+        }
+
+        return result;
+    }
+
+    private static MetaExpression start(JsonToken token, Deque<Frame> stack) {
+        if (token == JsonToken.START_ARRAY) {
+            MetaExpression result = ExpressionBuilderHelper.emptyList();
+            stack.push(new Frame(result.getValue(), null));
+            return result;
+        }
+
+        MetaExpression result = ExpressionBuilderHelper.emptyObject();
+        stack.push(new Frame(null, result.getValue()));
+        return result;
+    }
+
+    private static MetaExpression readScalar(com.fasterxml.jackson.core.JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return ExpressionBuilderHelper.fromValue(parser.getText());
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return ExpressionBuilderHelper.fromValue(parser.getNumberValue());
+            case VALUE_TRUE:
+                return ExpressionBuilderHelper.TRUE;
+            case VALUE_FALSE:
+                return ExpressionBuilderHelper.FALSE;
+            case VALUE_NULL:
+                return ExpressionBuilderHelper.NULL;
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + token);
+        }
+    }
+
+    /**
+     * A LIST or OBJECT that is being filled.
+     */
+    private static final class Frame {
+        private final List<MetaExpression> list;
+        private final Map<String, MetaExpression> object;
+        private String key;
+
+        private Frame(List<MetaExpression> list, Map<String, MetaExpression> object) {
+            this.list = list;
+            this.object = object;
+        }
+
+        private void add(MetaExpression value) {
+            value.registerReference();
+            if (list != null) {
+                list.add(value);
+                return;
+            }
+
+            // Like a Java map, a duplicate key keeps its position but takes the last value
+            MetaExpression previous = object.put(key, value);
+            if (previous != null) {
+                previous.releaseReference();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.services.json;
+
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.errors.RobotConcurrentModificationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * This class writes {@link MetaExpression MetaExpressions} directly to a Jackson generator.
+ * No intermediate Java copy of the value is created and nesting depth is not limited by the call stack.
+ * <p>
+ * Like {@link MetaExpression#extractValue(MetaExpression)}, a LIST or OBJECT that is referenced more than once is
+ * written every time it is referenced. A LIST or OBJECT that contains itself cannot be written.
+ */
+public final class JsonExpressionWriter {
+    private JsonExpressionWriter() {
+        // Utility class
+    }
+
+    /**
+     * Write a value to a generator. The generator is not flushed.
+     *
+     * @param expression the value
+     * @param generator  the generator
+     * @throws IOException             when writing failed
+     * @throws JsonGenerationException when the value contains a circular reference
+     */
+    public static void write(MetaExpression expression, JsonGenerator generator) throws IOException {
+        if (expression.getType() == ExpressionDataType.ATOMIC) {
+            writeAtomic(expression, generator);
+            return;
+        }
+
+        // The collections that are currently being written, seeing one of these again means the value is circular
+        Set<MetaExpression> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Frame> stack = new ArrayDeque<>();
+        try {
+            start(expression, generator, path, stack);
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (!frame.children.hasNext()) {
+                    stack.pop();
+                    path.remove(frame.expression);
+                    frame.end(generator);
+                    continue;
+                }
+
+                MetaExpression child = frame.next(generator);
+                if (child.getType() == ExpressionDataType.ATOMIC) {
+                    writeAtomic(child, generator);
+                } else {
+                    start(child, generator, path, stack);
+                }
+            }
+        } catch (ConcurrentModificationException cme) {
+            throw new RobotConcurrentModificationException(cme);
+        }
+    }
+
+    private static void start(MetaExpression expression, JsonGenerator generator, Set<MetaExpression> path, Deque<Frame> stack) throws IOException {
+        if (!path.add(expression)) {
+            throw new JsonGenerationException("Cannot write a value that contains a circular reference", generator);
+        }
+
+        if (expression.getType() == ExpressionDataType.LIST) {
+            List<MetaExpression> children = expression.getValue();
+            generator.writeStartArray();
+            stack.push(new Frame(expression, children.iterator(), false));
+        } else {
+            Map<String, MetaExpression> children = expression.getValue();
+            generator.writeStartObject();
+            stack.push(new Frame(expression, children.entrySet().iterator(), true));
+        }
+    }
+
+    private static void writeAtomic(MetaExpression expression, JsonGenerator generator) throws IOException {
+        Object value = MetaExpression.extractValue(expression);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, generator);
+        } else {
+            // Dates and other values are written by the codec of the generator so they use its configuration
+            generator.writeObject(value);
+        }
+    }
+
+    private static void writeNumber(Number value, JsonGenerator generator) throws IOException {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(value.intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber(value.longValue());
+        } else if (value instanceof Double) {
+            generator.writeNumber(value.doubleValue());
+        } else if (value instanceof Float) {
+            generator.writeNumber(value.floatValue());
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    /**
+     * A LIST or OBJECT that is being written, with the children that still have to be written.
+     */
+    private static final class Frame {
+        private final MetaExpression expression;
+        private final Iterator<?> children;
+        private final boolean object;
+
+        private Frame(MetaExpression expression, Iterator<?> children, boolean object) {
+            this.expression = expression;
+            this.children = children;
+            this.object = object;
+        }
+
+        @SuppressWarnings("unchecked")
+        private MetaExpression next(JsonGenerator generator) throws IOException {
+            if (!object) {
+                return (MetaExpression) children.next();
+            }
+            Entry<String, MetaExpression> entry = (Entry<String, MetaExpression>) children.next();
+            generator.writeFieldName(entry.getKey());
+            return entry.getValue();
+        }
+
+        private void end(JsonGenerator generator) throws IOException {
+            if (object) {
+                generator.writeEndObject();
+            } else {
+                generator.writeEndArray();
+            }
+        }
+    }
+}
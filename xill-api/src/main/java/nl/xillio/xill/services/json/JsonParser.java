@@ -18,6 +18,9 @@ package nl.xillio.xill.services.json;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.services.XillService;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * This service is capable of parsing objects to and from json.
  *
@@ -42,6 +45,15 @@ public interface JsonParser extends XillService {
      */
     String toJson(MetaExpression metaExpression) throws JsonException;
 
+    /**
+     * Writes a {@link MetaExpression} as UTF-8 encoded json to a stream. The stream is flushed but not closed.
+     *
+     * @param metaExpression the expression
+     * @param output         the stream
+     * @throws JsonException when writing the json failed
+     */
+    void toJson(MetaExpression metaExpression, OutputStream output) throws JsonException;
+
     /**
      * Parses a json string to an object.
      *
@@ -52,4 +64,33 @@ public interface JsonParser extends XillService {
      * @throws JsonException when parsing the json failed
      */
     <T> T fromJson(String json, Class<T> type) throws JsonException;
+
+    /**
+     * Parses a json string directly to a {@link MetaExpression}.
+     *
+     * @param json the json string
+     * @return the expression
+     * @throws JsonException when parsing the json failed
+     */
+    MetaExpression parse(String json) throws JsonException;
+
+    /**
+     * Parses json from a stream directly to a {@link MetaExpression}. The stream is not closed.
+     *
+     * @param json the stream, the encoding is detected automatically
+     * @return the expression
+     * @throws JsonException when reading or parsing the json failed
+     */
+    MetaExpression parse(InputStream json) throws JsonException;
+
+    /**
+     * Reads json values from a stream one at a time. Depending on the mode the elements of an array or every
+     * top-level value are returned, as in newline-delimited json. The stream is not closed.
+     *
+     * @param json the stream, the encoding is detected automatically
+     * @param mode how the values are found in the stream
+     * @return an iterator over the values
+     * @throws JsonException when the stream could not be read
+     */
+    JsonExpressionIterator iterate(InputStream json, JsonExpressionIterator.Mode mode) throws JsonException;
 }
@@ -38,7 +38,13 @@ public class MathUtilsTest {
         return new Object[][]{
                 {10, 5, 15},
                 {10.0, 5.0, 15.0},
+                {10, 5L, 15L},
+                {10, 5.0, 15.0},
+                {10L, 5.0, 15.0},
+                {(short) 10, 5, 15},
+                {1.5f, 1, 2.5},
                 {Integer.MAX_VALUE, 1, Integer.MAX_VALUE + 1L},
+                {Integer.MAX_VALUE, 1L, Integer.MAX_VALUE + 1L},
                 {Long.MAX_VALUE, 1, BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)},
                 {2147483648L, 10, 2147483658L},
                 {new BigInteger("18446744073709551616"), BigInteger.TEN, new BigInteger("18446744073709551626")}
@@ -318,4 +324,28 @@ public class MathUtilsTest {
             Assert.assertNull(actual);
         }
     }
+
+    @Test(dataProvider = "integers")
+    public void testIntOperationsMatchNumberOperations(final int x, final int y) {
+        Number a = x;
+        Number b = y;
+        assertEquals(MathUtils.add(x, y), MathUtils.add(a, b));
+        assertEquals(MathUtils.subtract(x, y), MathUtils.subtract(a, b));
+        assertEquals(MathUtils.multiply(x, y), MathUtils.multiply(a, b));
+        assertEquals(MathUtils.divide(x, y), MathUtils.divide(a, b));
+        assertEquals(MathUtils.modulo(x, y), MathUtils.modulo(a, b));
+        assertEquals(MathUtils.power(x, y), MathUtils.power(a, b));
+    }
+
+    @Test(dataProvider = "longs")
+    public void testLongOperationsMatchNumberOperations(final long x, final long y) {
+        Number a = x;
+        Number b = y;
+        assertEquals(MathUtils.add(x, y), MathUtils.add(a, b));
+        assertEquals(MathUtils.subtract(x, y), MathUtils.subtract(a, b));
+        assertEquals(MathUtils.multiply(x, y), MathUtils.multiply(a, b));
+        assertEquals(MathUtils.divide(x, y), MathUtils.divide(a, b));
+        assertEquals(MathUtils.modulo(x, y), MathUtils.modulo(a, b));
+        assertEquals(MathUtils.power(x, y), MathUtils.power(a, b));
+    }
 }
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.api.components;
+
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.services.json.JacksonParser;
+import nl.xillio.xill.services.json.JsonParser;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * This class tests the string representation cache of {@link CollectionExpression}.
+ */
+public class CollectionExpressionTest {
+    private Field jsonParserField;
+    private Object originalParser;
+    private JsonParser parser;
+
+    @BeforeMethod
+    public void injectParser() throws Exception {
+        jsonParserField = MetaExpression.class.getDeclaredField("jsonParser");
+        jsonParserField.setAccessible(true);
+        originalParser = jsonParserField.get(null);
+        parser = spy(new JacksonParser(false));
+        jsonParserField.set(null, parser);
+    }
+
+    @AfterMethod
+    public void restoreParser() throws Exception {
+        jsonParserField.set(null, originalParser);
+    }
+
+    @Test
+    public void testStringValueIsCached() throws Exception {
+        MetaExpression list = list(fromValue(1), fromValue("two"));
+
+        assertEquals(list.getStringValue(), "[1,\"two\"]");
+        assertEquals(list.getStringValue(), "[1,\"two\"]");
+        assertEquals(list.toString(), "[1,\"two\"]");
+
+        verify(parser, times(1)).toJson(any(MetaExpression.class));
+    }
+
+    @Test
+    public void testMarkModifiedInvalidatesCache() {
+        MetaExpression list = list(fromValue(1));
+        assertEquals(list.getStringValue(), "[1]");
+
+        list.<List<MetaExpression>>getValue().add(fromValue(2));
+        list.markModified();
+
+        assertEquals(list.getStringValue(), "[1,2]");
+    }
+
+    @Test
+    public void testNestedModificationInvalidatesParent() {
+        MetaExpression inner = list(fromValue(1));
+        LinkedHashMap<String, MetaExpression> map = new LinkedHashMap<>();
+        map.put("inner", inner);
+        MetaExpression outer = fromValue(map);
+        assertEquals(outer.getStringValue(), "{\"inner\":[1]}");
+
+        inner.<List<MetaExpression>>getValue().add(fromValue(2));
+        inner.markModified();
+
+        assertEquals(outer.getStringValue(), "{\"inner\":[1,2]}");
+    }
+
+    @Test
+    public void testFlatCacheSurvivesOtherModifications() throws Exception {
+        MetaExpression flat = list(fromValue(1));
+        MetaExpression other = list(fromValue(2));
+        flat.getStringValue();
+
+        other.<List<MetaExpression>>getValue().add(fromValue(3));
+        other.markModified();
+        flat.getStringValue();
+
+        verify(parser, times(1)).toJson(flat);
+    }
+
+    @Test
+    public void testNestedCacheSurvivesOtherModifications() throws Exception {
+        MetaExpression nested = list(list(fromValue(1)));
+        MetaExpression other = list(fromValue(2));
+        nested.getStringValue();
+
+        other.<List<MetaExpression>>getValue().add(fromValue(3));
+        other.markModified();
+        nested.getStringValue();
+
+        verify(parser, times(1)).toJson(nested);
+    }
+
+    @Test
+    public void testDeepModificationInvalidatesAllParents() {
+        MetaExpression inner = list(fromValue(1));
+        MetaExpression middle = list(inner);
+        MetaExpression outer = list(middle, fromValue("a"));
+        assertEquals(outer.getStringValue(), "[[[1]],\"a\"]");
+        assertEquals(middle.getStringValue(), "[[1]]");
+
+        inner.<List<MetaExpression>>getValue().add(fromValue(2));
+        inner.markModified();
+
+        assertEquals(outer.getStringValue(), "[[[1,2]],\"a\"]");
+        assertEquals(middle.getStringValue(), "[[1,2]]");
+    }
+
+    @Test
+    public void testReplacedChildIsTracked() {
+        MetaExpression first = list(fromValue(1));
+        MetaExpression outer = list(first);
+        assertEquals(outer.getStringValue(), "[[1]]");
+
+        MetaExpression second = list(fromValue(2));
+        outer.<List<MetaExpression>>getValue().set(0, second);
+        outer.markModified();
+        assertEquals(outer.getStringValue(), "[[2]]");
+
+        // Only the current child invalidates the cache
+        first.<List<MetaExpression>>getValue().add(fromValue(3));
+        first.markModified();
+        second.<List<MetaExpression>>getValue().add(fromValue(4));
+        second.markModified();
+        assertEquals(outer.getStringValue(), "[[2,4]]");
+    }
+
+    @Test
+    public void testDeepModificationOfADeepValue() {
+        MetaExpression inner = list(fromValue(1));
+        MetaExpression outer = inner;
+        for (int i = 0; i < 100_000; i++) {
+            outer = list(outer);
+        }
+        String before = outer.getStringValue();
+
+        inner.<List<MetaExpression>>getValue().add(fromValue(2));
+        inner.markModified();
+
+        String after = outer.getStringValue();
+        assertEquals(after.length(), before.length() + 2);
+        assertEquals(after.substring(100_000, 100_006), "[1,2]]");
+    }
+
+    @Test
+    public void testCircularValue() {
+        MetaExpression list = list(fromValue(1));
+        assertEquals(list.getStringValue(), "[1]");
+
+        list.<List<MetaExpression>>getValue().add(list);
+        list.markModified();
+        assertThrows(RobotRuntimeException.class, list::getStringValue);
+
+        // The collection is now linked to itself
+        list.markModified();
+        list.<List<MetaExpression>>getValue().remove(1);
+        list.markModified();
+        assertEquals(list.getStringValue(), "[1]");
+    }
+
+    @Test
+    public void testObjectCacheIsInvalidated() {
+        MetaExpression object = fromValue(new LinkedHashMap<>());
+        assertEquals(object.getStringValue(), "{}");
+
+        object.<Map<String, MetaExpression>>getValue().put("key", fromValue("value"));
+        object.markModified();
+
+        assertEquals(object.getStringValue(), "{\"key\":\"value\"}");
+    }
+
+    private static MetaExpression list(MetaExpression... values) {
+        List<MetaExpression> list = new ArrayList<>();
+        for (MetaExpression value : values) {
+            list.add(value);
+        }
+        return fromValue(list);
+    }
+}
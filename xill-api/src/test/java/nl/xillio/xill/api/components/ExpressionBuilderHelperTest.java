@@ -20,6 +20,7 @@ import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -61,4 +62,22 @@ public class ExpressionBuilderHelperTest {
         assertEquals(trueExpression.getNumberValue(), Double.NaN);
     }
 
+    /**
+     * Test {@link ExpressionBuilderHelper#immutableValue(int)} and {@link ExpressionBuilderHelper#immutableValue(long)}
+     */
+    @Test
+    public void testImmutableValue() {
+        assertSame(ExpressionBuilderHelper.immutableValue(5), ExpressionBuilderHelper.immutableValue(5));
+        assertEquals(ExpressionBuilderHelper.immutableValue(5).getNumberValue(), 5);
+        assertEquals(ExpressionBuilderHelper.immutableValue(5L).getNumberValue(), 5L);
+        assertEquals(ExpressionBuilderHelper.immutableValue(-128).getNumberValue(), -128);
+        assertEquals(ExpressionBuilderHelper.immutableValue(100000).getNumberValue(), 100000);
+        assertEquals(ExpressionBuilderHelper.immutableValue(Long.MAX_VALUE).getNumberValue(), Long.MAX_VALUE);
+
+        // Shared values survive being released
+        MetaExpression value = ExpressionBuilderHelper.immutableValue(7);
+        value.registerReference();
+        value.releaseReference();
+        assertEquals(ExpressionBuilderHelper.immutableValue(7).getNumberValue(), 7);
+    }
 }
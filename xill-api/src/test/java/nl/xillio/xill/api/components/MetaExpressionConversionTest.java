@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.api.components;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link MetaExpression#parseObject(Object)} and {@link MetaExpression#extractValue(MetaExpression)} on large and
+ * deeply nested values. The timeouts act as benchmarks: the old quadratic implementation took minutes for these sizes.
+ */
+public class MetaExpressionConversionTest {
+    private static final int LARGE_SIZE = 200_000;
+    private static final int DEEP_NESTING = 100_000;
+
+    @Test(timeOut = 10_000)
+    public void testParseLargeDocument() {
+        List<Object> root = largeDocument();
+
+        MetaExpression result = MetaExpression.parseObject(root);
+
+        List<MetaExpression> items = result.getValue();
+        assertEquals(items.size(), LARGE_SIZE);
+        Map<String, MetaExpression> last = items.get(LARGE_SIZE - 1).getValue();
+        assertEquals(last.get("id").getNumberValue().intValue(), LARGE_SIZE - 1);
+        assertEquals(last.get("tags").<List<MetaExpression>>getValue().get(1).getStringValue(), "b");
+    }
+
+    @Test(timeOut = 10_000)
+    public void testExtractLargeDocument() {
+        List<Object> root = largeDocument();
+
+        List<?> result = MetaExpression.extractValue(MetaExpression.parseObject(root));
+
+        assertEquals(result.size(), LARGE_SIZE);
+        Map<?, ?> last = (Map<?, ?>) result.get(LARGE_SIZE - 1);
+        assertEquals(((Number) last.get("id")).intValue(), LARGE_SIZE - 1);
+        assertEquals(last.get("name"), "item " + (LARGE_SIZE - 1));
+        assertEquals(last.get("tags"), Arrays.asList("a", "b"));
+    }
+
+    @Test(timeOut = 10_000)
+    public void testDeeplyNestedDocument() {
+        List<Object> root = new ArrayList<>();
+        List<Object> current = root;
+        for (int i = 0; i < DEEP_NESTING; i++) {
+            List<Object> child = new ArrayList<>();
+            current.add(child);
+            current = child;
+        }
+        current.add("bottom");
+
+        MetaExpression parsed = MetaExpression.parseObject(root);
+        Object extracted = MetaExpression.extractValue(parsed);
+
+        Object bottom = extracted;
+        for (int i = 0; i <= DEEP_NESTING; i++) {
+            bottom = ((List<?>) bottom).get(0);
+        }
+        assertEquals(bottom, "bottom");
+    }
+
+    @Test
+    public void testCircularReferences() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        List<Object> list = new ArrayList<>();
+        list.add(root);
+        list.add(list);
+        root.put("list", list);
+        root.put("again", list);
+
+        MetaExpression parsed = MetaExpression.parseObject(root);
+
+        Map<String, MetaExpression> object = parsed.getValue();
+        MetaExpression parsedList = object.get("list");
+        assertSame(object.get("again"), parsedList);
+        assertSame(parsedList.<List<MetaExpression>>getValue().get(0), parsed);
+        assertSame(parsedList.<List<MetaExpression>>getValue().get(1), parsedList);
+
+        Map<?, ?> extracted = MetaExpression.extractValue(parsed);
+        List<?> extractedList = (List<?>) extracted.get("list");
+        assertSame(extracted.get("again"), extractedList);
+        assertSame(extractedList.get(0), extracted);
+        assertSame(extractedList.get(1), extractedList);
+    }
+
+    @Test
+    public void testObjectKeepsKeyOrder() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("b", 1);
+        root.put("a", Arrays.asList(true, null));
+        root.put("c", "text");
+
+        Map<String, Object> extracted = MetaExpression.extractValue(MetaExpression.parseObject(root));
+
+        assertEquals(new ArrayList<>(extracted.keySet()), Arrays.asList("b", "a", "c"));
+        assertEquals(extracted.get("a"), Arrays.asList(true, null));
+    }
+
+    private List<Object> largeDocument() {
+        List<Object> root = new ArrayList<>(LARGE_SIZE);
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", i);
+            item.put("name", "item " + i);
+            item.put("tags", Arrays.asList("a", "b"));
+            root.add(item);
+        }
+        return root;
+    }
+}
@@ -27,11 +27,16 @@ import java.lang.reflect.Field;
 import java.sql.Date;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
-import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertSame;
+import static org.testng.Assert.*;
 
 
 public class MetaExpressionTest {
@@ -133,6 +138,67 @@ public class MetaExpressionTest {
         assertSame(result, copy);
     }
 
+    @Test
+    public void testPreventDisposalKeepsChildrenAlive() {
+        MetaExpression child = ExpressionBuilderHelper.fromValue("child");
+        MetaExpression list = ExpressionBuilderHelper.fromValue(new ArrayList<>(Collections.singletonList(child)));
+        child.registerReference();
+        list.registerReference();
+
+        list.preventDisposal();
+        child.releaseReference();
+        list.releaseReference();
+
+        assertFalse(child.isDisposalPrevented());
+        assertTrue(list.isOpen());
+        assertTrue(child.isOpen());
+
+        list.allowDisposal();
+        list.registerReference();
+        list.releaseReference();
+
+        assertFalse(list.isOpen());
+        assertFalse(child.isOpen());
+    }
+
+    @Test
+    public void testShareSharesChildren() {
+        MetaExpression child = ExpressionBuilderHelper.fromValue("child");
+        LinkedHashMap<String, MetaExpression> map = new LinkedHashMap<>();
+        map.put("child", child);
+        MetaExpression object = ExpressionBuilderHelper.fromValue(map);
+
+        assertSame(object.share(), object);
+
+        assertTrue(object.isShared());
+        assertTrue(child.isShared());
+    }
+
+    @Test
+    public void testSharedReferenceCountFromManyThreads() throws InterruptedException {
+        MetaExpression expression = ExpressionBuilderHelper.fromValue("shared");
+        expression.registerReference();
+        expression.share();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 10000; i++) {
+            executor.submit(() -> {
+                expression.registerReference();
+                expression.registerReference();
+                expression.releaseReference();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 10000; i++) {
+            expression.releaseReference();
+            assertTrue(expression.isOpen());
+        }
+        expression.releaseReference();
+        assertFalse(expression.isOpen());
+    }
+
     /**
      * Stub implementation of MetaExpression for testing
      */
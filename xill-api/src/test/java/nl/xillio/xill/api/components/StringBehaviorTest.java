@@ -71,4 +71,20 @@ public class StringBehaviorTest {
             assertTrue(stringBehaviors[i] != copy); // different objects
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyValue() throws Exception {
+        int[] calls = new int[1];
+        StringBehavior behavior = new StringBehavior(() -> {
+            calls[0]++;
+            return "0";
+        });
+
+        assertEquals(calls[0], 0);
+        assertEquals(behavior.getStringValue(), "0");
+        assertEquals(behavior.getNumberValue(), 0);
+        assertEquals(behavior.getBooleanValue(), false);
+        assertEquals(behavior.copy().getStringValue(), "0");
+        assertEquals(calls[0], 1);
+    }
+}
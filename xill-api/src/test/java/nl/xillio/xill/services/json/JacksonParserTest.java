@@ -15,12 +15,20 @@
  */
 package nl.xillio.xill.services.json;
 
+import nl.xillio.xill.api.components.ExpressionDataType;
 import nl.xillio.xill.api.components.MetaExpression;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
 import static org.testng.Assert.*;
@@ -54,4 +62,128 @@ public class JacksonParserTest {
         JsonParser parser = new JacksonParser(false);
         parser.toJson(list);
     }
+
+    @Test
+    public void testParseBuildsExpressions() throws JsonException {
+        JsonParser parser = new JacksonParser(false);
+
+        MetaExpression result = parser.parse("{\"b\": [1, 2.5, \"text\", true, null], \"a\": {}, \"b\": [42]}");
+
+        assertEquals(result.getType(), ExpressionDataType.OBJECT);
+        Map<String, MetaExpression> object = result.getValue();
+        assertEquals(new ArrayList<>(object.keySet()), Arrays.asList("b", "a"));
+        List<MetaExpression> list = object.get("b").getValue();
+        assertEquals(list.size(), 1);
+        assertEquals(list.get(0).getNumberValue().intValue(), 42);
+        assertEquals(object.get("a").getType(), ExpressionDataType.OBJECT);
+    }
+
+    @Test
+    public void testParseMatchesFromJson() throws JsonException {
+        JsonParser parser = new JacksonParser(false);
+        String json = "[1, 12345678901, 2.5, \"text\", true, false, null, {\"key\": [[]]}]";
+
+        MetaExpression streamed = parser.parse(json);
+        MetaExpression tree = MetaExpression.parseObject(parser.fromJson(json, Object.class));
+
+        assertEquals(parser.toJson(streamed), parser.toJson(tree));
+        assertEquals(streamed.<List<MetaExpression>>getValue().get(1).getNumberValue().longValue(), 12345678901L);
+    }
+
+    @Test
+    public void testParseStreamDoesNotClose() throws Exception {
+        JsonParser parser = new JacksonParser(false);
+        boolean[] closed = {false};
+        InputStream stream = new ByteArrayInputStream("{\"k\u00e9y\": \"v\u00e4lue\"}".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        MetaExpression result = parser.parse(stream);
+
+        assertEquals(result.<Map<String, MetaExpression>>getValue().get("k\u00e9y").getStringValue(), "v\u00e4lue");
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testParseDeepNesting() throws JsonException {
+        int depth = 100_000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            json.append('[');
+        }
+        for (int i = 0; i < depth; i++) {
+            json.append(']');
+        }
+
+        MetaExpression result = new JacksonParser(false).parse(json.toString());
+
+        for (int i = 1; i < depth; i++) {
+            result = result.<List<MetaExpression>>getValue().get(0);
+        }
+        assertTrue(result.<List<MetaExpression>>getValue().isEmpty());
+    }
+
+    @Test(expectedExceptions = JsonException.class)
+    public void testParseEmptyInput() throws JsonException {
+        new JacksonParser(false).parse("  ");
+    }
+
+    @Test(expectedExceptions = JsonException.class)
+    public void testParseTruncatedInput() throws JsonException {
+        new JacksonParser(false).parse("{\"a\": [1, 2");
+    }
+
+    @Test
+    public void testToJsonMatchesExtractedValue() throws JsonException {
+        MetaExpression value = new JacksonParser(false).parse("{\"list\": [1, 12345678901, 2.5, \"t\\\"ext\", true, null, []], \"object\": {\"a\": {}}}");
+
+        for (boolean pretty : new boolean[]{false, true}) {
+            JsonParser parser = new JacksonParser(pretty);
+            assertEquals(parser.toJson(value), parser.toJson((Object) MetaExpression.extractValue(value)));
+        }
+    }
+
+    @Test
+    public void testToJsonWritesSharedValuesTwice() throws JsonException {
+        MetaExpression shared = fromValue(Collections.singletonList(fromValue("\u00e9")));
+        MetaExpression list = fromValue(Arrays.asList(shared, shared));
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new AssertionError("The stream should not be closed");
+            }
+        };
+
+        new JacksonParser(false).toJson(list, output);
+
+        assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8), "[[\"\u00e9\"],[\"\u00e9\"]]");
+    }
+
+    @Test(expectedExceptions = JsonException.class)
+    public void testToJsonStreamCircularReference() throws JsonException {
+        MetaExpression object = fromValue(new LinkedHashMap<>());
+        MetaExpression list = fromValue(new ArrayList<>());
+        list.<List<MetaExpression>>getValue().add(object);
+        object.<Map<String, MetaExpression>>getValue().put("list", list);
+
+        new JacksonParser(true).toJson(list, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testToJsonDeepNesting() throws JsonException {
+        int depth = 100_000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            json.append('[');
+        }
+        for (int i = 0; i < depth; i++) {
+            json.append(']');
+        }
+        JsonParser parser = new JacksonParser(false);
+
+        assertEquals(parser.toJson(parser.parse(json.toString())), json.toString());
+    }
 }
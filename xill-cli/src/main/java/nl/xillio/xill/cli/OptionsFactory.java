@@ -31,6 +31,7 @@ public class OptionsFactory {
     public static final String OPTION_VERY_QUIET = "qq";
     public static final String OPTION_ROBOTS = "r";
     public static final String OPTION_IGNORE_ERRORS = "i";
+    public static final String OPTION_BULK_WORKER = "b";
 
     public static final String CANNOT_BE_USED_IN_COMBINATION = "\nThis option cannot be used in combination with -";
 
@@ -100,6 +101,16 @@ public class OptionsFactory {
                                 .longOpt("ignore-errors")
                                 .desc("Set the robot to continue even if errors occur.")
                                 .build()
+                )
+                .addOption(
+                        Option.builder(OPTION_BULK_WORKER)
+                                .longOpt("bulk-worker")
+                                .desc("Run as a worker process for runBulk calls in other processes, accepting " +
+                                        "connections on the given local port. Use 0 to pick a free port. Sessions must present the token " +
+                                        "in XILL_BULK_WORKER_TOKEN, or a printed random token if it is not set.")
+                                .argName("port")
+                                .hasArg()
+                                .build()
                 );
     }
 }
@@ -18,6 +18,7 @@ package nl.xillio.xill.cli;
 import me.biesaart.utils.IOUtils;
 import nl.xillio.xill.XillEnvironmentImpl;
 import nl.xillio.xill.api.XillEnvironment;
+import nl.xillio.xill.components.expressions.runbulk.RemoteBulkWorker;
 import org.apache.commons.cli.*;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -41,8 +42,9 @@ import static nl.xillio.xill.cli.OptionsFactory.*;
  */
 public class XillCLI {
     private static final Logger LOGGER = LoggerFactory.getLogger(XillCLI.class);
+    private static final String BULK_WORKER_TOKEN_VARIABLE = "XILL_BULK_WORKER_TOKEN";
     private static final String PROGRAM_DESCRIPTION = "Execute Xill robots from the command line.";
-    private static final String PROGRAM_USAGE = "xill [-h | -v] [-q | -qq] [-i | --ignore-errors]  [-w <workingDirectory>] [-r | --robots <robotPaths>] <robotName>";
+    private static final String PROGRAM_USAGE = "xill [-h | -v] [-q | -qq] [-i | --ignore-errors]  [-w <workingDirectory>] [-r | --robots <robotPaths>] [-b | --bulk-worker <port>] <robotName>";
 
     private CommandLineParser commandLineParser;
     private CommandLine commandLine;
@@ -89,12 +91,6 @@ public class XillCLI {
                 return ProgramReturnCode.OK;
             }
 
-            // Should we print the help message?
-            if (cli.hasOption(OPTION_HELP) || cli.getArgs().length == 0) {
-                printHelp();
-                return ProgramReturnCode.OK;
-            }
-
             if (cli.hasOption(OPTION_QUIET)) {
                 enableQuietLogging(Level.ERROR);
             }
@@ -103,6 +99,17 @@ public class XillCLI {
                 enableQuietLogging(Level.OFF);
             }
 
+            // Should we serve runBulk calls of other processes?
+            if (cli.hasOption(OPTION_BULK_WORKER)) {
+                return runBulkWorker(cli.getOptionValue(OPTION_BULK_WORKER));
+            }
+
+            // Should we print the help message?
+            if (cli.hasOption(OPTION_HELP) || cli.getArgs().length == 0) {
+                printHelp();
+                return ProgramReturnCode.OK;
+            }
+
             for (String robot : cli.getArgs()) {
                 ProgramReturnCode returnCode = tryExecute(robot, cli.hasOption(OPTION_IGNORE_ERRORS));
                 if ( returnCode != ProgramReturnCode.OK) {
@@ -131,6 +138,27 @@ public class XillCLI {
         return ProgramReturnCode.OK;
     }
 
+    private ProgramReturnCode runBulkWorker(String port) throws ParseException {
+        int portNumber;
+        try {
+            portNumber = Integer.parseInt(port);
+        } catch (NumberFormatException e) {
+            throw new ParseException("The bulk worker port must be a number: " + port);
+        }
+        String token = System.getenv(BULK_WORKER_TOKEN_VARIABLE);
+        if (token == null || token.isEmpty()) {
+            token = RemoteBulkWorker.newToken();
+            getStdOut().println("runBulk worker token: " + token);
+        }
+        try {
+            new RemoteBulkWorker(getXillEnvironment(), getProjectRoot(), getIncludePaths(), token).serve(portNumber, getStdOut());
+            return ProgramReturnCode.OK;
+        } catch (IOException e) {
+            LOGGER.error("Could not start the bulk worker: " + e.getMessage(), e);
+            return ProgramReturnCode.EXECUTION_ERROR;
+        }
+    }
+
     private void enableQuietLogging(Level level) {
         LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
         Configuration config = ctx.getConfiguration();
@@ -15,12 +15,15 @@
  */
 package nl.xillio.xill.cli;
 
+import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.Issue;
 import nl.xillio.xill.api.XillEnvironment;
 import nl.xillio.xill.api.XillProcessor;
+import nl.xillio.xill.api.components.Instruction;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.errors.XillParsingException;
 import nl.xillio.xill.api.io.SimpleIOStream;
+import nl.xillio.xill.debugging.ProductionDebugger;
 import org.eclipse.emf.common.util.WrappedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +40,8 @@ import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
 /**
  * This class is responsible for the execution of Xill robots.
  * It uses a {@link XillEnvironment} to build a {@link XillProcessor} to run a robot.
+ * Robots are run using a {@link ProductionDebugger}, which does not support breakpoints but has far less overhead per
+ * instruction.
  *
  * @author Thomas Biesaart
  */
@@ -79,18 +84,37 @@ public class XillRobotExecutor {
      * @throws RobotExecutionException when the robot does not complete successfully.
      */
     public void execute(String robotName, boolean ignoreErrors) throws RobotExecutionException {
-        try (XillProcessor processor = compile(robotName)) {
+        Debugger debugger = new ProductionDebugger();
+        try (XillProcessor processor = compile(robotName, debugger)) {
             if(ignoreErrors) {
                 processor.getDebugger().setErrorHandler(new NonStoppingErrorHandlingPolicy());
             }
             processor.getRobot().process(processor.getDebugger());
         } catch (WrappedException e) { //NOSONAR exception is correctly rethrown
-            throw new RobotExecutionException(e.getCause().getMessage(), e.getCause());
+            throw new RobotExecutionException(describeError(debugger, e.getCause().getMessage()), e.getCause());
         } catch (Exception e) {
-            throw new RobotExecutionException(e.getMessage(), e);
+            throw new RobotExecutionException(describeError(debugger, e.getMessage()), e);
         }
     }
 
+    /**
+     * Prefix an error message with the robot and line of the instruction that failed.
+     * The location is only looked up here, the debugger just keeps a reference to the running instruction.
+     *
+     * @param debugger the debugger the robot ran with
+     * @param message  the error message
+     * @return the message with its location, or the message itself if no instruction was running
+     */
+    private String describeError(Debugger debugger, String message) {
+        List<Instruction> stackTrace = debugger.getStackTrace();
+        if (stackTrace.isEmpty()) {
+            return message;
+        }
+        Instruction instruction = stackTrace.get(stackTrace.size() - 1);
+        String location = "Error in " + instruction.getRobotID().getURL() + " at line " + instruction.getLineNumber();
+        return message == null ? location : location + ": " + message;
+    }
+
     /**
      * Execute a robot by its fully qualified name.
      *
@@ -101,8 +125,8 @@ public class XillRobotExecutor {
         execute(robotName, false);
     }
 
-    private XillProcessor compile(String robotName) throws RobotExecutionException {
-        XillProcessor processor = buildProcessor(robotName);
+    private XillProcessor compile(String robotName, Debugger debugger) throws RobotExecutionException {
+        XillProcessor processor = buildProcessor(robotName, debugger);
         List<Issue> issues = compile(processor);
         issues.forEach(this::log);
         processor.getRobot().setArgument(buildArgument());
@@ -133,11 +157,12 @@ public class XillRobotExecutor {
         }
     }
 
-    private XillProcessor buildProcessor(String robotName) throws RobotExecutionException {
+    private XillProcessor buildProcessor(String robotName, Debugger debugger) throws RobotExecutionException {
         try {
             return xillEnvironment.buildProcessor(
                     projectRoot,
                     robotName,
+                    debugger,
                     includePaths
             );
         } catch (IOException e) {
@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import me.biesaart.utils.Log;
+import nl.xillio.events.EventHost;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.api.errors.XillParsingException;
+import nl.xillio.xill.api.events.RobotStoppedAction;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class caches compiled robots so repeated callbot and runBulk invocations do not have to parse, validate and
+ * compile the same robot over and over again.
+ * <p>
+ * Entries are keyed by the url of the called robot and the root robot it was compiled for. Every entry remembers the
+ * content hash of all sources that went into the compilation (the robot itself and its includes). When one of those
+ * sources changes the entry is dropped and the robot is compiled again. Files on disk are checked on every lookup,
+ * other sources, such as robots in a jar, are only read again when the last check is older than a configurable interval.
+ * <p>
+ * Compiled robots keep their runtime state in the {@link nl.xillio.xill.api.components.ExecutionFrame} of the debugger
+ * they run with, so one compiled robot is shared by all callers as long as every run uses its own debugger. Callers
+ * start a {@link nl.xillio.xill.components.RobotRun} in that debugger, which gives the constructs of the robot a serial
+ * id and robot stopped event of their own.
+ * <p>
+ * A cache belongs to one compilation of a root robot. The constructs of the robots in it refer to that compilation,
+ * so they can keep state for a whole run of the root robot, and the cache is emptied when the root robot is compiled
+ * again.
+ */
+public class CompiledRobotCache {
+    private static final Logger LOGGER = Log.get();
+    private static final long DEFAULT_CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, Object> compileLocks = new ConcurrentHashMap<>();
+    private final long checkIntervalNanos;
+    private volatile UUID rootCompilerSerialId;
+    private volatile EventHost<RobotStoppedAction> rootRobotStoppedEvent;
+
+    public CompiledRobotCache() {
+        this(DEFAULT_CHECK_INTERVAL);
+    }
+
+    /**
+     * @param checkIntervalMillis the minimal time between two content checks of a source that is not a file on disk
+     */
+    CompiledRobotCache(long checkIntervalMillis) {
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkIntervalMillis);
+    }
+
+    /**
+     * Get a compiled robot from the cache or compile it if no up-to-date robot is available.
+     *
+     * @param robotID   the robot to get
+     * @param rootRobot the root robot the robot is compiled for
+     * @param compiler  the compiler that is used when no cached robot is available
+     * @return the compiled robot
+     * @throws XillParsingException if the robot had to be compiled and compilation failed
+     */
+    public Robot get(RobotID robotID, RobotID rootRobot, Compiler compiler) throws XillParsingException {
+        Key key = new Key(robotID, rootRobot);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isUpToDate()) {
+            return entry.robot;
+        }
+
+        // Concurrent callers of the same robot wait for a single compilation
+        Object lock = compileLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.isUpToDate()) {
+                        return entry.robot;
+                    }
+                    LOGGER.debug("Sources of " + robotID.getURL() + " have changed, recompiling");
+                }
+
+                XillProcessor processor = compiler.compile();
+                entry = new Entry(processor.getRobot(), fingerprint(processor.getCompiledSources()));
+                entries.put(key, entry);
+                return entry.robot;
+            }
+        } finally {
+            // Callers that still wait on this lock find the new entry, later callers create a new lock if needed
+            compileLocks.remove(key, lock);
+        }
+    }
+
+    /**
+     * Remove all cached robots.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Remove all cached robots and cache the robots for a new compilation of the root robot.
+     *
+     * @param compilerSerialId  the serial id of the compiler of the root robot
+     * @param robotStoppedEvent the event host that is invoked when the root robot stops
+     */
+    public void startRootCompilation(UUID compilerSerialId, EventHost<RobotStoppedAction> robotStoppedEvent) {
+        clear();
+        rootCompilerSerialId = compilerSerialId;
+        rootRobotStoppedEvent = robotStoppedEvent;
+    }
+
+    /**
+     * @return the serial id of the compiler of the root robot, or null if no root robot was compiled
+     */
+    public UUID getRootCompilerSerialId() {
+        return rootCompilerSerialId;
+    }
+
+    /**
+     * @return the event host that is invoked when the root robot stops, or null if no root robot was compiled
+     */
+    public EventHost<RobotStoppedAction> getRootRobotStoppedEvent() {
+        return rootRobotStoppedEvent;
+    }
+
+    private List<Source> fingerprint(List<URL> urls) {
+        List<Source> result = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            result.add(new Source(url, checkIntervalNanos));
+        }
+        return result;
+    }
+
+    /**
+     * A compiler that is invoked when the cache does not contain the requested robot.
+     */
+    @FunctionalInterface
+    public interface Compiler {
+        /**
+         * Compile the robot.
+         *
+         * @return the processor that holds the compiled robot
+         * @throws XillParsingException if compilation fails
+         */
+        XillProcessor compile() throws XillParsingException;
+    }
+
+    /**
+     * The identity of a cache entry.
+     */
+    private static class Key {
+        private final String url;
+        private final String rootUrl;
+
+        Key(RobotID robotID, RobotID rootRobot) {
+            // Compare external forms, URL.equals resolves host names
+            this.url = robotID.getURL().toExternalForm();
+            this.rootUrl = rootRobot == null ? null : rootRobot.getURL().toExternalForm();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return url.equals(key.url) && Objects.equals(rootUrl, key.rootUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, rootUrl);
+        }
+    }
+
+    /**
+     * A compiled robot and the sources it was compiled from.
+     */
+    private static class Entry {
+        private final Robot robot;
+        private final List<Source> sources;
+
+        Entry(Robot robot, List<Source> sources) {
+            this.robot = robot;
+            this.sources = sources;
+        }
+
+        boolean isUpToDate() {
+            return sources.stream().allMatch(Source::isUpToDate);
+        }
+    }
+
+    /**
+     * A fingerprint of a single source file.
+     * For files on disk the modification time and size are checked first so the content only has to be hashed when
+     * those have changed. Other sources are hashed at most once per check interval.
+     */
+    private static class Source {
+        private final URL url;
+        private final Path file;
+        private final String hash;
+        private final long checkIntervalNanos;
+        private volatile long lastModified;
+        private volatile long size;
+        private volatile long checkedAt;
+
+        Source(URL url, long checkIntervalNanos) {
+            this.url = url;
+            this.file = toPath(url);
+            this.checkIntervalNanos = checkIntervalNanos;
+            this.lastModified = lastModified(file);
+            this.size = size(file);
+            this.hash = hash(url);
+            this.checkedAt = System.nanoTime();
+        }
+
+        boolean isUpToDate() {
+            if (file != null) {
+                long currentModified = lastModified(file);
+                long currentSize = size(file);
+                if (currentModified == lastModified && currentSize == size) {
+                    return true;
+                }
+                if (!Objects.equals(hash, hash(url))) {
+                    return false;
+                }
+                // Touched but not changed
+                lastModified = currentModified;
+                size = currentSize;
+                return true;
+            }
+
+            long now = System.nanoTime();
+            if (now - checkedAt < checkIntervalNanos) {
+                return true;
+            }
+            if (!Objects.equals(hash, hash(url))) {
+                return false;
+            }
+            checkedAt = now;
+            return true;
+        }
+
+        private static Path toPath(URL url) {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                LOGGER.debug("Could not convert " + url + " to a path", e);
+                return null;
+            }
+        }
+
+        private static long lastModified(Path file) {
+            try {
+                return file == null ? -1 : Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        private static long size(Path file) {
+            try {
+                return file == null ? -1 : Files.size(file);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        private static String hash(URL url) {
+            try (InputStream stream = url.openStream()) {
+                return DigestUtils.sha256Hex(stream);
+            } catch (IOException e) {
+                LOGGER.debug("Could not read " + url, e);
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Source source = (Source) o;
+            return url.toExternalForm().equals(source.url.toExternalForm()) && Objects.equals(hash, source.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url.toExternalForm(), hash);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Processable;
+import nl.xillio.xill.components.expressions.ConstantExpression;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * This class evaluates expressions with constant operands while a robot is being compiled.
+ * The {@link XillProgramFactory} marks every literal as constant and offers each operator it builds to this class.
+ * It also keeps track of expressions of which the result type is known at compile time.
+ */
+class ConstantFolder {
+    private final Set<Processable> constants = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Processable, ExpressionDataType> types = new IdentityHashMap<>();
+    private final ConstantFoldingReport report = new ConstantFoldingReport();
+    private final Debugger debugger = new NullDebugger();
+
+    /**
+     * Mark a literal as constant.
+     *
+     * @param literal the literal
+     * @param <T>     the type of the literal
+     * @return the literal
+     */
+    <T extends Processable> T literal(final T literal) {
+        constants.add(literal);
+        return literal;
+    }
+
+    /**
+     * @param processable the processable
+     * @return true if the value of the processable is known at compile time
+     */
+    boolean isConstant(final Processable processable) {
+        return constants.contains(processable);
+    }
+
+    /**
+     * Record the type an expression will always produce.
+     *
+     * @param expression the expression
+     * @param type       the type of the result
+     * @param <T>        the type of the expression
+     * @return the expression
+     */
+    <T extends Processable> T typed(final T expression, final ExpressionDataType type) {
+        types.put(expression, type);
+        return expression;
+    }
+
+    /**
+     * Get the type an expression will produce, if it is known at compile time.
+     *
+     * @param expression the expression
+     * @return the type or {@link Optional#empty()} if it is unknown
+     */
+    Optional<ExpressionDataType> getType(final Processable expression) {
+        ExpressionDataType type = types.get(expression);
+        if (type != null || !isConstant(expression)) {
+            return Optional.ofNullable(type);
+        }
+
+        MetaExpression value = expression.process(debugger).get();
+        value.registerReference();
+        type = value.getType();
+        value.releaseReference();
+
+        types.put(expression, type);
+        return Optional.of(type);
+    }
+
+    /**
+     * Replace an expression with its value if all its operands are constant.
+     * Only ATOMIC results are replaced, a LIST or OBJECT expression is kept but marked as constant.
+     * If the evaluation fails the expression is kept so the error is reported when the robot runs.
+     *
+     * @param expression the expression
+     * @param position   the position of the expression in the source
+     * @param operands   the operands of the expression
+     * @return a {@link ConstantExpression} or the original expression
+     */
+    Processable fold(final Processable expression, final CodePosition position, final Processable... operands) {
+        for (Processable operand : operands) {
+            if (!isConstant(operand)) {
+                return expression;
+            }
+        }
+
+        MetaExpression value;
+        try {
+            value = expression.process(debugger).get();
+        } catch (RuntimeException e) {
+            return expression;
+        }
+
+        if (value.getType() != ExpressionDataType.ATOMIC) {
+            // Collections can be changed in place, so every evaluation needs a new one and copying a hoisted value
+            // costs as much as building it. The expression stays constant so the expressions around it can be folded.
+            ExpressionDataType type = value.getType();
+            value.registerReference();
+            value.releaseReference();
+            return typed(literal(expression), type);
+        }
+
+        ConstantExpression result = literal(new ConstantExpression(value));
+        report.add(position, "Folded " + expression.getClass().getSimpleName() + " to " + result);
+        return result;
+    }
+
+    /**
+     * Evaluate a condition if it is constant.
+     *
+     * @param condition the condition
+     * @return the boolean value of the condition or {@link Optional#empty()} if it is not constant
+     */
+    Optional<Boolean> evaluateCondition(final Processable condition) {
+        if (!isConstant(condition)) {
+            return Optional.empty();
+        }
+
+        MetaExpression value = condition.process(debugger).get();
+        value.registerReference();
+        boolean result = value.getBooleanValue();
+        value.releaseReference();
+
+        return Optional.of(result);
+    }
+
+    /**
+     * Record a simplification that was not made by {@link #fold(Processable, CodePosition, Processable...)}.
+     *
+     * @param position    the position of the simplified code
+     * @param description a description of the simplification
+     */
+    void report(final CodePosition position, final String description) {
+        report.add(position, description);
+    }
+
+    /**
+     * @return the report of all simplifications
+     */
+    ConstantFoldingReport getReport() {
+        return report;
+    }
+}
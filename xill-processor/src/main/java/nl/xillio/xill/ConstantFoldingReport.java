@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class collects the simplifications that were made while compiling a robot.
+ */
+public class ConstantFoldingReport {
+    private final List<Entry> entries = new ArrayList<>();
+
+    void add(final CodePosition position, final String description) {
+        entries.add(new Entry(position, description));
+    }
+
+    /**
+     * @return all simplifications in the order in which they were made
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the number of simplifications
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Entry entry : entries) {
+            builder.append(entry).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A single simplification.
+     */
+    public static class Entry {
+        private final CodePosition position;
+        private final String description;
+
+        Entry(final CodePosition position, final String description) {
+            this.position = position;
+            this.description = description;
+        }
+
+        /**
+         * @return the position of the simplified code, or null if it is unknown
+         */
+        public CodePosition getPosition() {
+            return position;
+        }
+
+        /**
+         * @return a description of the simplification
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return (position == null ? "<unknown>" : position.toString()) + ": " + description;
+        }
+    }
+}
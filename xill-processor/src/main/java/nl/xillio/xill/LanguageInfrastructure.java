@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import com.google.inject.Injector;
+import nl.xillio.xill.loaders.AbstractRobotLoader;
+import nl.xillio.xill.loaders.ThreadBoundRobotLoader;
+import org.eclipse.xtext.validation.IResourceValidator;
+import xill.lang.XillResourceSet;
+import xill.lang.XillStandaloneSetup;
+
+/**
+ * This class holds the Xtext infrastructure that is needed to load and validate robots.
+ * The injector is created once and shared by all processors that use this instance. Every processor gets its own
+ * resource set and validator, and binds its robot loader to the calling thread while it talks to Xtext.
+ */
+public class LanguageInfrastructure {
+    // Creating an injector registers the language in the global EMF registries, which are not thread-safe
+    private static final Object SETUP_LOCK = new Object();
+
+    private final ThreadBoundRobotLoader robotLoader = new ThreadBoundRobotLoader();
+    private final Injector injector;
+
+    /**
+     * Create the Xtext injector. This is expensive, so instances should be reused.
+     */
+    public LanguageInfrastructure() {
+        synchronized (SETUP_LOCK) {
+            injector = new XillStandaloneSetup(robotLoader).createInjectorAndDoEMFRegistration();
+        }
+    }
+
+    /**
+     * @return a new, empty resource set
+     */
+    public XillResourceSet createResourceSet() {
+        return injector.getInstance(XillResourceSet.class);
+    }
+
+    /**
+     * @return a validator for the resources in a resource set
+     */
+    public IResourceValidator createValidator() {
+        return injector.getInstance(IResourceValidator.class);
+    }
+
+    /**
+     * Make Xtext load robots on the current thread through a specific loader, until the binding is closed.
+     *
+     * @param loader the loader of the processor that is calling Xtext
+     * @return the binding
+     */
+    public ThreadBoundRobotLoader.Binding bind(AbstractRobotLoader loader) {
+        return robotLoader.bind(loader);
+    }
+}
@@ -27,6 +27,7 @@ import nl.xillio.xill.api.XillEnvironment;
 import nl.xillio.xill.api.XillProcessor;
 import nl.xillio.xill.api.XillThreadFactory;
 import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.components.expressions.runbulk.BulkScheduler;
 import nl.xillio.xill.debugging.XillDebugger;
 import nl.xillio.xill.loaders.AbstractRobotLoader;
 import nl.xillio.xill.loaders.DirectoryRobotLoader;
@@ -58,6 +59,7 @@ public class XillEnvironmentImpl implements XillEnvironment {
     private boolean needLoad = true;
     private XillThreadFactory xillThreadFactory;
     private ProgressTracker progressTracker;
+    private LanguageInfrastructure language;
 
     @Override
     public XillEnvironment setLoadHomeFolder(boolean value) {
@@ -101,6 +103,7 @@ public class XillEnvironmentImpl implements XillEnvironment {
         // Create the default thread factory when one has not been set
         if (xillThreadFactory == null)
             xillThreadFactory = new XillThreadFactoryImpl();
+        BulkScheduler.setThreadFactory(xillThreadFactory);
 
         List<Module> modules = new ArrayList<>(loadedPlugins.values());
         modules.add(new DefaultInjectorModule(this, xillThreadFactory));
@@ -178,10 +181,24 @@ public class XillEnvironmentImpl implements XillEnvironment {
                 robotID,
                 robotLoader,
                 getPlugins(),
-                debugger
+                debugger,
+                getLanguageInfrastructure()
         );
     }
 
+    /**
+     * Get the Xtext infrastructure that is shared by all processors of this environment.
+     * It is created when the first processor is built.
+     *
+     * @return the language infrastructure
+     */
+    public synchronized LanguageInfrastructure getLanguageInfrastructure() {
+        if (language == null) {
+            language = new LanguageInfrastructure();
+        }
+        return language;
+    }
+
     public AbstractRobotLoader buildRobotLoader(Path workingDirectory, Path... robotPath) throws IOException {
         AbstractRobotLoader robotLoader = new DirectoryRobotLoader(null, workingDirectory);
         for (Path path : robotPath) {
@@ -15,7 +15,6 @@
  */
 package nl.xillio.xill;
 
-import com.google.inject.Injector;
 import me.biesaart.utils.Log;
 import nl.xillio.plugins.XillPlugin;
 import nl.xillio.xill.api.*;
@@ -26,8 +25,8 @@ import nl.xillio.xill.api.construct.ConstructContext;
 import nl.xillio.xill.api.construct.ConstructProcessor;
 import nl.xillio.xill.api.errors.XillParsingException;
 import nl.xillio.xill.loaders.AbstractRobotLoader;
+import nl.xillio.xill.loaders.ThreadBoundRobotLoader;
 import org.apache.commons.lang3.StringUtils;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.common.util.WrappedException;
@@ -42,7 +41,6 @@ import org.eclipse.xtext.validation.Issue.IssueImpl;
 import org.slf4j.Logger;
 import xill.RobotLoader;
 import xill.lang.XillResourceSet;
-import xill.lang.XillStandaloneSetup;
 import xill.lang.validation.XillValidator;
 import xill.lang.xill.ConstructCall;
 import xill.lang.xill.InstructionSet;
@@ -62,15 +60,12 @@ import java.util.stream.Collectors;
 public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
     private static final Logger LOGGER = Log.get();
 
-    // Calls to XText are not thread-safe, use this object to synchronize them
-    private static final Object XTEXT_LOCK = new Object();
-
     /**
-     * The supported file extension
+     * Every processor has its own resource set and validator, so compilations do not share any Xtext state
      */
     private final XillResourceSet resourceSet;
-
     private final IResourceValidator validator;
+    private final LanguageInfrastructure language;
     private final RobotID robotID;
     private final Path workingDirectory;
     private final AbstractRobotLoader robotLoader;
@@ -78,30 +73,46 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
     private final Debugger debugger;
     private final Map<Construct, String> argumentSignatures = new HashMap<>();
     private Robot robot;
+    private ConstantFoldingReport constantFoldingReport;
     private OutputHandler outputHandler = new DefaultOutputHandler();
+    private CompiledRobotCache compiledRobotCache = new CompiledRobotCache();
 
     /**
      * Create a new processor that can run a file.
+     * This creates its own {@link LanguageInfrastructure}, which is expensive. Prefer sharing one between processors.
      *
      * @param workingDirectory the project folder
      * @param robotID          the robot that should be executed
      * @param robotLoader      the robot loader
      * @param plugins          the plugins
      * @param debugger         the debugger
-     * @throws IOException if thrown if a file(-related) operation fails.
      */
     public XillProcessor(final Path workingDirectory, RobotID robotID, final AbstractRobotLoader robotLoader, final List<XillPlugin> plugins,
                          final Debugger debugger) {
+        this(workingDirectory, robotID, robotLoader, plugins, debugger, new LanguageInfrastructure());
+    }
+
+    /**
+     * Create a new processor that can run a file.
+     *
+     * @param workingDirectory the project folder
+     * @param robotID          the robot that should be executed
+     * @param robotLoader      the robot loader
+     * @param plugins          the plugins
+     * @param debugger         the debugger
+     * @param language         the Xtext infrastructure to load robots with
+     */
+    public XillProcessor(final Path workingDirectory, RobotID robotID, final AbstractRobotLoader robotLoader, final List<XillPlugin> plugins,
+                         final Debugger debugger, final LanguageInfrastructure language) {
         this.workingDirectory = workingDirectory;
         this.robotLoader = robotLoader;
         this.robotID = robotID;
         this.plugins = plugins;
         this.debugger = debugger;
-        Injector injector = new XillStandaloneSetup(robotLoader).createInjectorAndDoEMFRegistration();
+        this.language = language;
 
-        // obtain a resource set
-        validator = injector.getInstance(IResourceValidator.class);
-        resourceSet = injector.getInstance(XillResourceSet.class);
+        validator = language.createValidator();
+        resourceSet = language.createResourceSet();
     }
 
     @Override
@@ -112,7 +123,9 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
     @Override
     public List<Issue> compileAsSubRobot(final RobotID rootRobot) throws XillParsingException {
         debugger.reset();
-        return compile(robotID, rootRobot);
+        try (ThreadBoundRobotLoader.Binding binding = language.bind(robotLoader)) {
+            return compile(robotID, rootRobot);
+        }
     }
 
     @Override
@@ -122,14 +135,36 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
         this.debugger.setOutputHandler(outputHandler);
     }
 
+    /**
+     * Set the cache that is used by callbot and runBulk to look up compiled robots.
+     * Sub-robots share the cache of the robot that called them.
+     *
+     * @param compiledRobotCache the cache
+     */
+    public void setCompiledRobotCache(final CompiledRobotCache compiledRobotCache) {
+        Objects.requireNonNull(compiledRobotCache);
+        this.compiledRobotCache = compiledRobotCache;
+    }
+
+    /**
+     * @return the cache that is used by callbot and runBulk to look up compiled robots
+     */
+    public CompiledRobotCache getCompiledRobotCache() {
+        return compiledRobotCache;
+    }
+
     private List<Issue> compile(final RobotID robotID, RobotID rootRobot) throws XillParsingException {
         Resource resource = findResource(robotID);
 
-        if (rootRobot == null) {
+        boolean subRobot = rootRobot != null;
+        if (!subRobot) {
             rootRobot = robotID;
         }
 
-        LanguageFactory<xill.lang.xill.Robot> factory = new XillProgramFactory(workingDirectory, plugins, getDebugger(), rootRobot, outputHandler, robotLoader);
+        XillProgramFactory factory = new XillProgramFactory(workingDirectory, plugins, getDebugger(), rootRobot, outputHandler, robotLoader, compiledRobotCache, language);
+        if (!subRobot) {
+            compiledRobotCache.startRootCompilation(factory.getCompilerSerialId(), factory.getRobotStoppedEvent());
+        }
 
 
         List<Issue> issues = validateAllResources();
@@ -145,12 +180,7 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
 
         // Parse all resources
 
-        EList<Resource> resources;
-        synchronized (XTEXT_LOCK) {
-            resources = resourceSet.getResources();
-        }
-
-        for (Resource currentResource : resources) {
+        for (Resource currentResource : resourceSet.getResources()) {
             for (EObject rootToken : currentResource.getContents()) {
                 if (rootToken instanceof xill.lang.xill.Robot) {
 
@@ -171,10 +201,24 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
         factory.compile();
 
         robot = factory.getRobot(mainRobotToken);
+        constantFoldingReport = factory.getConstantFoldingReport();
         return issues;
 
     }
 
+    /**
+     * @return the urls of all robots that were loaded during the last compilation
+     */
+    List<URL> getCompiledSources() {
+        List<URL> result = new ArrayList<>();
+        try (ThreadBoundRobotLoader.Binding binding = language.bind(robotLoader)) {
+            for (Resource resource : resourceSet.getResources()) {
+                result.add(toURL(resource.getURI()));
+            }
+        }
+        return result;
+    }
+
     private URL toURL(URI uri) {
         try {
             return new URL(uri.toString());
@@ -199,24 +243,20 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
     }
 
     private RobotID toRobotID(Resource resource) {
-        String resourceUri;
-        synchronized (XTEXT_LOCK) {
-            resourceUri = resourceSet.getInternalResourcePath(resource.getURI());
-        }
-        return new RobotID(toURL(resource.getURI()), resourceUri);
+        return new RobotID(toURL(resource.getURI()), resourceSet.getInternalResourcePath(resource.getURI()));
     }
 
     private Resource findResource(RobotID robotID) {
-        synchronized (XTEXT_LOCK) {
-            return resourceSet.getResource(robotID.getResourcePath());
-        }
+        return resourceSet.getResource(robotID.getResourcePath());
     }
 
     @Override
     public List<Issue> validate() {
-        Resource resource = findResource(robotID);
-        debugger.reset();
-        return validateAllResources();
+        try (ThreadBoundRobotLoader.Binding binding = language.bind(robotLoader)) {
+            findResource(robotID);
+            debugger.reset();
+            return validateAllResources();
+        }
     }
 
 
@@ -254,10 +294,7 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
 
     private List<Issue> doValidate(final Resource resource, final RobotID robotID) {
         // Validate
-        List<org.eclipse.xtext.validation.Issue> rawIssues;
-        synchronized (XTEXT_LOCK) {
-            rawIssues = validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
-        }
+        List<org.eclipse.xtext.validation.Issue> rawIssues = validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
 
         List<Issue> issues = rawIssues.stream().map(issue -> {
             IssueImpl impl = (IssueImpl) issue;
@@ -351,6 +388,14 @@ public class XillProcessor implements nl.xillio.xill.api.XillProcessor {
         return robot;
     }
 
+    /**
+     * @return the simplifications that were made during the last compilation or null if compilation hasn't taken
+     * place yet
+     */
+    public ConstantFoldingReport getConstantFoldingReport() {
+        return constantFoldingReport;
+    }
+
     /**
      * @return the debugger
      */
@@ -36,6 +36,7 @@ import nl.xillio.xill.components.expressions.FunctionParameterExpression;
 import nl.xillio.xill.components.expressions.*;
 import nl.xillio.xill.components.expressions.pipeline.*;
 import nl.xillio.xill.components.expressions.pipeline.FilterExpression;
+import nl.xillio.xill.components.expressions.pipeline.FusedPipelineExpression;
 import nl.xillio.xill.components.expressions.pipeline.MapExpression;
 import nl.xillio.xill.components.expressions.pipeline.PeekExpression;
 import nl.xillio.xill.components.expressions.runbulk.RunBulkExpression;
@@ -97,6 +98,10 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
     private final RobotID rootRobot;
     private final Map<EObject, Map.Entry<RobotID, Robot>> compiledRobots = new HashMap<>();
     private final AbstractRobotLoader robotLoader;
+    private final CompiledRobotCache compiledRobotCache;
+    private final LanguageInfrastructure language;
+    private int frameSlots = 0;
+    private final ConstantFolder constantFolder = new ConstantFolder();
 
     /**
      * Events for signalling that a robot has started and that a robot has stopped
@@ -117,7 +122,24 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      */
     public XillProgramFactory(final Path workingDirectory, final List<XillPlugin> plugins, final Debugger debugger,
                               final RobotID robotID, final OutputHandler outputHandler, AbstractRobotLoader robotLoader) {
-        this(workingDirectory, plugins, debugger, robotID, outputHandler, false, robotLoader);
+        this(workingDirectory, plugins, debugger, robotID, outputHandler, robotLoader, new CompiledRobotCache(), new LanguageInfrastructure());
+    }
+
+    /**
+     * Create a new {@link XillProgramFactory}
+     *
+     * @param workingDirectory   the working directory
+     * @param plugins            list of xill plug-ins.
+     * @param debugger           debugger object necessary for processing the robot.
+     * @param robotID            the robot.
+     * @param robotLoader        the robot loader
+     * @param compiledRobotCache the cache used by callbot and runBulk expressions
+     * @param language           the Xtext infrastructure used to compile called robots
+     */
+    public XillProgramFactory(final Path workingDirectory, final List<XillPlugin> plugins, final Debugger debugger,
+                              final RobotID robotID, final OutputHandler outputHandler, AbstractRobotLoader robotLoader,
+                              final CompiledRobotCache compiledRobotCache, final LanguageInfrastructure language) {
+        this(workingDirectory, plugins, debugger, robotID, outputHandler, false, robotLoader, compiledRobotCache, language);
     }
 
     /**
@@ -129,10 +151,13 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @param robotID          the robot.
      * @param verbose          verbose logging for the compiler
      * @param robotLoader
+     * @param compiledRobotCache the cache used by callbot and runBulk expressions
+     * @param language           the Xtext infrastructure used to compile called robots
      */
     public XillProgramFactory(final Path workingDirectory, final List<XillPlugin> plugins, final Debugger debugger, final RobotID robotID,
                               final OutputHandler outputHandler,
-                              final boolean verbose, AbstractRobotLoader robotLoader) {
+                              final boolean verbose, AbstractRobotLoader robotLoader, final CompiledRobotCache compiledRobotCache,
+                              final LanguageInfrastructure language) {
         this.workingDirectory = workingDirectory;
         this.debugger = debugger;
         rootRobot = robotID;
@@ -140,6 +165,22 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         expressionParseInvoker.setVERBOSE(verbose);
         this.plugins = plugins;
         this.outputHandler = outputHandler;
+        this.compiledRobotCache = compiledRobotCache;
+        this.language = language;
+    }
+
+    /**
+     * @return the serial id of this compiler
+     */
+    UUID getCompilerSerialId() {
+        return compilerSerialId;
+    }
+
+    /**
+     * @return the event host that is invoked when a robot compiled by this factory stops
+     */
+    EventHost<RobotStoppedAction> getRobotStoppedEvent() {
+        return robotStoppedEvent;
     }
 
     @Override
@@ -320,16 +361,29 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         // Parse if instructions
         Iterator<Expression> conditionItt = token.getConditions().iterator();
         Iterator<InstructionBlock> instructionItt = token.getInstructionBlocks().iterator();
+        boolean alwaysTrue = false;
         while (conditionItt.hasNext() && instructionItt.hasNext()) {
             Expression condition = conditionItt.next();
-            IfInstruction instruction = new IfInstruction(parse(condition),
+            Processable conditionExpression = parse(condition);
+            IfInstruction instruction = new IfInstruction(conditionExpression,
                     parseToken(instructionItt.next().getInstructionSet()));
             instruction.setPosition(pos(condition));
+
+            // Branches behind a constant condition are never reached
+            Optional<Boolean> constantCondition = constantFolder.evaluateCondition(conditionExpression);
+            if (alwaysTrue || constantCondition.isPresent() && !constantCondition.get()) {
+                constantFolder.report(pos(condition), "Removed unreachable if branch");
+                continue;
+            }
+            alwaysTrue = constantCondition.isPresent();
             conditionals.add(instruction);
         }
 
         // Parse else
-        if (token.getElseBlock() != null) {
+        if (token.getElseBlock() != null && alwaysTrue) {
+            parseToken(token.getElseBlock().getInstructionSet());
+            constantFolder.report(pos(token.getElseBlock()), "Removed unreachable else branch");
+        } else if (token.getElseBlock() != null) {
             elseInstruction = new ElseInstruction(parseToken(token.getElseBlock().getInstructionSet()));
             elseInstruction.setPosition(pos(token.getElseBlock()));
         }
@@ -363,7 +417,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         VariableDeclaration causeVar = null;
         if (cause != null) {
             causeVar = VariableDeclaration.nullDeclaration(pos(token.getErrorBlock()), cause.getName());
-            variables.put(cause, causeVar);
+            declareVariable(cause, causeVar);
         }
 
         return new ErrorInstruction(
@@ -383,11 +437,11 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      */
     ForeachInstruction parseToken(final xill.lang.xill.ForEachInstruction token) throws XillParsingException {
         VariableDeclaration valueDec = VariableDeclaration.nullDeclaration(pos(token), token.getValueVar().getName());
-        variables.put(token.getValueVar(), valueDec);
+        declareVariable(token.getValueVar(), valueDec);
 
         if (token.getKeyVar() != null) {
             VariableDeclaration keyDec = VariableDeclaration.nullDeclaration(pos(token), token.getKeyVar().getName());
-            variables.put(token.getKeyVar(), keyDec);
+            declareVariable(token.getKeyVar(), keyDec);
 
             return new ForeachInstruction(parseToken(token.getInstructionBlock().getInstructionSet()),
                     parse(token.getIterator()), valueDec, keyDec);
@@ -447,7 +501,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
             VariableDeclaration declaration = FunctionParameterDeclaration.nullDeclaration(pos(token), parameter.getName());
 
             parameters.add(declaration);
-            variables.put(parameter, declaration);
+            declareVariable(parameter, declaration);
         }
 
         InstructionSet instructions = parseToken(token.getInstructionBlock().getInstructionSet());
@@ -470,11 +524,23 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
 
         VariableDeclaration declaration = buildDeclaration(expression, token);
 
-        variables.put(token.getName(), declaration);
+        declareVariable(token.getName(), declaration);
 
         return declaration;
     }
 
+    /**
+     * Register a variable declaration and assign it a slot in the execution frame.
+     * All robots in this compilation share one frame at runtime, so slots are unique within this factory.
+     *
+     * @param target      the target token of the declaration
+     * @param declaration the declaration
+     */
+    private void declareVariable(final Target target, final VariableDeclaration declaration) {
+        declaration.setSlot(frameSlots++);
+        variables.put(target, declaration);
+    }
+
     private VariableDeclaration buildDeclaration(Processable expression, xill.lang.xill.VariableDeclaration token) throws XillParsingException {
         if ("var".equalsIgnoreCase(token.getType())) {
             return new VariableDeclaration(expression, token.getName().getName());
@@ -530,10 +596,10 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         if (token.getPrefix() != null) {
             switch (token.getPrefix()) {
                 case "-":
-                    value = new Subtract(new ExpressionBuilder(0), value);
+                    value = constantFolder.typed(constantFolder.fold(new Subtract(constantFolder.literal(new ExpressionBuilder(0)), value), pos(token), value), ExpressionDataType.ATOMIC);
                     break;
                 case "!":
-                    value = new Negate(value);
+                    value = constantFolder.typed(constantFolder.fold(new Negate(value), pos(token), value), ExpressionDataType.ATOMIC);
                     break;
                 case "++":
                     Target pTarget = getTarget(token.getExpression());
@@ -548,7 +614,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
                     value = new IntegerShortcut(mDeclaration, mPath, value, -1, false);
                     break;
                 case "@":
-                    value = new StringConstant(value);
+                    value = constantFolder.typed(new StringConstant(value), ExpressionDataType.ATOMIC);
                     break;
                 default:
                     throw new NotImplementedException("This prefix has not been implemented.");
@@ -585,10 +651,11 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @return
      * @throws XillParsingException
      */
-    Or parseToken(final xill.lang.xill.impl.OrImpl token) throws XillParsingException {
-        Or orExpression = new Or(parse(token.getLeft()), parse(token.getRight()));
+    Processable parseToken(final xill.lang.xill.impl.OrImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
 
-        return orExpression;
+        return constantFolder.typed(constantFolder.fold(new Or(left, right), pos(token), left, right), ExpressionDataType.ATOMIC);
     }
 
     /**
@@ -598,10 +665,11 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @return
      * @throws XillParsingException
      */
-    And parseToken(final xill.lang.xill.impl.AndImpl token) throws XillParsingException {
-        And andExpression = new And(parse(token.getLeft()), parse(token.getRight()));
+    Processable parseToken(final xill.lang.xill.impl.AndImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
 
-        return andExpression;
+        return constantFolder.typed(constantFolder.fold(new And(left, right), pos(token), left, right), ExpressionDataType.ATOMIC);
     }
 
     /**
@@ -612,16 +680,24 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException
      */
     Processable parseToken(final xill.lang.xill.impl.EqualityImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
+        Processable expression;
+
         switch (token.getOp()) {
             case "==":
-                return new Equals(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Equals(left, right);
+                break;
             case "!=":
-                return new NotEquals(parse(token.getLeft()), parse(token.getRight()));
+                expression = new NotEquals(left, right);
+                break;
             default:
                 CodePosition pos = pos(token);
                 throw new XillParsingException("This token has not been implemented.", pos.getLineNumber(),
                         pos.getRobotID());
         }
+
+        return constantFolder.typed(constantFolder.fold(expression, pos(token), left, right), ExpressionDataType.ATOMIC);
     }
 
     /**
@@ -632,17 +708,19 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException
      */
     Processable parseToken(final xill.lang.xill.impl.AdditionImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
         Processable expression;
 
         switch (token.getOp()) {
             case "+":
-                expression = new Add(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Add(left, right);
                 break;
             case "-":
-                expression = new Subtract(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Subtract(left, right);
                 break;
             case "::":
-                expression = new Concat(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Concat(left, right);
                 break;
             default:
                 CodePosition pos = pos(token);
@@ -650,7 +728,12 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
                         pos.getRobotID());
         }
 
-        return expression;
+        Processable result = constantFolder.fold(expression, pos(token), left, right);
+        if (!"+".equals(token.getOp())) {
+            // Only addition can produce collections
+            constantFolder.typed(result, ExpressionDataType.ATOMIC);
+        }
+        return result;
     }
 
     /**
@@ -661,20 +744,22 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException
      */
     Processable parseToken(final xill.lang.xill.impl.ComparisonImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
         Processable expression;
 
         switch (token.getOp()) {
             case ">":
-                expression = new GreaterThan(parse(token.getLeft()), parse(token.getRight()));
+                expression = new GreaterThan(left, right);
                 break;
             case "<":
-                expression = new SmallerThan(parse(token.getLeft()), parse(token.getRight()));
+                expression = new SmallerThan(left, right);
                 break;
             case ">=":
-                expression = new GreaterThanOrEquals(parse(token.getLeft()), parse(token.getRight()));
+                expression = new GreaterThanOrEquals(left, right);
                 break;
             case "<=":
-                expression = new SmallerThanOrEquals(parse(token.getLeft()), parse(token.getRight()));
+                expression = new SmallerThanOrEquals(left, right);
                 break;
             default:
                 CodePosition pos = pos(token);
@@ -682,7 +767,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
                         pos.getRobotID());
         }
 
-        return expression;
+        return constantFolder.typed(constantFolder.fold(expression, pos(token), left, right), ExpressionDataType.ATOMIC);
     }
 
     /**
@@ -693,20 +778,22 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException
      */
     Processable parseToken(final xill.lang.xill.impl.MultiplicationImpl token) throws XillParsingException {
+        Processable left = parse(token.getLeft());
+        Processable right = parse(token.getRight());
         Processable expression;
 
         switch (token.getOp()) {
             case "*":
-                expression = new Multiply(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Multiply(left, right);
                 break;
             case "/":
-                expression = new Divide(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Divide(left, right);
                 break;
             case "%":
-                expression = new Modulo(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Modulo(left, right);
                 break;
             case "^":
-                expression = new Power(parse(token.getLeft()), parse(token.getRight()));
+                expression = new Power(left, right);
                 break;
             default:
                 CodePosition pos = pos(token);
@@ -714,7 +801,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
                         pos.getRobotID());
         }
 
-        return expression;
+        return constantFolder.typed(constantFolder.fold(expression, pos(token), left, right), ExpressionDataType.ATOMIC);
     }
 
     /**
@@ -861,7 +948,8 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
             expressions.add(parse(exp));
         }
 
-        return new ExpressionBuilder(expressions);
+        Processable list = constantFolder.fold(new ExpressionBuilder(expressions), pos(token), expressions.toArray(new Processable[expressions.size()]));
+        return constantFolder.typed(list, ExpressionDataType.LIST);
     }
 
     /**
@@ -875,12 +963,18 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         Iterator<Expression> keys = token.getNames().iterator();
         Iterator<Expression> values = token.getValues().iterator();
         LinkedHashMap<Processable, Processable> object = new LinkedHashMap<>(token.getNames().size());
+        List<Processable> operands = new ArrayList<>(token.getNames().size() * 2);
 
         while (keys.hasNext() && values.hasNext()) {
-            object.put(parse(keys.next()), parse(values.next()));
+            Processable key = parse(keys.next());
+            Processable value = parse(values.next());
+            object.put(key, value);
+            operands.add(key);
+            operands.add(value);
         }
 
-        return new ExpressionBuilder(object);
+        Processable result = constantFolder.fold(new ExpressionBuilder(object), pos(token), operands.toArray(new Processable[operands.size()]));
+        return constantFolder.typed(result, ExpressionDataType.OBJECT);
 
     }
 
@@ -960,7 +1054,12 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         }
 
         // Check argument count by mocking the input
-        ConstructContext constructContext = new ConstructContext(workingDirectory, robotID.get(token.eResource()), rootRobot, construct, robotLoader, debugger, compilerSerialId, outputHandler, robotStartedEvent, robotStoppedEvent);
+        // Robots compiled for a root robot refer to the root serial id and stop event of its compilation
+        UUID rootCompilerSerialId = compiledRobotCache.getRootCompilerSerialId();
+        EventHost<RobotStoppedAction> rootRobotStoppedEvent = compiledRobotCache.getRootRobotStoppedEvent();
+        ConstructContext constructContext = new ConstructContext(workingDirectory, robotID.get(token.eResource()), rootRobot, construct, robotLoader, debugger,
+                compilerSerialId, rootCompilerSerialId == null ? compilerSerialId : rootCompilerSerialId, outputHandler,
+                robotStartedEvent, robotStoppedEvent, rootRobotStoppedEvent == null ? robotStoppedEvent : rootRobotStoppedEvent);
 
         try (ConstructProcessor processor = construct.prepareProcess(constructContext)) {
             return buildCall(construct, processor, arguments, constructContext, pos);
@@ -986,12 +1085,34 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
                     pos.getLineNumber(), pos.getRobotID());
         }
 
+        // Check the types of arguments that are known at compile time, these are not checked again when running
+        boolean[] checkedArguments = new boolean[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            Optional<ExpressionDataType> type = constantFolder.getType(arguments.get(i));
+            if (type.isPresent() && !processor.setArgument(i, sampleOf(type.get()))) {
+                throw new XillParsingException("Wrong type for argument `" + processor.getArgumentName(i) + "` in " + processor.toString(construct.getName()) + " expected [" + processor.getArgumentType(i) + "] but received [" + type.get() + "]",
+                        pos.getLineNumber(), pos.getRobotID());
+            }
+            checkedArguments[i] = type.isPresent();
+        }
+
         // Check whether a construct is deprecated (has a Deprecated annotation) and log a warning if this is the case
         if (construct.isDeprecated()) {
             context.getRootLogger().warn("Call to deprecated construct with name \"{}\" at {}", construct.getName(), pos.toString());
         }
 
-        return new ConstructCall(construct, arguments, context);
+        return new ConstructCall(construct, arguments, context, frameSlots++, checkedArguments);
+    }
+
+    private static MetaExpression sampleOf(final ExpressionDataType type) {
+        switch (type) {
+            case LIST:
+                return ExpressionBuilderHelper.emptyList();
+            case OBJECT:
+                return ExpressionBuilderHelper.emptyObject();
+            default:
+                return ExpressionBuilderHelper.NULL;
+        }
     }
 
     /**
@@ -1038,7 +1159,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException if a compile error occurs
      */
     Processable parseToken(final xill.lang.xill.MapExpression token) throws XillParsingException {
-        return parseFunctionParameter(token, MapExpression::new);
+        return parsePipelineStage(token, MapExpression::new);
     }
 
     /**
@@ -1049,7 +1170,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException if a compile error occurs
      */
     Processable parseToken(final xill.lang.xill.FilterExpression token) throws XillParsingException {
-        return parseFunctionParameter(token, FilterExpression::new);
+        return parsePipelineStage(token, FilterExpression::new);
     }
 
     /**
@@ -1060,7 +1181,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @throws XillParsingException if a compile error occurs
      */
     Processable parseToken(final xill.lang.xill.PeekExpression token) throws XillParsingException {
-        return parseFunctionParameter(token, PeekExpression::new);
+        return parsePipelineStage(token, PeekExpression::new);
     }
 
     /**
@@ -1086,6 +1207,19 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         return parseFunctionParameter(token, iterable -> new ReduceTerminalExpression(accumulator, iterable));
     }
 
+    /**
+     * Parse a map, filter or peek expression. Nested pipeline expressions are fused into a single stage so items do not
+     * pass through an iterator per expression.
+     *
+     * @param token       the token
+     * @param constructor creates the expression from its input
+     * @return the expression
+     * @throws XillParsingException if a compile error occurs
+     */
+    private Processable parsePipelineStage(xill.lang.xill.FunctionParameterExpression token, Function<Processable, FunctionParameterExpression> constructor) throws XillParsingException {
+        return FusedPipelineExpression.fuse(parseFunctionParameter(token, constructor));
+    }
+
     private Processable parseFunctionParameter(xill.lang.xill.FunctionParameterExpression token, Function<Processable, FunctionParameterExpression> constructor) throws XillParsingException {
         Processable argument = parse(token.getArgument());
         FunctionParameterExpression result = constructor.apply(argument);
@@ -1128,7 +1262,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
     Processable parseToken(final xill.lang.xill.CallbotExpression token) throws XillParsingException {
         Processable qualifiedName = parse(token.getPath());
 
-        CallbotExpression expression = new CallbotExpression(workingDirectory, qualifiedName, rootRobot, plugins, outputHandler, robotLoader);
+        CallbotExpression expression = new CallbotExpression(workingDirectory, qualifiedName, rootRobot, plugins, outputHandler, robotLoader, compiledRobotCache, language);
 
         if (token.getArgument() != null) {
             expression.setArgument(parse(token.getArgument()));
@@ -1147,7 +1281,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
     Processable parseToken(final xill.lang.xill.RunBulkExpression token) throws XillParsingException {
         Processable qualifiedName = parse(token.getPath());
 
-        RunBulkExpression expression = new RunBulkExpression(workingDirectory, qualifiedName, rootRobot, plugins, outputHandler, robotLoader);
+        RunBulkExpression expression = new RunBulkExpression(workingDirectory, qualifiedName, rootRobot, plugins, outputHandler, robotLoader, compiledRobotCache, language);
 
         if (token.getArgument() != null) {
             expression.setArgument(parse(token.getArgument()));
@@ -1168,9 +1302,9 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      */
     Processable parseToken(final xill.lang.xill.BooleanLiteral token) {
         if (Boolean.parseBoolean(token.getValue())) {
-            return ExpressionBuilderHelper.TRUE;
+            return constantFolder.literal(ExpressionBuilderHelper.TRUE);
         }
-        return ExpressionBuilderHelper.FALSE;
+        return constantFolder.literal(ExpressionBuilderHelper.FALSE);
     }
 
     /**
@@ -1180,7 +1314,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @return
      */
     Processable parseToken(final xill.lang.xill.NullLiteral token) {
-        return ExpressionBuilderHelper.NULL;
+        return constantFolder.literal(ExpressionBuilderHelper.NULL);
     }
 
     /**
@@ -1191,12 +1325,12 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      */
     Processable parseToken(final xill.lang.xill.IntegerLiteral token) {
         try {
-            return new ExpressionBuilder(Integer.parseInt(token.getValue()));
+            return constantFolder.literal(new ExpressionBuilder(Integer.parseInt(token.getValue())));
         } catch (NumberFormatException e) {
             try {
-                return new ExpressionBuilder(Long.parseLong(token.getValue()));
+                return constantFolder.literal(new ExpressionBuilder(Long.parseLong(token.getValue())));
             } catch (NumberFormatException e2) {
-                return new ExpressionBuilder(new BigInteger(token.getValue()));
+                return constantFolder.literal(new ExpressionBuilder(new BigInteger(token.getValue())));
             }
         }
     }
@@ -1208,7 +1342,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @return
      */
     Processable parseToken(final xill.lang.xill.DecimalLiteral token) {
-        return new ExpressionBuilder(Double.parseDouble(token.getValue()));
+        return constantFolder.literal(new ExpressionBuilder(Double.parseDouble(token.getValue())));
     }
 
     /**
@@ -1218,7 +1352,7 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
      * @return
      */
     Processable parseToken(final xill.lang.xill.StringLiteral token) {
-        return new ExpressionBuilder(token.getValue());
+        return constantFolder.literal(new ExpressionBuilder(token.getValue()));
     }
 
     private CodePosition pos(final EObject object) {
@@ -1227,6 +1361,13 @@ public class XillProgramFactory implements LanguageFactory<xill.lang.xill.Robot>
         return new CodePosition(id, node.getStartLine());
     }
 
+    /**
+     * @return the simplifications that were made while parsing the robots
+     */
+    public ConstantFoldingReport getConstantFoldingReport() {
+        return constantFolder.getReport();
+    }
+
     /**
      * @return the debugger
      */
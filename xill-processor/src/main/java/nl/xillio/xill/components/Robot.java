@@ -38,11 +38,6 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
     private final List<Robot> libraries = new ArrayList<>();
     private MetaExpression callArgument;
 
-    private List<Instruction> libraryProcessedInstructions = new ArrayList<>();
-    private boolean initialized = false;
-    private boolean closed = false;
-    private boolean hasRun = false;
-
     private static final Logger LOGGER = Log.get();
 
     /**
@@ -77,22 +72,31 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
      */
     @Override
     public InstructionFlow<MetaExpression> process(final Debugger debugger) throws RobotRuntimeException {
-        if (hasRun) {
+        if (getRunState(debugger).hasRun) {
             // Cannot run a robot twice
             throw new RobotRuntimeException("This robot cannot run twice. It has to be re-initialized before running.");
         }
-        getDebugger().robotStarted(this);
-        startEvent.invoke(new RobotStartedAction(this));
+        debugger.robotStarted(this);
+        RobotRun run = RobotRun.of(debugger);
+        if (run == null) {
+            startEvent.invoke(new RobotStartedAction(this));
+        } else {
+            run.started(this);
+        }
 
 
         // Initialize all libraries and their children
-        initializeAsLibrary(true);
+        initializeAsLibrary(debugger, true);
 
-        hasRun = true;
+        getRunState(debugger).hasRun = true;
         InstructionFlow<MetaExpression> result = super.process(debugger);
 
-        endEvent.invoke(new RobotStoppedAction(this, compilerSerialId));
-        getDebugger().robotFinished(this);
+        if (run == null) {
+            endEvent.invoke(new RobotStoppedAction(this, compilerSerialId));
+        } else {
+            run.stopped();
+        }
+        debugger.robotFinished(this);
 
         return result;
     }
@@ -157,11 +161,11 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
     }
 
     @Override
-    public void close() {
-        super.close();
+    public void close(final Debugger debugger) {
+        super.close(debugger);
 
         // Close all libraries and their children
-        closeAsLibrary();
+        closeAsLibrary(debugger);
     }
 
     /**
@@ -191,6 +195,35 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
         return callArgument != null;
     }
 
+    @Override
+    public void setArgument(final Debugger debugger, final MetaExpression expression) {
+        getRunState(debugger).argument = expression;
+    }
+
+    @Override
+    public MetaExpression getArgument(final Debugger debugger) {
+        MetaExpression argument = getRunState(debugger).argument;
+        if (argument == null) {
+            return getArgument();
+        }
+        return argument;
+    }
+
+    @Override
+    public boolean hasArgument(final Debugger debugger) {
+        return getRunState(debugger).argument != null || hasArgument();
+    }
+
+    /**
+     * Get the state of this robot in the execution frame of a debugger.
+     *
+     * @param debugger the debugger of the current run
+     * @return the run state
+     */
+    private RunState getRunState(final Debugger debugger) {
+        return debugger.getExecutionFrame().get(this, RunState::new);
+    }
+
     @Override
     public UUID getCompilerSerialId() {
         return compilerSerialId;
@@ -198,19 +231,31 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
 
     @Override
     public void initializeAsLibrary(boolean skipSelf) throws RobotRuntimeException {
-        initialized = true;
+        initializeAsLibrary(getDebugger(), skipSelf);
+    }
+
+    /**
+     * Initializes the robot to be used as a library.
+     *
+     * @param debugger the debugger of the current run
+     * @param skipSelf set this to true to skip initializing self and only initialize children
+     * @throws RobotRuntimeException when the library couldn't be initialized
+     */
+    private void initializeAsLibrary(Debugger debugger, boolean skipSelf) throws RobotRuntimeException {
+        RunState state = getRunState(debugger);
+        state.initialized = true;
         for (Robot robot : libraries) {
-            if (!robot.initialized) {
-                robot.initializeAsLibrary(false);
+            if (!robot.getRunState(debugger).initialized) {
+                robot.initializeAsLibrary(debugger, false);
             }
         }
         if (!skipSelf) {
             for (nl.xillio.xill.components.instructions.Instruction instruction : getInstructions()) {
-                if (getDebugger().shouldStop()) {
+                if (debugger.shouldStop()) {
                     break;
                 } else if ((instruction instanceof VariableDeclaration || instruction instanceof FunctionDeclaration)) {
-                    instruction.process(getDebugger());
-                    libraryProcessedInstructions.add(instruction);
+                    instruction.process(debugger);
+                    state.libraryProcessedInstructions.add(instruction);
                 }
             }
         }
@@ -218,13 +263,35 @@ public class Robot extends InstructionSet implements nl.xillio.xill.api.componen
 
     /**
      * Close variables and functions in an initialized library
+     *
+     * @param debugger the debugger of the current run
      */
-    public void closeAsLibrary() {
-        closed = true;
+    public void closeAsLibrary(final Debugger debugger) {
+        RunState state = getRunState(debugger);
+        state.closed = true;
         for (Robot robot : libraries) {
-            if (!robot.closed) {
-                robot.closeAsLibrary();
+            if (!robot.getRunState(debugger).closed) {
+                robot.closeAsLibrary(debugger);
+            }
+        }
+        for (nl.xillio.xill.components.instructions.Instruction instruction : state.libraryProcessedInstructions) {
+            try {
+                instruction.close(debugger);
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage(), e);
             }
         }
+        state.libraryProcessedInstructions.clear();
+    }
+
+    /**
+     * The state of a robot during a single run.
+     */
+    private static class RunState {
+        private final List<nl.xillio.xill.components.instructions.Instruction> libraryProcessedInstructions = new ArrayList<>();
+        private MetaExpression argument;
+        private boolean initialized = false;
+        private boolean closed = false;
+        private boolean hasRun = false;
     }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components;
+
+import nl.xillio.events.EventHost;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.ExecutionFrame;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.events.RobotStartedAction;
+import nl.xillio.xill.api.events.RobotStoppedAction;
+
+import java.util.UUID;
+
+/**
+ * This class represents a single run of a compiled robot that is shared by multiple runs, such as the robots called by
+ * callbot and runBulk.
+ * <p>
+ * Every run has its own serial id and robot started and stopped events, which the constructs of the robot see through
+ * {@link ConstructContext#forRun(Debugger, UUID, EventHost, EventHost)}. The run is kept in the execution frame of the
+ * debugger it runs with. If the robot did not stop normally, the stopped event is invoked when that frame is released.
+ */
+public class RobotRun implements ExecutionFrame.Inheritable {
+    private static final Object KEY = new Object();
+
+    private final UUID compilerSerialId;
+    private final EventHost<RobotStartedAction> robotStartedEvent;
+    private final EventHost<RobotStoppedAction> robotStoppedEvent;
+    // Only the frame that started the run stops it, frames of workers inside the run share it
+    private final boolean owner;
+    private Robot robot;
+    private boolean stopped;
+
+    private RobotRun(UUID compilerSerialId, EventHost<RobotStartedAction> robotStartedEvent, EventHost<RobotStoppedAction> robotStoppedEvent, boolean owner) {
+        this.compilerSerialId = compilerSerialId;
+        this.robotStartedEvent = robotStartedEvent;
+        this.robotStoppedEvent = robotStoppedEvent;
+        this.owner = owner;
+    }
+
+    /**
+     * Start a new run in the execution frame of a debugger.
+     *
+     * @param debugger the debugger the robot will run with
+     * @return the run
+     */
+    public static RobotRun start(final Debugger debugger) {
+        return debugger.getExecutionFrame().get(KEY, () -> new RobotRun(UUID.randomUUID(), new EventHost<>(), new EventHost<>(), true));
+    }
+
+    /**
+     * Get the run a debugger belongs to.
+     *
+     * @param debugger the debugger
+     * @return the run or null if the debugger runs a robot that was compiled for this run only
+     */
+    public static RobotRun of(final Debugger debugger) {
+        return debugger.getExecutionFrame().get(KEY);
+    }
+
+    /**
+     * Get the context a construct should use in a run.
+     *
+     * @param debugger the debugger the construct runs with
+     * @param context  the context the construct was compiled with
+     * @return the context of the run or the compiled context if the debugger is not part of a run
+     */
+    public static ConstructContext contextOf(final Debugger debugger, final ConstructContext context) {
+        RobotRun run = of(debugger);
+        if (run == null) {
+            return context;
+        }
+        return context.forRun(debugger, run.compilerSerialId, run.robotStartedEvent, run.robotStoppedEvent);
+    }
+
+    /**
+     * @return the serial id of this run
+     */
+    public UUID getCompilerSerialId() {
+        return compilerSerialId;
+    }
+
+    /**
+     * Invoke the started event of this run.
+     *
+     * @param robot the robot that started
+     */
+    void started(final Robot robot) {
+        this.robot = robot;
+        robotStartedEvent.invoke(new RobotStartedAction(robot));
+    }
+
+    /**
+     * Invoke the stopped event of this run.
+     */
+    void stopped() {
+        if (!stopped && robot != null) {
+            stopped = true;
+            robotStoppedEvent.invoke(new RobotStoppedAction(robot, compilerSerialId));
+        }
+    }
+
+    @Override
+    public Inheritable inherit() {
+        return new RobotRun(compilerSerialId, robotStartedEvent, robotStoppedEvent, false);
+    }
+
+    @Override
+    public void release() {
+        if (owner) {
+            stopped();
+        }
+    }
+}
@@ -17,6 +17,8 @@ package nl.xillio.xill.components.expressions;
 
 import me.biesaart.utils.Log;
 import nl.xillio.plugins.XillPlugin;
+import nl.xillio.xill.CompiledRobotCache;
+import nl.xillio.xill.LanguageInfrastructure;
 import nl.xillio.xill.XillProcessor;
 import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.DefaultOutputHandler;
@@ -25,6 +27,7 @@ import nl.xillio.xill.api.OutputHandler;
 import nl.xillio.xill.api.components.*;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
 import nl.xillio.xill.api.errors.XillParsingException;
+import nl.xillio.xill.components.RobotRun;
 import nl.xillio.xill.loaders.AbstractRobotLoader;
 import org.slf4j.Logger;
 
@@ -48,6 +51,8 @@ public class CallbotExpression implements Processable {
     private Processable argument;
     private final OutputHandler outputHandler;
     private final AbstractRobotLoader loader;
+    private final CompiledRobotCache compiledRobotCache;
+    private final LanguageInfrastructure language;
 
     /**
      * Create a new {@link CallbotExpression}
@@ -58,8 +63,10 @@ public class CallbotExpression implements Processable {
      * @param plugins          the current plugin loader
      * @param outputHandler    the event handler for all output
      * @param loader
+     * @param compiledRobotCache the cache that holds compiled robots
+     * @param language           the Xtext infrastructure used to compile the called robot
      */
-    public CallbotExpression(final Path workingDirectory, final Processable path, final RobotID robotID, final List<XillPlugin> plugins, OutputHandler outputHandler, AbstractRobotLoader loader) {
+    public CallbotExpression(final Path workingDirectory, final Processable path, final RobotID robotID, final List<XillPlugin> plugins, OutputHandler outputHandler, AbstractRobotLoader loader, CompiledRobotCache compiledRobotCache, LanguageInfrastructure language) {
         this.workingDirectory = workingDirectory;
         this.path = path;
         this.robotID = robotID;
@@ -67,6 +74,8 @@ public class CallbotExpression implements Processable {
         robotLogger = LogUtil.getLogger(robotID, new DefaultOutputHandler());
         this.outputHandler = outputHandler;
         this.loader = loader;
+        this.compiledRobotCache = compiledRobotCache;
+        this.language = language;
     }
 
     @Override
@@ -83,20 +92,24 @@ public class CallbotExpression implements Processable {
         // Process the robot
         try {
             Debugger childDebugger = debugger.createChild();
-            XillProcessor processor = new XillProcessor(workingDirectory, new RobotID(robotResource, otherRobot), loader, plugins, childDebugger);
-            processor.setOutputHandler(outputHandler);
-            processor.compileAsSubRobot(robotID);
+            RobotID calledRobotID = new RobotID(robotResource, otherRobot);
+            nl.xillio.xill.api.components.Robot robot = compiledRobotCache.get(calledRobotID, robotID, () -> {
+                XillProcessor processor = new XillProcessor(workingDirectory, calledRobotID, loader, plugins, childDebugger, language);
+                processor.setOutputHandler(outputHandler);
+                processor.setCompiledRobotCache(compiledRobotCache);
+                processor.compileAsSubRobot(robotID);
+                return processor;
+            });
 
             try {
-                nl.xillio.xill.api.components.Robot robot = processor.getRobot();
-
+                RobotRun.start(childDebugger);
                 if (argument != null) {
                     InstructionFlow<MetaExpression> argumentResult = argument.process(debugger);
 
-                    robot.setArgument(argumentResult.get());
+                    robot.setArgument(childDebugger, argumentResult.get());
                 }
 
-                InstructionFlow<MetaExpression> result = processor.getRobot().process(childDebugger);
+                InstructionFlow<MetaExpression> result = robot.process(childDebugger);
 
                 if (result.hasValue()) {
                     return InstructionFlow.doResume(result.get());
@@ -109,6 +122,8 @@ public class CallbotExpression implements Processable {
                 }
                 throw new RobotRuntimeException("An exception occurred while evaluating " + otherRobot, e);
             } finally {
+                // Close the processors and values the called robot left in its frame
+                childDebugger.getExecutionFrame().release();
                 debugger.removeChild(childDebugger);
             }
 
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Processable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * This class represents an ATOMIC value that was computed while compiling the robot.
+ * Every evaluation returns a copy of the value, which for an ATOMIC is a single object that shares the immutable
+ * value, so metadata stored on a result does not affect later evaluations.
+ */
+public class ConstantExpression implements Processable {
+    private final MetaExpression value;
+
+    /**
+     * Create a new {@link ConstantExpression}.
+     *
+     * @param value the computed ATOMIC value, this expression takes ownership of it
+     */
+    public ConstantExpression(final MetaExpression value) {
+        if (value.getType() != ExpressionDataType.ATOMIC) {
+            throw new IllegalArgumentException("Only ATOMIC values can be constant, collections can be changed in place");
+        }
+        this.value = value;
+        value.registerReference();
+    }
+
+    @Override
+    public InstructionFlow<MetaExpression> process(final Debugger debugger) {
+        return InstructionFlow.doResume(value.copy());
+    }
+
+    @Override
+    public Collection<Processable> getChildren() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return value.toString();
+    }
+}
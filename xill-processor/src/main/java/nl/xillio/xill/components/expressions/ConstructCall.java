@@ -16,6 +16,7 @@
 package nl.xillio.xill.components.expressions;
 
 import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.ExecutionFrame;
 import nl.xillio.xill.api.components.InstructionFlow;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.Processable;
@@ -25,20 +26,32 @@ import nl.xillio.xill.api.construct.ConstructProcessor;
 import nl.xillio.xill.api.components.ExpressionBuilderHelper;
 import nl.xillio.xill.api.errors.RobotConcurrentModificationException;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.RobotRun;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * This class represents a call to a java construct
+ * This class represents a call to a java construct.
+ * <p>
+ * The {@link ConstructProcessor} of a call is prepared once per execution frame and reset after every use.
+ * A call that is entered again while its processor is in use (e.g. through recursion) prepares a new one.
+ * The processor is closed when the frame is released. In a {@link RobotRun} the processor is prepared with the context of
+ * that run.
+ * <p>
+ * Arguments whose type was checked when the robot was compiled are not checked again.
  */
 public class ConstructCall implements Processable {
+    private static final Supplier<ProcessorState> NEW_STATE = ProcessorState::new;
 
     private final Construct construct;
     private final ConstructContext context;
     private final Processable[] arguments;
+    private final boolean[] checkedArguments;
+    private final int slot;
 
     /**
      * Create a new {@link ConstructCall}-object.
@@ -48,15 +61,62 @@ public class ConstructCall implements Processable {
      * @param context   the associated context.
      */
     public ConstructCall(final Construct construct, final List<Processable> arguments, ConstructContext context) {
+        this(construct, arguments, context, -1);
+    }
+
+    /**
+     * Create a new {@link ConstructCall}-object that keeps its processor in a slot of the execution frame.
+     *
+     * @param construct the construct to call.
+     * @param arguments the arguments to insert into the construct.
+     * @param context   the associated context.
+     * @param slot      the frame slot assigned at compile time or -1 to use no slot
+     */
+    public ConstructCall(final Construct construct, final List<Processable> arguments, ConstructContext context, int slot) {
+        this(construct, arguments, context, slot, new boolean[arguments.size()]);
+    }
+
+    /**
+     * Create a new {@link ConstructCall}-object that keeps its processor in a slot of the execution frame.
+     *
+     * @param construct        the construct to call.
+     * @param arguments        the arguments to insert into the construct.
+     * @param context          the associated context.
+     * @param slot             the frame slot assigned at compile time or -1 to use no slot
+     * @param checkedArguments for every argument whether its type was checked at compile time
+     */
+    public ConstructCall(final Construct construct, final List<Processable> arguments, ConstructContext context, int slot, boolean[] checkedArguments) {
         this.construct = construct;
         this.context = context;
         this.arguments = arguments.toArray(new Processable[arguments.size()]);
+        this.checkedArguments = Arrays.copyOf(checkedArguments, this.arguments.length);
+        this.slot = slot;
     }
 
     @Override
     public InstructionFlow<MetaExpression> process(final Debugger debugger) throws RobotRuntimeException {
-        try (ConstructProcessor processor = construct.prepareProcess(context)) {
-            return process(processor, debugger);
+        ExecutionFrame frame = debugger.getExecutionFrame();
+        ProcessorState state = null;
+        if (frame != null) {
+            state = slot < 0 ? frame.get(this, NEW_STATE) : frame.getSlot(slot, NEW_STATE);
+        }
+
+        if (state == null || state.inUse) {
+            try (ConstructProcessor processor = construct.prepareProcess(RobotRun.contextOf(debugger, context))) {
+                return process(processor, debugger);
+            }
+        }
+
+        if (state.processor == null) {
+            state.processor = construct.prepareProcess(RobotRun.contextOf(debugger, context));
+        }
+
+        state.inUse = true;
+        try {
+            return process(state.processor, debugger);
+        } finally {
+            state.processor.reset();
+            state.inUse = false;
         }
     }
 
@@ -72,7 +132,10 @@ public class ConstructCall implements Processable {
                 debugger.handle(e);
             }
 
-            if (!processor.setArgument(i, result)) {
+            // A failed argument that was handled by the debugger is NULL, which may not be the checked type
+            if (checkedArguments[i] && result != ExpressionBuilderHelper.NULL) {
+                processor.setCheckedArgument(i, result);
+            } else if (!processor.setArgument(i, result)) {
                 throw new RobotRuntimeException("Wrong type for argument `" + processor.getArgumentName(i) + "` in " + processor.toString(construct.getName()) + " expected [" + processor.getArgumentType(i) + "] but received [" + result.getType() + "]");
             }
         }
@@ -100,4 +163,19 @@ public class ConstructCall implements Processable {
         return Arrays.asList(arguments);
     }
 
+    /**
+     * The processor of a call in a single execution frame.
+     */
+    private static class ProcessorState implements ExecutionFrame.Releasable {
+        private ConstructProcessor processor;
+        private boolean inUse;
+
+        @Override
+        public void release() {
+            if (processor != null) {
+                processor.close();
+                processor = null;
+            }
+        }
+    }
 }
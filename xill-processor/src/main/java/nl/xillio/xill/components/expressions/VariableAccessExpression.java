@@ -43,7 +43,7 @@ public class VariableAccessExpression implements Processable {
 
     @Override
     public InstructionFlow<MetaExpression> process(final Debugger debugger) {
-        return InstructionFlow.doResume(declaration.getVariable());
+        return InstructionFlow.doResume(declaration.getVariable(debugger));
     }
 
     @Override
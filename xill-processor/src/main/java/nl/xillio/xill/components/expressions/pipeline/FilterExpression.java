@@ -41,6 +41,50 @@ public class FilterExpression extends PipelineExpression {
         return new FilterIterator(input, functionDeclaration, debugger);
     }
 
+    @Override
+    protected WrappingIterator wrapParallel(MetaExpression input, FunctionDeclaration functionDeclaration, Debugger debugger, ParallelOptions options) {
+        return new ParallelIterator(input, debugger, options, this::apply);
+    }
+
+    @Override
+    MetaExpression apply(Debugger debugger, MetaExpression item) {
+        return test(getFunctionDeclaration(), debugger, item) ? item : null;
+    }
+
+    @Override
+    boolean isParallel() {
+        return true;
+    }
+
+    /**
+     * Run the predicate on a value. If the value is kept it will not be disposed.
+     *
+     * @param function the predicate
+     * @param debugger the debugger to run the predicate with
+     * @param value    the value
+     * @return true if the value should be kept
+     */
+    private static boolean test(FunctionDeclaration function, Debugger debugger, MetaExpression value) {
+        value.registerReference();
+        MetaExpression shouldKeep = function.run(debugger, Collections.singletonList(value)).get();
+        if (shouldKeep.getBooleanValue()) {
+            // We are done with this but since we are returning it we don't want to dispose
+            boolean isPrevented = value.isDisposalPrevented();
+
+            value.preventDisposal();
+            value.releaseReference();
+
+            if (!isPrevented) {
+                value.allowDisposal();
+            }
+            return true;
+        }
+
+        // We are done with this
+        value.releaseReference();
+        return false;
+    }
+
     @Override
     protected String describe() {
         return "filter";
@@ -70,23 +114,8 @@ public class FilterExpression extends PipelineExpression {
         private void cacheNext() {
             while (next == null && super.hasNext()) {
                 MetaExpression value = super.next();
-                value.registerReference();
-                MetaExpression shouldKeep = function.run(debugger, Collections.singletonList(value)).get();
-                if (shouldKeep.getBooleanValue()) {
-                    // We are done with this but since we are returning it we don't want to dispose
-                    boolean isPrevented = value.isDisposalPrevented();
-
-                    value.preventDisposal();
-                    value.releaseReference();
-
-                    if(!isPrevented) {
-                        value.allowDisposal();
-                    }
-
+                if (test(function, debugger, value)) {
                     next = value;
-                } else {
-                    // We are done with this
-                    value.releaseReference();
                 }
             }
         }
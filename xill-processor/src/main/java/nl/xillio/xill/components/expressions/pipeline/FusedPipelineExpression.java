@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.pipeline;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Processable;
+import nl.xillio.xill.api.components.WrappingIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.lazyValue;
+
+/**
+ * This class represents a chain of nested map, filter and peek expressions that is processed by a single iterator.
+ * Every item passes through all stages in one call, without an iterator and result value per stage.
+ */
+public class FusedPipelineExpression implements Processable {
+    private final Processable input;
+    private final PipelineExpression[] stages;
+
+    private FusedPipelineExpression(Processable input, List<PipelineExpression> stages) {
+        this.input = input;
+        this.stages = stages.toArray(new PipelineExpression[stages.size()]);
+    }
+
+    /**
+     * Fuse a map, filter or peek expression with the pipeline expressions it takes its input from.
+     *
+     * @param expression the outermost expression
+     * @return the fused expression or the expression itself if its input is not a pipeline expression
+     */
+    public static Processable fuse(Processable expression) {
+        if (!(expression instanceof PipelineExpression)) {
+            return expression;
+        }
+        PipelineExpression stage = (PipelineExpression) expression;
+        Processable stageInput = stage.getInput();
+
+        if (stageInput instanceof FusedPipelineExpression) {
+            FusedPipelineExpression inner = (FusedPipelineExpression) stageInput;
+            List<PipelineExpression> stages = new ArrayList<>(Arrays.asList(inner.stages));
+            stages.add(stage);
+            return new FusedPipelineExpression(inner.input, stages);
+        }
+        if (stageInput instanceof PipelineExpression) {
+            PipelineExpression inner = (PipelineExpression) stageInput;
+            return new FusedPipelineExpression(inner.getInput(), Arrays.asList(inner, stage));
+        }
+        return expression;
+    }
+
+    @Override
+    public InstructionFlow<MetaExpression> process(Debugger debugger) {
+        MetaExpression inputValue = input.process(debugger).get();
+
+        ParallelOptions parallelOptions = inputValue.getMeta(ParallelOptions.class);
+        if (parallelOptions != null && !Arrays.stream(stages).allMatch(PipelineExpression::isParallel)) {
+            // Stages that do not run on the workers keep running on the calling thread
+            MetaExpression result = inputValue;
+            for (PipelineExpression stage : stages) {
+                result = stage.wrapResult(result, debugger);
+            }
+            return InstructionFlow.doResume(result);
+        }
+
+        MetaExpression result = lazyValue(() -> describe(inputValue.getStringValue()));
+        if (parallelOptions == null) {
+            result.storeMeta(new FusedIterator(inputValue, debugger));
+        } else {
+            result.storeMeta(new ParallelIterator(inputValue, debugger, parallelOptions, this::apply));
+            result.storeMeta(parallelOptions);
+        }
+        return InstructionFlow.doResume(result);
+    }
+
+    /**
+     * Pass an item through all stages.
+     *
+     * @param debugger the debugger to run the functions with
+     * @param item     the item
+     * @return the resulting item or null if it was dropped by one of the stages
+     */
+    private MetaExpression apply(Debugger debugger, MetaExpression item) {
+        MetaExpression current = item;
+        for (int i = 0; i < stages.length && current != null; i++) {
+            current = stages[i].apply(debugger, current);
+        }
+        return current;
+    }
+
+    private String describe(String inputDescription) {
+        StringBuilder result = new StringBuilder();
+        for (int i = stages.length - 1; i >= 0; i--) {
+            result.append(stages[i].describe()).append('(');
+        }
+        result.append(inputDescription);
+        for (int i = 0; i < stages.length; i++) {
+            result.append(')');
+        }
+        return result.toString();
+    }
+
+    @Override
+    public Collection<Processable> getChildren() {
+        List<Processable> children = new ArrayList<>();
+        children.add(input);
+        for (PipelineExpression stage : stages) {
+            children.add(stage.getFunctionDeclaration());
+        }
+        return children;
+    }
+
+    /**
+     * This class represents the runtime of the fused stages. It will cache 1 item because stages can drop items.
+     */
+    private class FusedIterator extends WrappingIterator {
+        private final Debugger debugger;
+        private MetaExpression next;
+
+        FusedIterator(MetaExpression host, Debugger debugger) {
+            super(host);
+            this.debugger = debugger;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && super.hasNext()) {
+                next = apply(debugger, super.next());
+            }
+            return next != null;
+        }
+
+        @Override
+        public MetaExpression next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("This iterator is empty");
+            }
+            MetaExpression result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        protected MetaExpression transformItem(MetaExpression item) {
+            // The stages are applied in hasNext
+            return item;
+        }
+    }
+}
@@ -41,6 +41,21 @@ public class MapExpression extends PipelineExpression {
         return new MapIterator(input, functionDeclaration, debugger);
     }
 
+    @Override
+    protected WrappingIterator wrapParallel(MetaExpression input, FunctionDeclaration functionDeclaration, Debugger debugger, ParallelOptions options) {
+        return new ParallelIterator(input, debugger, options, this::apply);
+    }
+
+    @Override
+    MetaExpression apply(Debugger debugger, MetaExpression item) {
+        return getFunctionDeclaration().run(debugger, Collections.singletonList(item)).get();
+    }
+
+    @Override
+    boolean isParallel() {
+        return true;
+    }
+
     @Override
     protected String describe() {
         return "map";
@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.pipeline;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.WrappingIterator;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.expressions.runbulk.BulkScheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiFunction;
+
+/**
+ * This class represents the runtime of a pipeline stage that runs its function on the shared {@link BulkScheduler}.
+ * <p>
+ * Items are pulled from the upstream iterator by the consuming thread and handed to the workers, at most
+ * {@link ParallelOptions#getPrefetch()} at a time. While it waits for a result the consuming thread runs queued items
+ * itself. Every worker has a debugger of its own. Its frame holds a snapshot of the variables that were visible when
+ * the stage was created, so assignments in the function are not visible outside.
+ * <p>
+ * The stage does not own any threads. Closing it drops the items that have not started, waits for the running ones and
+ * releases the workers.
+ */
+class ParallelIterator extends WrappingIterator {
+    private final Debugger debugger;
+    private final BiFunction<Debugger, MetaExpression, MetaExpression> function;
+    private final ParallelOptions options;
+    private final List<Debugger> workers;
+    private final BlockingQueue<Debugger> idleWorkers;
+    private final BulkScheduler.Bulk bulk;
+    private final Deque<Future<MetaExpression>> orderedResults = new ArrayDeque<>();
+    private final Queue<Future<MetaExpression>> completedResults = new ConcurrentLinkedQueue<>();
+    private int inFlight;
+    private MetaExpression next;
+    private boolean finished;
+
+    /**
+     * Create a parallel stage.
+     *
+     * @param host     the input of the stage
+     * @param debugger the debugger of the current run
+     * @param options  the parallel options
+     * @param function the function to run on every item, returns null if the item should be skipped
+     */
+    ParallelIterator(MetaExpression host, Debugger debugger, ParallelOptions options, BiFunction<Debugger, MetaExpression, MetaExpression> function) {
+        super(host);
+        this.debugger = debugger;
+        this.function = function;
+        this.options = options;
+
+        workers = new ArrayList<>(options.getThreads());
+        for (int i = 0; i < options.getThreads(); i++) {
+            Debugger worker = debugger.createChild();
+            worker.getExecutionFrame().inherit(debugger.getExecutionFrame());
+            workers.add(worker);
+        }
+        idleWorkers = new ArrayBlockingQueue<>(workers.size(), false, workers);
+        bulk = BulkScheduler.getInstance().open(options.getThreads(), options.getPrefetch());
+    }
+
+    @Override
+    protected MetaExpression transformItem(MetaExpression item) {
+        // The function is applied by the workers
+        return item;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            prefetch();
+            if (inFlight == 0) {
+                finish();
+                return false;
+            }
+            next = takeResult();
+        }
+        return true;
+    }
+
+    @Override
+    public MetaExpression next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("This iterator is empty");
+        }
+        MetaExpression result = next;
+        next = null;
+        return result;
+    }
+
+    private void prefetch() {
+        while (!finished && inFlight < options.getPrefetch() && !debugger.shouldStop() && super.hasNext()) {
+            MetaExpression item = super.next().share();
+            Job job = new Job(item);
+            if (options.isOrdered()) {
+                orderedResults.add(job);
+            }
+            inFlight++;
+            try {
+                bulk.submit(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finish();
+                throw new RobotRuntimeException("Interrupted while waiting for a pipeline worker", e);
+            }
+        }
+    }
+
+    private MetaExpression process(MetaExpression item) throws InterruptedException {
+        Debugger worker = idleWorkers.take();
+        try {
+            MetaExpression result = function.apply(worker, item);
+            return result == null ? null : result.share();
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    private MetaExpression takeResult() {
+        Future<MetaExpression> result = options.isOrdered() ? orderedResults.remove() : null;
+        while (true) {
+            // Read the progress first, a job that completes after this read always changes it
+            long seen = bulk.getFinished();
+            if (result == null) {
+                result = completedResults.poll();
+            }
+            if (result != null && result.isDone()) {
+                break;
+            }
+            bulk.awaitProgress(seen);
+        }
+        inFlight--;
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish();
+            throw new RobotRuntimeException("Interrupted while waiting for a pipeline worker", e);
+        } catch (ExecutionException e) {
+            finish();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RobotRuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Drop the items that have not started, wait for the running ones and release the workers.
+     */
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        inFlight = 0;
+        bulk.cancel();
+        bulk.awaitDone();
+
+        release(next);
+        next = null;
+        orderedResults.forEach(ParallelIterator::release);
+        orderedResults.clear();
+        completedResults.forEach(ParallelIterator::release);
+        completedResults.clear();
+
+        for (Debugger worker : workers) {
+            worker.getExecutionFrame().release();
+            debugger.removeChild(worker);
+        }
+    }
+
+    private static void release(Future<MetaExpression> result) {
+        if (!result.isDone() || result.isCancelled()) {
+            return;
+        }
+        try {
+            release(result.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The error is dropped together with the result
+        }
+    }
+
+    private static void release(MetaExpression result) {
+        if (result != null) {
+            // Closes the result unless it is still referenced elsewhere, e.g. by the input collection
+            result.registerReference();
+            result.releaseReference();
+        }
+    }
+
+    @Override
+    public void close() {
+        finish();
+        super.close();
+    }
+
+    /**
+     * A single item that is processed by a worker.
+     */
+    private class Job extends FutureTask<MetaExpression> {
+        Job(MetaExpression item) {
+            super(() -> ParallelIterator.this.process(item));
+        }
+
+        @Override
+        protected void done() {
+            if (!options.isOrdered()) {
+                completedResults.add(this);
+            }
+        }
+    }
+}
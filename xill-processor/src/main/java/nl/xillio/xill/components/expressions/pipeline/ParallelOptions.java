@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.pipeline;
+
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.data.MetadataExpression;
+import nl.xillio.xill.api.errors.InvalidUserInputException;
+
+import java.util.Map;
+
+/**
+ * This class represents the options of parallel pipeline stages. When it is stored in the input of a map or filter
+ * expression, the function of that expression is run on a pool of worker threads.
+ * The options are passed on to the result so the rest of the pipeline runs in parallel as well.
+ */
+public class ParallelOptions implements MetadataExpression {
+    public static final String OPTIONS_EXAMPLE = "var options = {\"threads\": 4, \"prefetch\": 16, \"ordered\": false};\n" +
+            "collect(map<f>(Collection.parallel(items, options)));";
+    private final int threads;
+    private final int prefetch;
+    private final boolean ordered;
+
+    /**
+     * Create new parallel options.
+     *
+     * @param threads  the number of worker threads
+     * @param prefetch the maximum number of items that are being processed at the same time
+     * @param ordered  true if the output should have the same order as the input
+     */
+    public ParallelOptions(int threads, int prefetch, boolean ordered) {
+        this.threads = threads;
+        this.prefetch = prefetch;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Parse parallel options from an OBJECT {@link MetaExpression}.
+     * Missing options use a thread per processor, a prefetch of twice the number of threads and ordered output.
+     *
+     * @param options the options OBJECT or null
+     * @return the options
+     * @throws InvalidUserInputException if an option is not valid
+     */
+    public static ParallelOptions parse(MetaExpression options) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Integer prefetch = null;
+        boolean ordered = true;
+
+        if (!options.isNull()) {
+            if (options.getType() != ExpressionDataType.OBJECT) {
+                throw new InvalidUserInputException("The passed value for the \"options\" argument was not an OBJECT",
+                        options.getStringValue(),
+                        "An OBJECT",
+                        OPTIONS_EXAMPLE);
+            }
+
+            for (Map.Entry<String, MetaExpression> entry : options.<Map<String, MetaExpression>>getValue().entrySet()) {
+                switch (entry.getKey()) {
+                    case "threads":
+                        threads = parsePositive("threads", entry.getValue());
+                        break;
+                    case "prefetch":
+                        prefetch = parsePositive("prefetch", entry.getValue());
+                        break;
+                    case "ordered":
+                        ordered = entry.getValue().getBooleanValue();
+                        break;
+                    default:
+                        throw new InvalidUserInputException("A key in the \"options\" argument was not a valid option name",
+                                entry.getKey(),
+                                "\"threads\", \"prefetch\" or \"ordered\"",
+                                OPTIONS_EXAMPLE);
+                }
+            }
+        }
+
+        return new ParallelOptions(threads, prefetch == null ? threads * 2 : prefetch, ordered);
+    }
+
+    private static int parsePositive(String name, MetaExpression value) {
+        int result = value.getNumberValue().intValue();
+        if (result < 1) {
+            throw new InvalidUserInputException("The \"" + name + "\" value in the \"options\" argument was not valid",
+                    value.getStringValue(),
+                    "A positive number",
+                    OPTIONS_EXAMPLE);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the maximum number of items that are being processed at the same time
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @return true if the output should have the same order as the input
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+}
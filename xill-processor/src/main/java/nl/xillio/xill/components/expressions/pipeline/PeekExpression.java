@@ -41,6 +41,38 @@ public class PeekExpression extends PipelineExpression {
         return new PeekIterator(input, functionDeclaration, debugger);
     }
 
+    @Override
+    MetaExpression apply(Debugger debugger, MetaExpression item) {
+        return inspect(getFunctionDeclaration(), debugger, item);
+    }
+
+    /**
+     * Run the function on an item without disposing it.
+     *
+     * @param function the function
+     * @param debugger the debugger to run the function with
+     * @param item     the item
+     * @return the item
+     */
+    private static MetaExpression inspect(FunctionDeclaration function, Debugger debugger, MetaExpression item) {
+        boolean prevented = item.isDisposalPrevented();
+        item.preventDisposal();
+
+        InstructionFlow<MetaExpression> result = function.run(debugger, Collections.singletonList(item));
+
+        if (!prevented) {
+            item.allowDisposal();
+        }
+
+        // Trigger dispose
+        if (result.hasValue()) {
+            result.get().registerReference();
+            result.get().releaseReference();
+        }
+
+        return item;
+    }
+
     @Override
     protected String describe() {
         return "peek";
@@ -61,22 +93,7 @@ public class PeekExpression extends PipelineExpression {
 
         @Override
         protected MetaExpression transformItem(MetaExpression item) {
-            boolean prevented = item.isDisposalPrevented();
-            item.preventDisposal();
-
-            InstructionFlow<MetaExpression> result = function.run(debugger, Collections.singletonList(item));
-
-            if (!prevented) {
-                item.allowDisposal();
-            }
-
-            // Trigger dispose
-            if (result.hasValue()) {
-                result.get().registerReference();
-                result.get().releaseReference();
-            }
-
-            return item;
+            return inspect(function, debugger, item);
         }
     }
 }
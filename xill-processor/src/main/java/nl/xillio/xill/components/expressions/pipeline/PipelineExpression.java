@@ -26,7 +26,7 @@ import nl.xillio.xill.components.instructions.FunctionDeclaration;
 import java.util.Arrays;
 import java.util.Collection;
 
-import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.lazyValue;
 
 /**
  * This class represents the base for an iterable to iterable pipeline function.
@@ -50,15 +50,70 @@ abstract class PipelineExpression implements Processable, FunctionParameterExpre
     public InstructionFlow<MetaExpression> process(Debugger debugger) {
         // Evaluate the input argument
         MetaExpression inputValue = input.process(debugger).get();
+        return InstructionFlow.doResume(wrapResult(inputValue, debugger));
+    }
+
+    /**
+     * Create the result of this stage for an evaluated input.
+     *
+     * @param inputValue the input
+     * @param debugger   the debugger of the current run
+     * @return the result
+     */
+    MetaExpression wrapResult(MetaExpression inputValue, Debugger debugger) {
+        // Wrap it, the description is only built when the value is printed because this might serialize the whole input
+        MetaExpression result = lazyValue(() -> describe() + "(" + inputValue.getStringValue() + ")");
+
+        // Inputs marked as parallel are processed by a pool of workers, the rest of the pipeline follows
+        ParallelOptions parallelOptions = inputValue.getMeta(ParallelOptions.class);
+        if (parallelOptions == null) {
+            result.storeMeta(wrap(inputValue, functionDeclaration, debugger));
+        } else {
+            result.storeMeta(wrapParallel(inputValue, functionDeclaration, debugger, parallelOptions));
+            result.storeMeta(parallelOptions);
+        }
+        return result;
+    }
+
+    /**
+     * Apply the function of this stage to a single item.
+     *
+     * @param debugger the debugger to run the function with
+     * @param item     the item
+     * @return the resulting item or null if the item is dropped by this stage
+     */
+    abstract MetaExpression apply(Debugger debugger, MetaExpression item);
 
-        // Wrap it
-        MetaExpression result = fromValue(String.format("%s(%s)", describe(), inputValue.getStringValue()));
-        result.storeMeta(wrap(inputValue, functionDeclaration, debugger));
-        return InstructionFlow.doResume(result);
+    /**
+     * @return true if this stage runs on the workers when its input is marked as parallel
+     */
+    boolean isParallel() {
+        return false;
+    }
+
+    Processable getInput() {
+        return input;
+    }
+
+    FunctionDeclaration getFunctionDeclaration() {
+        return functionDeclaration;
     }
 
     protected abstract WrappingIterator wrap(MetaExpression input, FunctionDeclaration functionDeclaration, Debugger debugger);
 
+    /**
+     * Wrap an input that is marked as parallel. By default the stage runs on the calling thread.
+     *
+     * @param input               the input
+     * @param functionDeclaration the function of this stage
+     * @param debugger            the debugger of the current run
+     * @param options             the parallel options of the input
+     * @return the iterator
+     */
+    protected WrappingIterator wrapParallel(MetaExpression input, FunctionDeclaration functionDeclaration, Debugger debugger, ParallelOptions options) {
+        return wrap(input, functionDeclaration, debugger);
+    }
+
     protected abstract String describe();
 
 
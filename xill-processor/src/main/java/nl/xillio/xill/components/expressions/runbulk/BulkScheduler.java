@@ -0,0 +1,337 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.XillThreadFactoryImpl;
+import nl.xillio.xill.api.XillThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The process-wide pool of threads that runs the jobs of all {@link RunBulkExpression runBulk} calls and parallel
+ * pipeline stages.
+ * <p>
+ * Every runBulk call or parallel stage opens a {@link Bulk} with a queue of its own. Idle threads take jobs from the bulks in turn, so a
+ * bulk that is started from within another bulk gets its share of the threads. The number of threads is capped
+ * however deep bulks are nested. A thread that waits for its bulk runs jobs of that bulk itself, so a nested bulk
+ * makes progress even when all threads are busy running its parents.
+ * <p>
+ * The cap defaults to four threads per processor and can be changed using the {@value #MAX_THREADS_PROPERTY} system
+ * property.
+ */
+public final class BulkScheduler {
+    static final String MAX_THREADS_PROPERTY = "xill.runBulk.maxThreads";
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static XillThreadFactory threadFactory = new XillThreadFactoryImpl();
+    private static BulkScheduler instance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Deque<Bulk> bulks = new ArrayDeque<>();
+    private final XillThreadFactory factory;
+    private final int maxThreads;
+    private int threadCount;
+    private int idleCount;
+    private int queuedJobs;
+    private int threadNumber;
+
+    /**
+     * Create a scheduler.
+     *
+     * @param factory    creates the threads of the pool
+     * @param maxThreads the maximum number of threads
+     */
+    BulkScheduler(XillThreadFactory factory, int maxThreads) {
+        this.factory = factory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Set the factory that creates the threads of the shared pool.
+     *
+     * @param factory the factory
+     */
+    public static synchronized void setThreadFactory(XillThreadFactory factory) {
+        if (threadFactory != factory) {
+            threadFactory = factory;
+            // Threads of the previous pool finish their jobs and stop when they are idle
+            instance = null;
+        }
+    }
+
+    /**
+     * @return the shared scheduler
+     */
+    public static synchronized BulkScheduler getInstance() {
+        if (instance == null) {
+            int defaultMaxThreads = Runtime.getRuntime().availableProcessors() * 4;
+            instance = new BulkScheduler(threadFactory, Math.max(1, Integer.getInteger(MAX_THREADS_PROPERTY, defaultMaxThreads)));
+        }
+        return instance;
+    }
+
+    /**
+     * Open a new bulk.
+     *
+     * @param maxThreads the maximum number of jobs of this bulk that run at the same time
+     * @param maxJobs    the maximum number of jobs of this bulk that are running or waiting for a thread
+     * @return the bulk
+     */
+    public Bulk open(int maxThreads, int maxJobs) {
+        return new Bulk(maxThreads, Math.max(maxThreads, maxJobs));
+    }
+
+    /**
+     * Make sure a thread will pick up the queued jobs of a bulk. The lock must be held.
+     */
+    private void schedule(Bulk bulk) {
+        if (!bulk.scheduled) {
+            bulk.scheduled = true;
+            bulks.add(bulk);
+        }
+        if (idleCount < queuedJobs && threadCount < maxThreads) {
+            startThread();
+        }
+        workAvailable.signal();
+    }
+
+    private void startThread() {
+        Thread thread = factory.create(this::work, "RunBulk Worker " + (++threadNumber));
+        thread.setDaemon(true);
+        thread.start();
+        threadCount++;
+    }
+
+    private void work() {
+        try {
+            Runnable job;
+            while ((job = take()) != null) {
+                job.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.lock();
+            try {
+                threadCount--;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait for the next job.
+     *
+     * @return the job or null if no job was available for {@link #KEEP_ALIVE_NANOS}
+     */
+    private Runnable take() throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = KEEP_ALIVE_NANOS;
+            while (true) {
+                Runnable job = poll();
+                if (job != null || nanos <= 0) {
+                    return job;
+                }
+                idleCount++;
+                try {
+                    nanos = workAvailable.awaitNanos(nanos);
+                } finally {
+                    idleCount--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take a job from the next bulk that has one it may start. The lock must be held.
+     */
+    private Runnable poll() {
+        for (int i = bulks.size(); i > 0; i--) {
+            Bulk bulk = bulks.poll();
+            Runnable job = bulk.start();
+            if (bulk.queue.isEmpty()) {
+                bulk.scheduled = false;
+            } else {
+                bulks.add(bulk);
+            }
+            if (job != null) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The jobs of a single runBulk call or parallel stage.
+     */
+    public final class Bulk {
+        private final int maxThreads;
+        private final int maxJobs;
+        private final Deque<Runnable> queue = new ArrayDeque<>();
+        private final Condition changed = lock.newCondition();
+        private int running;
+        private long finished;
+        private boolean scheduled;
+
+        private Bulk(int maxThreads, int maxJobs) {
+            this.maxThreads = maxThreads;
+            this.maxJobs = maxJobs;
+        }
+
+        /**
+         * Queue a job. While the bulk is full the calling thread runs queued jobs of this bulk itself.
+         *
+         * @param job the job
+         * @throws InterruptedException if the thread is interrupted while waiting for room in the queue
+         */
+        public void submit(Runnable job) throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.size() + running >= maxJobs) {
+                    if (!help()) {
+                        changed.await();
+                    }
+                }
+                queue.add(job);
+                queuedJobs++;
+                schedule(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Wait until all jobs are done, running queued jobs on the calling thread.
+         */
+        public void awaitDone() {
+            lock.lock();
+            try {
+                while (!queue.isEmpty() || running > 0) {
+                    if (!help()) {
+                        changed.awaitUninterruptibly();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the number of jobs that have finished so far
+         */
+        public long getFinished() {
+            lock.lock();
+            try {
+                return finished;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Wait until another job finishes, running queued jobs on the calling thread.
+         * Returns immediately if no jobs are left.
+         *
+         * @param seen the number of finished jobs the caller has seen
+         */
+        public void awaitProgress(long seen) {
+            lock.lock();
+            try {
+                while (finished == seen && (!queue.isEmpty() || running > 0)) {
+                    if (!help()) {
+                        changed.awaitUninterruptibly();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Drop all jobs that have not been started.
+         */
+        public void cancel() {
+            lock.lock();
+            try {
+                queuedJobs -= queue.size();
+                queue.clear();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Run a queued job on the calling thread. The lock must be held, it is released while the job runs.
+         *
+         * @return true if a job was run
+         */
+        private boolean help() {
+            Runnable job = start();
+            if (job == null) {
+                return false;
+            }
+            lock.unlock();
+            try {
+                job.run();
+            } finally {
+                lock.lock();
+            }
+            return true;
+        }
+
+        /**
+         * Take a job if this bulk may start one. The lock must be held.
+         */
+        private Runnable start() {
+            if (running >= maxThreads || queue.isEmpty()) {
+                return null;
+            }
+            Runnable job = queue.poll();
+            queuedJobs--;
+            running++;
+            return () -> {
+                try {
+                    job.run();
+                } finally {
+                    finish();
+                }
+            };
+        }
+
+        private void finish() {
+            lock.lock();
+            try {
+                running--;
+                finished++;
+                changed.signalAll();
+                if (!queue.isEmpty()) {
+                    workAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
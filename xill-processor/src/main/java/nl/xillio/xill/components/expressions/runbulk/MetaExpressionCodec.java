@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.api.components.BooleanBehavior;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.NumberBehavior;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.*;
+
+/**
+ * A compact binary encoding of {@link MetaExpression} values, used to send items to runBulk worker processes.
+ * <p>
+ * Every value starts with a tag byte. Lengths and integers are written as variable length numbers, so small values
+ * take a single byte. Only the value is encoded: metadata is dropped and binary streams are sent as their string
+ * value.
+ */
+public final class MetaExpressionCodec {
+    private static final byte NULL_TAG = 0;
+    private static final byte FALSE_TAG = 1;
+    private static final byte TRUE_TAG = 2;
+    private static final byte INT_TAG = 3;
+    private static final byte LONG_TAG = 4;
+    private static final byte DOUBLE_TAG = 5;
+    private static final byte DECIMAL_TAG = 6;
+    private static final byte STRING_TAG = 7;
+    private static final byte LIST_TAG = 8;
+    private static final byte OBJECT_TAG = 9;
+
+    private MetaExpressionCodec() {
+        // Utility class
+    }
+
+    /**
+     * Write a value.
+     *
+     * @param expression the value
+     * @param output     the output to write to
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if the value contains itself
+     */
+    public static void write(MetaExpression expression, DataOutput output) throws IOException {
+        write(expression, output, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static void write(MetaExpression expression, DataOutput output, Set<MetaExpression> parents) throws IOException {
+        switch (expression.getType()) {
+            case LIST:
+                enter(expression, parents);
+                List<MetaExpression> list = expression.getValue();
+                output.writeByte(LIST_TAG);
+                writeVarInt(list.size(), output);
+                for (MetaExpression element : list) {
+                    write(element, output, parents);
+                }
+                parents.remove(expression);
+                break;
+            case OBJECT:
+                enter(expression, parents);
+                Map<String, MetaExpression> object = expression.getValue();
+                output.writeByte(OBJECT_TAG);
+                writeVarInt(object.size(), output);
+                for (Map.Entry<String, MetaExpression> entry : object.entrySet()) {
+                    writeString(entry.getKey(), output);
+                    write(entry.getValue(), output, parents);
+                }
+                parents.remove(expression);
+                break;
+            default:
+                writeAtomic(expression, output);
+        }
+    }
+
+    private static void enter(MetaExpression expression, Set<MetaExpression> parents) {
+        if (!parents.add(expression)) {
+            throw new IllegalArgumentException("A value that contains itself cannot be encoded");
+        }
+    }
+
+    private static void writeAtomic(MetaExpression expression, DataOutput output) throws IOException {
+        Object behavior = expression.getValue();
+        if (expression.isNull()) {
+            output.writeByte(NULL_TAG);
+        } else if (behavior instanceof BooleanBehavior) {
+            output.writeByte(expression.getBooleanValue() ? TRUE_TAG : FALSE_TAG);
+        } else if (behavior instanceof NumberBehavior) {
+            writeNumber(expression.getNumberValue(), output);
+        } else {
+            output.writeByte(STRING_TAG);
+            writeString(expression.getStringValue(), output);
+        }
+    }
+
+    private static void writeNumber(Number number, DataOutput output) throws IOException {
+        if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            output.writeByte(INT_TAG);
+            writeVarInt((number.intValue() << 1) ^ (number.intValue() >> 31), output);
+        } else if (number instanceof Long) {
+            output.writeByte(LONG_TAG);
+            writeVarLong((number.longValue() << 1) ^ (number.longValue() >> 63), output);
+        } else if (number instanceof Double || number instanceof Float) {
+            output.writeByte(DOUBLE_TAG);
+            output.writeDouble(number.doubleValue());
+        } else {
+            output.writeByte(DECIMAL_TAG);
+            writeString(number.toString(), output);
+        }
+    }
+
+    /**
+     * Read a value.
+     *
+     * @param input the input to read from
+     * @return the value
+     * @throws IOException if reading fails or the input does not hold a value
+     */
+    public static MetaExpression read(DataInput input) throws IOException {
+        byte tag = input.readByte();
+        switch (tag) {
+            case NULL_TAG:
+                return NULL;
+            case FALSE_TAG:
+                return FALSE;
+            case TRUE_TAG:
+                return TRUE;
+            case INT_TAG:
+                int zigzagInt = readVarInt(input);
+                return fromValue((zigzagInt >>> 1) ^ -(zigzagInt & 1));
+            case LONG_TAG:
+                long zigzagLong = readVarLong(input);
+                return fromValue((zigzagLong >>> 1) ^ -(zigzagLong & 1));
+            case DOUBLE_TAG:
+                return fromValue(input.readDouble());
+            case DECIMAL_TAG:
+                return fromValue(new BigDecimal(readString(input)));
+            case STRING_TAG:
+                return fromValue(readString(input));
+            case LIST_TAG:
+                int listSize = readVarInt(input);
+                List<MetaExpression> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(read(input));
+                }
+                return fromValue(list);
+            case OBJECT_TAG:
+                int objectSize = readVarInt(input);
+                LinkedHashMap<String, MetaExpression> object = new LinkedHashMap<>();
+                for (int i = 0; i < objectSize; i++) {
+                    String key = readString(input);
+                    object.put(key, read(input));
+                }
+                return fromValue(object);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes. Unlike {@link DataOutput#writeUTF(String)} this
+     * has no length limit.
+     *
+     * @param value  the string
+     * @param output the output to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeString(String value, DataOutput output) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, output);
+        output.write(bytes);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(String, DataOutput)}.
+     *
+     * @param input the input to read from
+     * @return the string
+     * @throws IOException if reading fails
+     */
+    public static String readString(DataInput input) throws IOException {
+        byte[] bytes = new byte[readVarInt(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(int value, DataOutput output) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    private static void writeVarLong(long value, DataOutput output) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+
+    private static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+
+    private static long readVarLong(DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+}
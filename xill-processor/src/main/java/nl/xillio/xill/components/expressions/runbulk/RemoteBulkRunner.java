@@ -0,0 +1,460 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import me.biesaart.utils.Log;
+import nl.xillio.xill.api.components.EventEx;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static nl.xillio.xill.components.expressions.runbulk.RemoteBulkWorker.*;
+
+/**
+ * Distributes the items of a {@link RunBulkExpression runBulk} call over {@link RemoteBulkWorker worker processes}.
+ * <p>
+ * Every worker runs one item at a time and gets a few more items sent ahead, so it never waits for the network.
+ * Items go to whichever worker has room first. Run counts and errors are reported back to the {@link RunBulkControl}.
+ * <p>
+ * The results that the workers send back are queued and handled by the thread that calls {@link #run(Iterator)}, so
+ * the debugger and the journal are only used from that thread. That thread waits for a result whenever no worker has
+ * room, or until the bulk is stopped.
+ */
+class RemoteBulkRunner {
+    /**
+     * The system property that holds the class path of launched worker processes. By default the class path of this
+     * process is used, which only works when xill was loaded from it.
+     */
+    static final String WORKER_CLASS_PATH_PROPERTY = "xill.runbulk.classpath";
+    private static final Logger LOGGER = Log.get();
+    private static final long EXIT_TIMEOUT_SECONDS = 10;
+    // Wakes up the calling thread without a result, e.g. when the bulk is stopped
+    private static final Result WAKE_UP = new Result(null, null, null);
+
+    private final RunBulkControl control;
+    private final boolean stopOnError;
+    private final int window;
+    private final RunBulkJournal journal;
+    // One entry for every item a worker has room for, only used by the calling thread
+    private final Deque<Connection> slots = new ArrayDeque<>();
+    private final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+
+    /**
+     * Create a runner.
+     *
+     * @param control     Controls the bulk
+     * @param stopOnError Whether to stop the bulk when an error occurs
+     * @param window      The number of items a worker may have at the same time
+     * @param journal     The journal that records the items, or null
+     */
+    RemoteBulkRunner(RunBulkControl control, boolean stopOnError, int window, RunBulkJournal journal) {
+        this.control = control;
+        this.stopOnError = stopOnError;
+        this.window = window;
+        this.journal = journal;
+    }
+
+    /**
+     * Start worker processes using the java installation of this process. Every launch gets a token of its own, which
+     * is handed to the processes on their input.
+     *
+     * @param count            The number of processes
+     * @param workingDirectory The working directory of the robots
+     * @param robotPaths       The directories that hold the robots
+     * @throws IOException if a process could not be started
+     */
+    void launch(int count, Path workingDirectory, List<Path> robotPaths) throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", workerClassPath(),
+                RemoteBulkWorker.class.getName(),
+                "0",
+                workingDirectory.toString()));
+        String paths = robotPaths.stream().filter(Objects::nonNull).map(Path::toString).collect(Collectors.joining(File.pathSeparator));
+        if (!paths.isEmpty()) {
+            command.add(paths);
+        }
+        String token = RemoteBulkWorker.newToken();
+
+        List<Process> processes = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                processes.add(process);
+                try (Writer input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+                    input.write(token + "\n");
+                }
+            }
+            for (int i = 0; i < processes.size(); i++) {
+                Process process = processes.get(i);
+                String name = "worker process " + (i + 1);
+                int port = awaitPort(name, process);
+                connections.add(open(name, new Socket(InetAddress.getLoopbackAddress(), port), token, process));
+            }
+        } catch (IOException e) {
+            processes.forEach(RemoteBulkRunner::stop);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the class path for worker processes.
+     *
+     * @return the class path
+     * @throws IOException if xill was not loaded from the class path of this process and no class path was configured
+     */
+    private static String workerClassPath() throws IOException {
+        String classPath = System.getProperty(WORKER_CLASS_PATH_PROPERTY);
+        if (classPath != null) {
+            return classPath;
+        }
+        if (RemoteBulkWorker.class.getClassLoader() != ClassLoader.getSystemClassLoader()) {
+            throw new IOException("The \"processes\" option cannot be used here because xill was not loaded from the class path. " +
+                    "Set the " + WORKER_CLASS_PATH_PROPERTY + " system property or use the \"workers\" option");
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    /**
+     * Wait until a started process accepts connections, logging its output.
+     *
+     * @return the port of the process
+     */
+    private static int awaitPort(String name, Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(LISTENING_MESSAGE)) {
+                Thread thread = new Thread(() -> pumpOutput(name, reader), name + " output");
+                thread.setDaemon(true);
+                thread.start();
+                return Integer.parseInt(line.substring(LISTENING_MESSAGE.length()).trim());
+            }
+            LOGGER.info(name + ": " + line);
+        }
+        throw new IOException("The runBulk " + name + " stopped before it accepted connections");
+    }
+
+    private static void pumpOutput(String name, BufferedReader reader) {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LOGGER.info(name + ": " + line);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Stopped reading the output of " + name, e);
+        }
+    }
+
+    /**
+     * Connect to a worker that was started before.
+     *
+     * @param address The address of the worker as token@host:port
+     * @throws IOException if the worker could not be reached
+     */
+    void connect(String address) throws IOException {
+        int at = address.indexOf('@');
+        int separator = address.lastIndexOf(':');
+        if (at < 1 || separator < at) {
+            throw new IOException("The worker address does not have the form token@host:port");
+        }
+        String location = address.substring(at + 1);
+        Socket socket = new Socket(address.substring(at + 1, separator), Integer.parseInt(address.substring(separator + 1)));
+        connections.add(open("worker " + location, socket, address.substring(0, at), null));
+    }
+
+    /**
+     * Start a session on a connection.
+     */
+    private Connection open(String name, Socket socket, String token, Process process) throws IOException {
+        try {
+            socket.setTcpNoDelay(true);
+            Connection connection = new Connection(name, socket, process);
+            connection.output.writeInt(MAGIC);
+            connection.output.writeByte(VERSION);
+            MetaExpressionCodec.writeString(token, connection.output);
+            MetaExpressionCodec.writeString(control.getCalledRobotFqn(), connection.output);
+            connection.output.writeBoolean(stopOnError);
+            connection.output.flush();
+            int status = connection.input.read();
+            if (status < 0) {
+                throw new IOException("The runBulk " + name + " refused the session, check its token");
+            }
+            if (status != SESSION_OK) {
+                throw new RobotRuntimeException(MetaExpressionCodec.readString(connection.input));
+            }
+            connection.reader.start();
+            for (int i = 0; i < window; i++) {
+                slots.add(connection);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            if (process != null) {
+                stop(process);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Send every item in the source to a worker and wait until all workers are done.
+     *
+     * @param source The items to process
+     */
+    void run(Iterator<MetaExpression> source) {
+        EventEx<Object> interrupt = control.getDebugger().getOnRobotInterrupt();
+        Consumer<Object> wakeUp = e -> results.add(WAKE_UP);
+        if (interrupt != null) {
+            interrupt.addListener(wakeUp);
+        }
+        try {
+            while (!isStopped() && source.hasNext()) {
+                Connection connection = takeSlot();
+                if (connection == null) {
+                    break;
+                }
+                MetaExpression item = source.next();
+                try {
+                    connection.send(item, journal == null ? null : journal.ids(Collections.singletonList(item)));
+                } catch (IOException e) {
+                    control.signalError(new RobotRuntimeException("Could not send an item to the runBulk " + connection.name, e));
+                }
+            }
+        } finally {
+            try {
+                close();
+            } finally {
+                if (interrupt != null) {
+                    interrupt.removeListener(wakeUp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until a worker has room for an item, handling the results that come in.
+     *
+     * @return the worker or null if the bulk was stopped
+     */
+    private Connection takeSlot() {
+        try {
+            handleResults();
+            while (slots.isEmpty()) {
+                if (isStopped()) {
+                    return null;
+                }
+                handle(results.take());
+            }
+            return isStopped() ? null : slots.poll();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for a runBulk worker", e);
+            control.signalStop();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * End all sessions. Unless the bulk was stopped the workers first finish the items they have.
+     */
+    void close() {
+        boolean abort = isStopped();
+        for (Connection connection : connections) {
+            connection.close(abort);
+        }
+        connections.clear();
+        // Handle the results the workers sent while they finished
+        handleResults();
+        slots.clear();
+    }
+
+    private boolean isStopped() {
+        return control.shouldStop() || control.getDebugger().shouldStop();
+    }
+
+    /**
+     * Handle the results that came in without waiting for more.
+     */
+    private void handleResults() {
+        Result result;
+        while ((result = results.poll()) != null) {
+            handle(result);
+        }
+    }
+
+    private void handle(Result result) {
+        if (result.connection != null) {
+            handleResult(result.connection, result.ids, result.error);
+            slots.add(result.connection);
+        }
+    }
+
+    private void handleResult(Connection connection, long[] ids, String error) {
+        if (journal != null && ids != null && ids.length > 0) {
+            journal.record(ids, error == null);
+        }
+        if (error == null) {
+            control.incRunCount();
+            return;
+        }
+        if (stopOnError) {
+            control.signalStop();
+        }
+        try {
+            control.getDebugger().handle(new RobotRuntimeException("Caused by '" + control.getCalledRobotFqn() + "' in the runBulk " + connection.name + ": " + error));
+        } catch (RuntimeException e) {
+            control.signalError(e);
+        }
+    }
+
+    private static void stop(Process process) {
+        process.destroy();
+        try {
+            if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The outcome of an item, as sent back by a worker.
+     */
+    private static final class Result {
+        private final Connection connection;
+        private final long[] ids;
+        private final String error;
+
+        private Result(Connection connection, long[] ids, String error) {
+            this.connection = connection;
+            this.ids = ids;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A session with a single worker.
+     */
+    private final class Connection {
+        private final String name;
+        private final Socket socket;
+        private final Process process;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+        private final Thread reader;
+        // The journal ids of the items that were sent, an empty array if no journal is kept
+        private final Deque<long[]> inFlight = new ArrayDeque<>();
+        private volatile boolean closing;
+        private volatile boolean aborted;
+
+        private Connection(String name, Socket socket, Process process) throws IOException {
+            this.name = name;
+            this.socket = socket;
+            this.process = process;
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            reader = new Thread(this::readResults, "runBulk " + name + " results");
+            reader.setDaemon(true);
+        }
+
+        private void send(MetaExpression item, long[] ids) throws IOException {
+            synchronized (inFlight) {
+                inFlight.add(ids == null ? new long[0] : ids);
+            }
+            output.writeByte(ITEM);
+            MetaExpressionCodec.write(item, output);
+            output.flush();
+        }
+
+        private void readResults() {
+            try {
+                while (true) {
+                    byte outcome = input.readByte();
+                    String error = outcome == RUN_FAILED ? MetaExpressionCodec.readString(input) : null;
+                    long[] ids;
+                    synchronized (inFlight) {
+                        ids = inFlight.poll();
+                    }
+                    results.add(new Result(this, ids, error));
+                }
+            } catch (IOException e) {
+                boolean idle;
+                synchronized (inFlight) {
+                    idle = inFlight.isEmpty();
+                }
+                if (!aborted && (!closing || !idle)) {
+                    control.signalError(new RobotRuntimeException("The runBulk " + name + " stopped before it finished its items", e));
+                }
+                results.add(WAKE_UP);
+            }
+        }
+
+        private void close(boolean abort) {
+            closing = true;
+            aborted = abort;
+            try {
+                if (!abort) {
+                    output.writeByte(END);
+                    output.flush();
+                    join();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Could not end the session with the runBulk " + name, e);
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not close the connection to the runBulk " + name, e);
+                }
+                join();
+                if (process != null) {
+                    stop(process);
+                }
+            }
+        }
+
+        private void join() {
+            boolean interrupted = false;
+            while (reader.isAlive()) {
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import me.biesaart.utils.Log;
+import nl.xillio.xill.XillEnvironmentImpl;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.DefaultOutputHandler;
+import nl.xillio.xill.api.StoppableDebugger;
+import nl.xillio.xill.api.XillEnvironment;
+import nl.xillio.xill.api.XillProcessor;
+import nl.xillio.xill.api.components.Instruction;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.errors.XillParsingException;
+import nl.xillio.xill.components.RobotRun;
+import nl.xillio.xill.debugging.ProductionDebugger;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Runs the items that a {@link RunBulkExpression runBulk} call in another process sends over a local socket.
+ * <p>
+ * Every connection is a session for a single robot, which is compiled once and then runs every item it receives in
+ * order. The outcome of every run is sent back, so the calling process can count runs and report errors.
+ * <p>
+ * A session is only served when it starts with the token the worker was given, so other local users cannot run
+ * robots through it.
+ */
+public class RemoteBulkWorker {
+    /**
+     * The line printed on the output once the worker accepts connections, followed by the port.
+     */
+    public static final String LISTENING_MESSAGE = "runBulk worker listening on port ";
+
+    static final int MAGIC = 0x58424C4B; // "XBLK"
+    static final byte VERSION = 2;
+    static final byte SESSION_OK = 0;
+    static final byte SESSION_FAILED = 1;
+    static final byte ITEM = 1;
+    static final byte END = 0;
+    static final byte RUN_COMPLETED = 0;
+    static final byte RUN_FAILED = 1;
+
+    private static final Logger LOGGER = Log.get();
+    private final XillEnvironment environment;
+    private final Path projectRoot;
+    private final Path[] includePaths;
+    private final byte[] token;
+
+    /**
+     * Create a worker.
+     *
+     * @param environment  the environment that builds the robots
+     * @param projectRoot  the working directory of the robots
+     * @param includePaths the directories that hold the robots
+     * @param token        the token a session must start with
+     */
+    public RemoteBulkWorker(XillEnvironment environment, Path projectRoot, Path[] includePaths, String token) {
+        this.environment = environment;
+        this.projectRoot = projectRoot;
+        this.includePaths = includePaths;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start a worker process for a runBulk call in another process.
+     * The arguments are the port, the working directory and optionally the robot paths separated by the path
+     * separator. The token is read from the first line of the input, so it does not show in the process list.
+     *
+     * @param args the arguments
+     * @throws IOException if the token could not be read or the port could not be opened
+     */
+    @SuppressWarnings("squid:S106") // The calling process reads the port from the output
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: RemoteBulkWorker <port> <workingDirectory> [<robotPaths>]");
+        }
+        Path[] includePaths = args.length < 3 ? new Path[0] :
+                Arrays.stream(args[2].split(File.pathSeparator)).map(Paths::get).toArray(Path[]::new);
+        String token = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+        if (token == null || token.isEmpty()) {
+            throw new IOException("No session token was given on the input");
+        }
+        new RemoteBulkWorker(new XillEnvironmentImpl(), Paths.get(args[1]), includePaths, token)
+                .serve(Integer.parseInt(args[0]), System.out);
+    }
+
+    /**
+     * Create a random token for a worker.
+     *
+     * @return the token
+     */
+    public static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Accept connections on the loopback interface until the process is stopped. Every connection is served by a
+     * thread of its own.
+     *
+     * @param port   the port to listen on, or 0 to pick a free port
+     * @param output the output that receives the {@link #LISTENING_MESSAGE}
+     * @throws IOException if the port could not be opened
+     */
+    public void serve(int port, PrintStream output) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            output.println(LISTENING_MESSAGE + serverSocket.getLocalPort());
+            output.flush();
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> serve(socket), "runBulk session " + socket.getPort());
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Serve a single session.
+     *
+     * @param socket the connection to the calling process
+     */
+    void serve(Socket socket) {
+        try (Socket session = socket;
+             DataInputStream input = new DataInputStream(new BufferedInputStream(session.getInputStream()));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(session.getOutputStream()))) {
+            session.setTcpNoDelay(true);
+            if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+                throw new IOException("The connection does not come from a compatible runBulk");
+            }
+            byte[] sessionToken = MetaExpressionCodec.readString(input).getBytes(StandardCharsets.UTF_8);
+            String robotName = MetaExpressionCodec.readString(input);
+            boolean stopOnError = input.readBoolean();
+            if (!MessageDigest.isEqual(token, sessionToken)) {
+                throw new IOException("The connection did not present the token of this worker");
+            }
+
+            Debugger debugger = new ProductionDebugger();
+            try (XillProcessor processor = compile(robotName, debugger, output)) {
+                if (processor != null) {
+                    runItems(processor, stopOnError, input, output);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("The runBulk session ended unexpectedly", e);
+        }
+    }
+
+    private XillProcessor compile(String robotName, Debugger debugger, DataOutputStream output) throws IOException {
+        XillProcessor processor = null;
+        try {
+            processor = environment.buildProcessor(projectRoot, robotName, debugger, includePaths);
+            processor.compile();
+            output.writeByte(SESSION_OK);
+            output.flush();
+            return processor;
+        } catch (XillParsingException | IOException | RuntimeException e) {
+            LOGGER.error("Could not compile " + robotName, e);
+            if (processor != null) {
+                processor.close();
+            }
+            output.writeByte(SESSION_FAILED);
+            MetaExpressionCodec.writeString("Could not compile " + robotName + " in the worker process: " + e.getMessage(), output);
+            output.flush();
+            return null;
+        }
+    }
+
+    private void runItems(XillProcessor processor, boolean stopOnError, DataInputStream input, DataOutputStream output) throws IOException {
+        Robot robot = processor.getRobot();
+        Debugger debugger = processor.getDebugger();
+        while (input.readByte() == ITEM) {
+            MetaExpression item = MetaExpressionCodec.read(input);
+            String error = run(robot, debugger, stopOnError, item);
+            if (error == null) {
+                output.writeByte(RUN_COMPLETED);
+            } else {
+                output.writeByte(RUN_FAILED);
+                MetaExpressionCodec.writeString(error, output);
+            }
+            // Only flush when the next item is not already waiting
+            if (input.available() == 0) {
+                output.flush();
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Run the robot for a single item.
+     *
+     * @return null if the robot completed, the error otherwise
+     */
+    private String run(Robot robot, Debugger debugger, boolean stopOnError, MetaExpression item) {
+        StoppableDebugger childDebugger = (StoppableDebugger) debugger.createChild();
+        childDebugger.setStopOnError(stopOnError);
+        ErrorCapture capture = new ErrorCapture();
+        childDebugger.setOutputHandler(capture);
+        try {
+            RobotRun.start(childDebugger);
+            robot.setArgument(childDebugger, item);
+            robot.process(childDebugger);
+            return childDebugger.hasErrorOccurred() ? capture.describe() : null;
+        } catch (Exception e) {
+            LOGGER.error("Error while running the robot", e);
+            if (capture.error == null) {
+                ProductionDebugger production = ProductionDebugger.find(childDebugger);
+                capture.inspect(production == null ? null : production.getCurrentInstruction(), e);
+            }
+            return capture.describe();
+        } finally {
+            // Close the processors and values the robot left in its frame
+            childDebugger.getExecutionFrame().release();
+            debugger.removeChild(childDebugger);
+        }
+    }
+
+    /**
+     * Keeps the first error a robot run handled, so its message and line can be sent to the calling process.
+     */
+    private static class ErrorCapture extends DefaultOutputHandler {
+        private Instruction instruction;
+        private Throwable error;
+
+        @Override
+        public void inspect(Instruction instruction, Throwable e) {
+            if (error == null) {
+                this.instruction = instruction;
+                error = e;
+            }
+        }
+
+        private String describe() {
+            if (error == null) {
+                return "An error occurred while running the robot";
+            }
+            String message = error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+            return instruction == null ? message : message + " (line " + instruction.getLineNumber() + ")";
+        }
+    }
+}
@@ -24,6 +24,7 @@ import nl.xillio.xill.loaders.AbstractRobotLoader;
 class RunBulkControl {
     private int runCount = 0;
     private boolean stop = false;
+    private RuntimeException error;
     private final Debugger debugger;
     private final String calledRobotFqn;
     private final AbstractRobotLoader loader;
@@ -61,6 +62,25 @@ class RunBulkControl {
     public synchronized boolean shouldStop() {
         return stop;
     }
+
+    /**
+     * Stop the bulk because a job failed. Only the first error is kept.
+     *
+     * @param e the error
+     */
+    public synchronized void signalError(RuntimeException e) {
+        if (error == null) {
+            error = e;
+        }
+        stop = true;
+    }
+
+    /**
+     * @return the first error that stopped the bulk or null
+     */
+    public synchronized RuntimeException getError() {
+        return error;
+    }
 }
 
 
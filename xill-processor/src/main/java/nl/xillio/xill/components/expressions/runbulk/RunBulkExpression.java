@@ -17,6 +17,8 @@ package nl.xillio.xill.components.expressions.runbulk;
 
 import me.biesaart.utils.Log;
 import nl.xillio.plugins.XillPlugin;
+import nl.xillio.xill.CompiledRobotCache;
+import nl.xillio.xill.LanguageInfrastructure;
 import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.OutputHandler;
 import nl.xillio.xill.api.components.*;
@@ -26,10 +28,9 @@ import nl.xillio.xill.services.files.FileResolver;
 import nl.xillio.xill.services.files.FileResolverImpl;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 import static nl.xillio.xill.api.components.ExpressionDataType.ATOMIC;
 import static nl.xillio.xill.api.components.ExpressionDataType.LIST;
@@ -47,11 +48,10 @@ public class RunBulkExpression implements Processable {
     private Processable argument;
     private final FileResolver resolver;
     private Processable optionsProcessable;
-    private RunBulkOptions options;
     private final OutputHandler outputHandler;
     private final AbstractRobotLoader loader;
-
-    private int maxThreadsVal;
+    private final CompiledRobotCache compiledRobotCache;
+    private final LanguageInfrastructure language;
 
     /**
      * Create a new {@link RunBulkExpression}.
@@ -62,14 +62,18 @@ public class RunBulkExpression implements Processable {
      * @param plugins           the current plugin loader
      * @param outputHandler
      * @param loader
+     * @param compiledRobotCache the cache that holds compiled robots
+     * @param language           the Xtext infrastructure used to compile the called robot
      */
-    public RunBulkExpression(final Path workingDirectory, final Processable path, final RobotID robotID, final List<XillPlugin> plugins, OutputHandler outputHandler, AbstractRobotLoader loader) {
+    public RunBulkExpression(final Path workingDirectory, final Processable path, final RobotID robotID, final List<XillPlugin> plugins, OutputHandler outputHandler, AbstractRobotLoader loader, CompiledRobotCache compiledRobotCache, LanguageInfrastructure language) {
         this.workingDirectory = workingDirectory;
         this.path = path;
         this.robotID = robotID;
         this.plugins = plugins;
         this.outputHandler = outputHandler;
         this.loader = loader;
+        this.compiledRobotCache = compiledRobotCache;
+        this.language = language;
         resolver = new FileResolverImpl();
     }
 
@@ -82,10 +86,8 @@ public class RunBulkExpression implements Processable {
             throw new RobotRuntimeException("Called robot " + otherRobot + " does not exist.");
         }
 
-        options = new RunBulkOptions(optionsProcessable);
-        int robotRunCount = runBulk(debugger, otherRobot, loader);
-
-        return InstructionFlow.doResume(ExpressionBuilderHelper.fromValue(robotRunCount));
+        RunBulkOptions options = new RunBulkOptions(optionsProcessable, debugger);
+        return InstructionFlow.doResume(runBulk(debugger, otherRobot, loader, options));
     }
 
     private Iterator<MetaExpression> getIterator(final MetaExpression result) {
@@ -113,105 +115,193 @@ public class RunBulkExpression implements Processable {
     /**
      * Run the called robot multiple times.
      *
-     * @return The number of robot runs
+     * @return The number of robot runs or, if results are collected, an iterator over the values returned by the robots
      */
-    private int runBulk(final Debugger debugger, final String calledRobotQualifiedName, final AbstractRobotLoader loader) {
+    private MetaExpression runBulk(final Debugger debugger, final String calledRobotQualifiedName, final AbstractRobotLoader loader, final RunBulkOptions options) {
         // Evaluate argument
-        if (argument == null) {
-            return 0; // Nothing to do
+        Iterator<MetaExpression> source = null;
+        if (argument != null) {
+            InstructionFlow<MetaExpression> argumentResult = argument.process(debugger);
+            source = getIterator(argumentResult.get());
+        }
+        if (source == null) {// Nothing to do
+            source = Collections.emptyIterator();
+            if (!options.shouldCollectResults()) {
+                return ExpressionBuilderHelper.fromValue(0);
+            }
         }
 
-        maxThreadsVal = options.getMaxThreadsVal();
+        int maxThreadsVal = options.getMaxThreadsVal();
         if (maxThreadsVal == 0) {// Default value equals the number of logical cores
             maxThreadsVal = Runtime.getRuntime().availableProcessors();
         }
 
-        // Get argument iterator
-        InstructionFlow<MetaExpression> argumentResult = argument.process(debugger);
-        Iterator<MetaExpression> source = getIterator(argumentResult.get());
-        if (source == null) {
-            return 0;
+        int prefetch = options.getPrefetch();
+        if (prefetch < 0) {// By default a job is waiting for every worker
+            prefetch = maxThreadsVal;
         }
 
-        BlockingQueue<MetaExpression> queue = new ArrayBlockingQueue<>(maxThreadsVal);
         RunBulkControl control = new RunBulkControl(debugger, calledRobotQualifiedName, loader);
+        WorkerRobotFactory robotFactory = new WorkerRobotFactory(workingDirectory, robotID, plugins, outputHandler, compiledRobotCache, language);
+        Worker worker = new Worker(control, options.shouldStopOnError(), robotFactory);
 
-        // Start master thread
-        Thread master = new MasterThread(source, queue, control);
-        master.start();
+        if (options.isRemote() && options.shouldCollectResults()) {
+            throw new RobotRuntimeException("The \"collectResults\" option cannot be combined with worker processes");
+        }
 
-        // Start workers
-        List<Thread> workingThreads = spawnWorkers(queue, control);
+        RunBulkJournal journal = openJournal(options);
+        if (journal != null) {
+            worker.setJournal(journal);
+            source = journal.skipCompleted(source);
+        }
 
-        // Wait for master to complete
-        try {
-            master.join();
-        } catch (InterruptedException e) {
-            LOGGER.error("Interrupted while waiting for join", e);
-            Thread.currentThread().interrupt();
+        if (options.isRemote()) {
+            try {
+                runRemote(source, control, options, journal);
+            } finally {
+                if (journal != null) {
+                    closeJournal(journal);
+                }
+            }
+            if (control.getError() != null) {
+                throw control.getError();
+            }
+            return ExpressionBuilderHelper.fromValue(control.getRunCount());
         }
 
-        waitUntilDone(queue, control);
+        BulkScheduler.Bulk bulk = BulkScheduler.getInstance().open(maxThreadsVal, maxThreadsVal + prefetch);
 
-        control.signalStop();
+        if (options.shouldCollectResults()) {
+            int resultBuffer = options.getResultBuffer();
+            if (resultBuffer < 0) {// By default a result is waiting for every worker
+                resultBuffer = maxThreadsVal;
+            }
+            RunBulkResultIterator results = new RunBulkResultIterator(source, bulk, worker, control, options, maxThreadsVal + prefetch, resultBuffer);
+            results.setJournal(journal);
+            MetaExpression result = ExpressionBuilderHelper.fromValue("[runBulk results of " + calledRobotQualifiedName + "]");
+            result.storeMeta(new MetaExpressionIterator<>(results, item -> item));
+            return result;
+        }
 
-        joinThreads(workingThreads);
+        try {
+            submitJobs(source, bulk, worker, control, options);
+        } finally {
+            if (journal != null) {
+                closeJournal(journal);
+            }
+        }
 
-        return control.getRunCount();
+        if (control.getError() != null) {
+            throw control.getError();
+        }
+        return ExpressionBuilderHelper.fromValue(control.getRunCount());
     }
 
     /**
-     * Create {@link RunBulkOptions#getMaxThreadsVal()} worker threads and start them.
+     * Submit a job for every chunk of items in the source and wait until all jobs are done.
+     * The source is iterated on the calling thread.
      *
-     * @param queue The queue to pass to the workers
-     * @param control The control to pass to the workers
-     * @return The worker threads
+     * @param source  The items to process
+     * @param bulk    The bulk running the jobs
+     * @param worker  The worker that processes a chunk
+     * @param control Controls the bulk
+     * @param options The options deciding the chunk size and mode
      */
-    private List<Thread> spawnWorkers(BlockingQueue<MetaExpression> queue, RunBulkControl control) {
-        // Start working threads
-        List<Thread> workingThreads = new LinkedList<>();
-        WorkerRobotFactory robotFactory = new WorkerRobotFactory(workingDirectory, robotID, plugins, outputHandler);
-        for (int i = 0; i < maxThreadsVal; i++) {
-            Thread worker = new WorkerThread(queue, control, options.shouldStopOnError(), robotFactory);
-            worker.start();
-            workingThreads.add(worker);
-        }
-        return workingThreads;
+    private void submitJobs(Iterator<MetaExpression> source, BulkScheduler.Bulk bulk, Worker worker, RunBulkControl control, RunBulkOptions options) {
+        int chunkSize = options.getChunkSize();
+        boolean asIterator = options.isChunkAsIterator();
+        try {
+            while (!control.shouldStop() && !control.getDebugger().shouldStop() && source.hasNext()) {
+                bulk.submit(worker.createJob(nextChunk(source, chunkSize), asIterator));
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while submitting jobs", e);
+            control.signalStop();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (control.shouldStop()) {
+                bulk.cancel();
+            }
+            bulk.awaitDone();
+        }
     }
 
     /**
-     * Wait until either the queue is empty or we should stop due to some other reason signalled by {@link RunBulkControl}.
+     * Run the items in worker processes instead of threads.
      *
-     * @param queue The queue to wait for to become empty
-     * @param control Stop waiting when the control signals to stop
+     * @param source  The items to process
+     * @param control Controls the bulk
+     * @param options The options naming the worker processes
+     * @param journal The journal that records the items, or null
      */
-    private void waitUntilDone(BlockingQueue<MetaExpression> queue, RunBulkControl control) {
-        // Wait for until entire queue is processed
-        while (!control.shouldStop() && !queue.isEmpty()) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                LOGGER.error("Interrupted while sleeping", e);
-                Thread.currentThread().interrupt();
+    private void runRemote(Iterator<MetaExpression> source, RunBulkControl control, RunBulkOptions options, RunBulkJournal journal) {
+        int prefetch = options.getPrefetch();
+        if (prefetch < 0) {// By default a single item is waiting in every worker
+            prefetch = 1;
+        }
+        RemoteBulkRunner runner = new RemoteBulkRunner(control, options.shouldStopOnError(), 1 + prefetch, journal);
+        try {
+            for (String address : options.getWorkers()) {
+                runner.connect(address);
             }
+            if (options.getProcesses() > 0) {
+                runner.launch(options.getProcesses(), workingDirectory, loader.getBasePaths());
+            }
+        } catch (IOException e) {
+            runner.close();
+            throw new RobotRuntimeException("Could not start the runBulk worker processes: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            runner.close();
+            throw e;
         }
+        runner.run(source);
     }
 
     /**
-     * Join all threads and wait until they are joined.
+     * Open the journal given in the options.
      *
-     * @param workingThreads The threads to join
+     * @param options The options
+     * @return The journal or null if no journal should be kept
      */
-    private void joinThreads(List<Thread> workingThreads) {
-        // Wait for all worker threads to complete
-        workingThreads.forEach(t -> {
-            try {
-                t.join();
-            } catch (InterruptedException e) {
-                LOGGER.error("Interrupted while waiting for join", e);
-                Thread.currentThread().interrupt();
-            }
-        });
+    private RunBulkJournal openJournal(RunBulkOptions options) {
+        if (options.getJournal() == null) {
+            return null;
+        }
+        Path file = workingDirectory.resolve(options.getJournal());
+        try {
+            return RunBulkJournal.open(file, options.getJournalKey());
+        } catch (IOException e) {
+            throw new RobotRuntimeException("Could not open the runBulk journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the remaining records of a journal and close it.
+     *
+     * @param journal The journal
+     */
+    static void closeJournal(RunBulkJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.error("Could not close the runBulk journal", e);
+        }
+    }
+
+    /**
+     * Take the next chunk of items from a source that has at least one item left.
+     * The items are shared because they will be processed by another thread.
+     *
+     * @param source    The items to process
+     * @param chunkSize The maximum number of items in the chunk
+     * @return The chunk
+     */
+    static List<MetaExpression> nextChunk(Iterator<MetaExpression> source, int chunkSize) {
+        List<MetaExpression> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && source.hasNext()) {
+            chunk.add(source.next().share());
+        }
+        return chunk;
     }
 
     @Override
@@ -0,0 +1,345 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.hash.Hashing;
+import me.biesaart.utils.Log;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only file that records which items of a {@link RunBulkExpression runBulk} call were processed, so a
+ * restarted bulk can skip the items that were completed before.
+ * <p>
+ * After a header the file holds fixed size records of a status byte and a 64 bit hash of the item id. Records are
+ * written in batches and every batch is synced to disk, so a crash loses at most the last batch and those items are
+ * processed again. A record that was only partially written is dropped when the journal is opened.
+ * <p>
+ * The id of an item is taken when the item is taken from the source, before a robot can change or close it.
+ */
+class RunBulkJournal implements AutoCloseable {
+    private static final Logger LOGGER = Log.get();
+    private static final int MAGIC = 0x584A4E4C; // "XJNL"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int RECORD_SIZE = 9;
+    private static final byte COMPLETED = 1;
+    private static final byte FAILED = 2;
+    private static final int BATCH_SIZE = 4096;
+    private static final long SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final FileChannel channel;
+    private final String idKey;
+    private final LongSet completed;
+    // The ids of items that were taken by skipCompleted but not yet by ids. The keys are weak and compared by identity,
+    // so items that are dropped before they are run, e.g. because the bulk stopped, are not kept alive
+    private final Map<MetaExpression, Long> takenIds = new MapMaker().weakKeys().makeMap();
+    private final ByteBuffer batch = ByteBuffer.allocate(RECORD_SIZE * BATCH_SIZE);
+    private long lastSync = System.nanoTime();
+    private boolean broken;
+
+    private RunBulkJournal(FileChannel channel, String idKey, LongSet completed) {
+        this.channel = channel;
+        this.idKey = idKey;
+        this.completed = completed;
+    }
+
+    /**
+     * Open a journal, creating the file if it does not exist.
+     *
+     * @param file  the journal file
+     * @param idKey the key holding the id of OBJECT items, or null to use the string value of the items as id
+     * @return the journal
+     * @throws IOException if the file could not be read or is not a journal
+     */
+    static RunBulkJournal open(Path file, String idKey) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            LongSet completed = new LongSet();
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                load(channel, file, completed);
+            }
+            return new RunBulkJournal(channel, idKey, completed);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void load(FileChannel channel, Path file, LongSet completed) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is complete
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.get() != VERSION) {
+            throw new IOException(file + " is not a runBulk journal");
+        }
+
+        long end = HEADER_SIZE + (channel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * BATCH_SIZE * 4);
+        long position = HEADER_SIZE;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte status = buffer.get();
+                long hash = buffer.getLong();
+                if (status == COMPLETED) {
+                    completed.add(hash);
+                }
+            }
+            position += buffer.limit();
+        }
+
+        // Drop a partially written record
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    /**
+     * @param item an item of the bulk
+     * @return true if the item was completed before
+     */
+    synchronized boolean isCompleted(MetaExpression item) {
+        return completed.contains(hash(item));
+    }
+
+    /**
+     * Take an item from the source, remembering its id if it still needs to be processed.
+     *
+     * @param item an item of the bulk
+     * @return true if the item was completed before
+     */
+    private synchronized boolean take(MetaExpression item) {
+        long id = hash(item);
+        if (completed.contains(id)) {
+            return true;
+        }
+        takenIds.put(item, id);
+        return false;
+    }
+
+    /**
+     * Get the ids of items that were taken from the source. This must be called before the items are handed to a
+     * robot, which may change or close them.
+     *
+     * @param items the items, null items get id 0 and are never recorded
+     * @return the ids of the items, in the same order
+     */
+    synchronized long[] ids(List<MetaExpression> items) {
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            MetaExpression item = items.get(i);
+            if (item != null) {
+                Long id = takenIds.remove(item);
+                ids[i] = id != null ? id : hash(item);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Skip the items that were completed before.
+     *
+     * @param source the items of the bulk
+     * @return the items that still need to be processed
+     */
+    Iterator<MetaExpression> skipCompleted(Iterator<MetaExpression> source) {
+        return new Iterator<MetaExpression>() {
+            private MetaExpression next;
+            private long skipped;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && source.hasNext()) {
+                    MetaExpression item = source.next();
+                    if (take(item)) {
+                        skipped++;
+                    } else {
+                        next = item;
+                    }
+                }
+                if (next == null && skipped > 0) {
+                    LOGGER.info("Skipped " + skipped + " items that were completed in an earlier run");
+                    skipped = 0;
+                }
+                return next != null;
+            }
+
+            @Override
+            public MetaExpression next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MetaExpression item = next;
+                next = null;
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Record the outcome of a robot run.
+     *
+     * @param ids       the {@link #ids(List) ids} of the items processed by the run
+     * @param succeeded whether the run completed without errors
+     */
+    synchronized void record(long[] ids, boolean succeeded) {
+        if (broken) {
+            return;
+        }
+        try {
+            for (long hash : ids) {
+                if (!batch.hasRemaining()) {
+                    sync();
+                }
+                batch.put(succeeded ? COMPLETED : FAILED).putLong(hash);
+                if (succeeded) {
+                    completed.add(hash);
+                }
+            }
+            if (System.nanoTime() - lastSync >= SYNC_INTERVAL_NANOS) {
+                sync();
+            }
+        } catch (IOException e) {
+            // The bulk itself is not affected, a restart will only process more items again
+            LOGGER.error("Could not write the runBulk journal, no more items will be recorded", e);
+            broken = true;
+        }
+    }
+
+    private void sync() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        batch.clear();
+        channel.force(false);
+        lastSync = System.nanoTime();
+    }
+
+    private long hash(MetaExpression item) {
+        String id;
+        if (idKey != null && item.getType() == ExpressionDataType.OBJECT) {
+            Map<String, MetaExpression> object = item.getValue();
+            MetaExpression value = object.get(idKey);
+            id = value == null ? "" : value.getStringValue();
+        } else {
+            id = item.getStringValue();
+        }
+        return Hashing.murmur3_128().hashString(id, StandardCharsets.UTF_8).asLong();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (!broken) {
+                sync();
+            }
+        } finally {
+            takenIds.clear();
+            channel.close();
+        }
+    }
+
+    /**
+     * A set of hashes using open addressing, small enough to hold tens of millions of entries.
+     */
+    static final class LongSet {
+        private static final long EMPTY = 0;
+        private long[] table = new long[1024];
+        private int size;
+
+        void add(long value) {
+            long key = value == EMPTY ? 1 : value;
+            if ((size + 1) * 4L > table.length * 3L) {
+                grow();
+            }
+            if (insert(table, key)) {
+                size++;
+            }
+        }
+
+        boolean contains(long value) {
+            long key = value == EMPTY ? 1 : value;
+            int mask = table.length - 1;
+            for (int i = index(key, mask); table[i] != EMPTY; i = (i + 1) & mask) {
+                if (table[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] larger = new long[table.length * 2];
+            for (long key : table) {
+                if (key != EMPTY) {
+                    insert(larger, key);
+                }
+            }
+            table = larger;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            int i = index(key, mask);
+            while (table[i] != EMPTY) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            return true;
+        }
+
+        private static int index(long key, int mask) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
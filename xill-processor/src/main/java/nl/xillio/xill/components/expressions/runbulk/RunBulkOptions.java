@@ -15,12 +15,16 @@
  */
 package nl.xillio.xill.components.expressions.runbulk;
 
+import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.NullDebugger;
 import nl.xillio.xill.api.components.ExpressionDataType;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.Processable;
 import nl.xillio.xill.api.errors.InvalidUserInputException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,15 +37,41 @@ class RunBulkOptions {
 
     private boolean stopOnError;
     private int maxThreadsVal;
+    private int prefetch;
+    private int chunkSize;
+    private boolean chunkAsIterator;
+    private boolean collectResults;
+    private int resultBuffer;
+    private String journal;
+    private String journalKey;
+    private int processes;
+    private List<String> workers;
 
     /**
      * @param options The processable to parse options from.
      */
     public RunBulkOptions(Processable options) {
+        this(options, new NullDebugger());
+    }
+
+    /**
+     * @param options  The processable to parse options from.
+     * @param debugger The debugger of the current run, used to evaluate the options.
+     */
+    public RunBulkOptions(Processable options, Debugger debugger) {
         this.options = options;
         this.stopOnError = false;
         this.maxThreadsVal = 0;
-        parseOptions();
+        this.prefetch = -1;
+        this.chunkSize = 1;
+        this.chunkAsIterator = false;
+        this.collectResults = false;
+        this.resultBuffer = -1;
+        this.journal = null;
+        this.journalKey = null;
+        this.processes = 0;
+        this.workers = Collections.emptyList();
+        parseOptions(debugger);
     }
 
     /**
@@ -62,14 +92,103 @@ class RunBulkOptions {
         return maxThreadsVal;
     }
 
+    /**
+     * Get the prefetch option.
+     *
+     * @return How many items may wait for a free worker, or -1 if the default should be used
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Get the chunkSize option.
+     *
+     * @return How many items are handed to a worker at once
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Get the chunkMode option.
+     *
+     * @return True if the called robot should receive an iterator over a whole chunk, false if it should run per item
+     */
+    public boolean isChunkAsIterator() {
+        return chunkAsIterator;
+    }
+
+    /**
+     * Get the collectResults option.
+     *
+     * @return True if runBulk should return an iterator over the results of the called robots instead of the run count
+     */
+    public boolean shouldCollectResults() {
+        return collectResults;
+    }
+
+    /**
+     * Get the resultBuffer option.
+     *
+     * @return The maximum number of results waiting to be consumed before no more jobs are started,
+     * or -1 if this equals the number of threads
+     */
+    public int getResultBuffer() {
+        return resultBuffer;
+    }
+
+    /**
+     * Get the journal option.
+     *
+     * @return The path of the file recording the processed items, or null if no journal is kept
+     */
+    public String getJournal() {
+        return journal;
+    }
+
+    /**
+     * Get the journalKey option.
+     *
+     * @return The key holding the id of OBJECT items, or null if the items themselves are their id
+     */
+    public String getJournalKey() {
+        return journalKey;
+    }
+
+    /**
+     * Get the processes option.
+     *
+     * @return The number of worker processes to start, or 0 to run the robots in this process
+     */
+    public int getProcesses() {
+        return processes;
+    }
+
+    /**
+     * Get the workers option.
+     *
+     * @return The addresses (token@host:port) of worker processes that were started before
+     */
+    public List<String> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return True if the robots run in other processes
+     */
+    public boolean isRemote() {
+        return processes > 0 || !workers.isEmpty();
+    }
+
     /**
      * Parse the option expression.
      */
-    private void parseOptions() {
+    private void parseOptions(Debugger debugger) {
         if (options == null) {
             return;
         }
-        MetaExpression optionVar = options.process(new NullDebugger()).get();
+        MetaExpression optionVar = options.process(debugger).get();
         if (optionVar.isNull()) {
             return;
         }
@@ -100,10 +219,37 @@ class RunBulkOptions {
                 case "stopOnError":
                     parseStopOnError(entry.getValue());
                     break;
+                case "prefetch":
+                    parsePrefetch(entry.getValue());
+                    break;
+                case "chunkSize":
+                    parseChunkSize(entry.getValue());
+                    break;
+                case "chunkMode":
+                    parseChunkMode(entry.getValue());
+                    break;
+                case "collectResults":
+                    parseCollectResults(entry.getValue());
+                    break;
+                case "resultBuffer":
+                    parseResultBuffer(entry.getValue());
+                    break;
+                case "journal":
+                    journal = parseNonEmptyString("journal", entry.getValue());
+                    break;
+                case "journalKey":
+                    journalKey = parseNonEmptyString("journalKey", entry.getValue());
+                    break;
+                case "processes":
+                    parseProcesses(entry.getValue());
+                    break;
+                case "workers":
+                    parseWorkers(entry.getValue());
+                    break;
                 default:
                     throw new InvalidUserInputException("A key in the \"options\" argument was not a valid option name",
                             optionVar.toString(),
-                            "\"maxThreads\" or \"stopOnError\"",
+                            "\"maxThreads\", \"stopOnError\", \"prefetch\", \"chunkSize\", \"chunkMode\", \"collectResults\", \"resultBuffer\", \"journal\", \"journalKey\", \"processes\" or \"workers\"",
                             OPTIONS_EXAMPLE);
             }
         }
@@ -143,4 +289,138 @@ class RunBulkOptions {
         }
     }
 
+    /**
+     * Parse the prefetch option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parsePrefetch(MetaExpression value) {
+        prefetch = value.getNumberValue().intValue();
+        if (prefetch < 0) {
+            throw new InvalidUserInputException("The \"prefetch\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A positive number or 0",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse the chunkSize option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseChunkSize(MetaExpression value) {
+        chunkSize = value.getNumberValue().intValue();
+        if (chunkSize < 1) {
+            throw new InvalidUserInputException("The \"chunkSize\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A positive number",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse the chunkMode option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseChunkMode(MetaExpression value) {
+        String stringValue = value.getStringValue();
+        if ("items".equals(stringValue)) {
+            chunkAsIterator = false;
+        } else if ("iterator".equals(stringValue)) {
+            chunkAsIterator = true;
+        } else {
+            throw new InvalidUserInputException("The \"chunkMode\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "\"items\" or \"iterator\"",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse the collectResults option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseCollectResults(MetaExpression value) {
+        String stringValue = value.getStringValue();
+        if ("yes".equals(stringValue)) {
+            collectResults = true;
+        } else if ("no".equals(stringValue)) {
+            collectResults = false;
+        } else {
+            throw new InvalidUserInputException("The \"collectResults\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "\"yes\" or \"no\"",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse the resultBuffer option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseResultBuffer(MetaExpression value) {
+        resultBuffer = value.getNumberValue().intValue();
+        if (resultBuffer < 1) {
+            throw new InvalidUserInputException("The \"resultBuffer\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A positive number",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse an option that holds a non-empty string from a {@link MetaExpression}.
+     *
+     * @param name  The option name
+     * @param value The option value
+     * @return The string
+     */
+    private String parseNonEmptyString(String name, MetaExpression value) {
+        String stringValue = value.getStringValue();
+        if (value.getType() != ExpressionDataType.ATOMIC || value.isNull() || stringValue.isEmpty()) {
+            throw new InvalidUserInputException("The \"" + name + "\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A text",
+                    OPTIONS_EXAMPLE);
+        }
+        return stringValue;
+    }
+
+    /**
+     * Parse the processes option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseProcesses(MetaExpression value) {
+        processes = value.getNumberValue().intValue();
+        if (processes < 1) {
+            throw new InvalidUserInputException("The \"processes\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A positive number",
+                    OPTIONS_EXAMPLE);
+        }
+    }
+
+    /**
+     * Parse the workers option from a {@link MetaExpression}.
+     *
+     * @param value The option value
+     */
+    private void parseWorkers(MetaExpression value) {
+        if (value.getType() != ExpressionDataType.LIST) {
+            throw new InvalidUserInputException("The \"workers\" value in the \"options\" argument was not valid",
+                    value.toString(),
+                    "A list of addresses like \"token@localhost:9400\"",
+                    OPTIONS_EXAMPLE);
+        }
+        List<MetaExpression> addresses = value.getValue();
+        workers = new ArrayList<>(addresses.size());
+        for (MetaExpression address : addresses) {
+            workers.add(parseNonEmptyString("workers", address));
+        }
+    }
 }
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the values returned by the robots of a {@link RunBulkExpression runBulk} call while the bulk is running.
+ * <p>
+ * Jobs are only started while fewer than {@code bufferSize} results are waiting to be consumed, so a slow consumer
+ * holds back the bulk instead of filling up memory. Jobs are submitted by the consuming thread, which also runs jobs
+ * itself while it waits for a result.
+ * <p>
+ * Buffered results are referenced by the iterator until they are handed to the consumer or the iterator is closed.
+ */
+class RunBulkResultIterator implements Iterator<MetaExpression>, AutoCloseable {
+    private final Iterator<MetaExpression> source;
+    private final BulkScheduler.Bulk bulk;
+    private final Worker worker;
+    private final RunBulkControl control;
+    private final int chunkSize;
+    private final boolean asIterator;
+    private final int maxJobs;
+    private final int bufferSize;
+    private final Deque<MetaExpression> results = new ArrayDeque<>();
+    private RunBulkJournal journal;
+    private long submitted;
+    private boolean finished;
+
+    /**
+     * Create the iterator and start the first jobs.
+     *
+     * @param source     The items to process
+     * @param bulk       The bulk running the jobs
+     * @param worker     The worker that processes a chunk
+     * @param control    Controls the bulk
+     * @param options    The options deciding the chunk size and mode
+     * @param maxJobs    The maximum number of jobs that are running or waiting for a thread
+     * @param bufferSize The maximum number of results waiting to be consumed before no more jobs are started
+     */
+    RunBulkResultIterator(Iterator<MetaExpression> source, BulkScheduler.Bulk bulk, Worker worker, RunBulkControl control, RunBulkOptions options, int maxJobs, int bufferSize) {
+        this.source = source;
+        this.bulk = bulk;
+        this.worker = worker;
+        this.control = control;
+        this.chunkSize = options.getChunkSize();
+        this.asIterator = options.isChunkAsIterator();
+        this.maxJobs = maxJobs;
+        this.bufferSize = bufferSize;
+
+        worker.setResultHandler(this::offer);
+        feed();
+    }
+
+    /**
+     * Set the journal to close when the bulk is done.
+     *
+     * @param journal The journal
+     */
+    void setJournal(RunBulkJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Add a result returned by a called robot.
+     *
+     * @param result The result
+     */
+    private void offer(MetaExpression result) {
+        result.registerReference();
+        synchronized (results) {
+            results.add(result);
+        }
+    }
+
+    private int buffered() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private boolean shouldStop() {
+        return control.shouldStop() || control.getDebugger().shouldStop();
+    }
+
+    /**
+     * Submit jobs while there is room for them and for their results.
+     */
+    private void feed() {
+        try {
+            while (!finished && !shouldStop() && submitted - bulk.getFinished() < maxJobs && buffered() < bufferSize && source.hasNext()) {
+                List<MetaExpression> chunk = RunBulkExpression.nextChunk(source, chunkSize);
+                submitted++;
+                bulk.submit(worker.createJob(chunk, asIterator));
+            }
+        } catch (InterruptedException e) {
+            control.signalStop();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            long seen = bulk.getFinished();
+            if (buffered() > 0) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            feed();
+            if (shouldStop() || (submitted == seen && !source.hasNext())) {
+                finish();
+            } else {
+                bulk.awaitProgress(seen);
+            }
+        }
+    }
+
+    @Override
+    public MetaExpression next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MetaExpression result;
+        synchronized (results) {
+            result = results.poll();
+        }
+        // Hand the result over to the consumer without disposing it
+        result.preventDisposal();
+        result.releaseReference();
+        result.allowDisposal();
+        feed();
+        return result;
+    }
+
+    /**
+     * Wait for the running jobs and rethrow the error that stopped the bulk, if any.
+     */
+    private void finish() {
+        finished = true;
+        if (shouldStop()) {
+            bulk.cancel();
+        }
+        bulk.awaitDone();
+        closeJournal();
+        if (control.getError() != null) {
+            throw control.getError();
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            RunBulkExpression.closeJournal(journal);
+            journal = null;
+        }
+    }
+
+    /**
+     * Stop the bulk if it is still running and release the results that were not consumed.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            control.signalStop();
+            bulk.cancel();
+            bulk.awaitDone();
+            closeJournal();
+        }
+        synchronized (results) {
+            results.forEach(MetaExpression::releaseReference);
+            results.clear();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.StoppableDebugger;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.RobotRun;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+
+/**
+ * Executes the {@link RunBulkExpression} jobs. A single worker is shared by all threads of a bulk.
+ */
+class Worker {
+    private final RunBulkControl control;
+
+    private boolean stopOnError = false;
+
+    private final WorkerRobotFactory robotFactory;
+
+    private Consumer<MetaExpression> resultHandler;
+
+    private RunBulkJournal journal;
+
+    /**
+     * Create a worker.
+     *
+     * @param control      Controls runBulk threads
+     * @param stopOnError  Whether to stop the bulk when an error occurs
+     * @param robotFactory The factory compiling robots
+     */
+    public Worker(final RunBulkControl control, boolean stopOnError, WorkerRobotFactory robotFactory) {
+        this.control = control;
+
+        this.stopOnError = stopOnError;
+
+        this.robotFactory = robotFactory;
+    }
+
+    /**
+     * Set the handler that receives the values returned by the called robot. Without a handler they are ignored.
+     * The handler is called from the threads running the jobs.
+     *
+     * @param resultHandler The handler
+     */
+    public void setResultHandler(Consumer<MetaExpression> resultHandler) {
+        this.resultHandler = resultHandler;
+    }
+
+    /**
+     * Set the journal that records which items were completed or failed.
+     *
+     * @param journal The journal
+     */
+    public void setJournal(RunBulkJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Create a job that processes a chunk. Errors that escape the robot stop the bulk.
+     *
+     * @param chunk      The items to process
+     * @param asIterator Whether the robot should receive the whole chunk at once
+     * @return The job
+     */
+    public Runnable createJob(final List<MetaExpression> chunk, final boolean asIterator) {
+        long[] ids = ids(chunk);
+        return () -> {
+            try {
+                if (asIterator) {
+                    processAsIterator(chunk, ids);
+                } else {
+                    process(chunk, ids);
+                }
+            } catch (RuntimeException e) {
+                control.signalError(e);
+            }
+        };
+    }
+
+    /**
+     * Run the robot for one item, unless the bulk was stopped.
+     *
+     * @param item The item to process
+     */
+    public void process(final MetaExpression item) {
+        process(Collections.singletonList(item));
+    }
+
+    /**
+     * Run the robot once for every item in a chunk. The robot is looked up once for the whole chunk and
+     * the bulk state is checked before every item.
+     *
+     * @param chunk The items to process
+     */
+    public void process(final List<MetaExpression> chunk) {
+        process(chunk, ids(chunk));
+    }
+
+    private void process(final List<MetaExpression> chunk, final long[] ids) {
+        Robot robot = null;
+        for (int i = 0; i < chunk.size(); i++) {
+            if (control.shouldStop()) {
+                return;
+            }
+            MetaExpression item = chunk.get(i);
+            if (item != null) {
+                if (robot == null) {
+                    robot = construct();
+                }
+                processItem(robot, item, ids == null ? null : new long[]{ids[i]});
+            }
+        }
+    }
+
+    /**
+     * Run the robot once for a whole chunk. The robot receives an iterator over the items of the chunk
+     * as its argument and counts as a single run.
+     *
+     * @param chunk The items to process
+     */
+    public void processAsIterator(final List<MetaExpression> chunk) {
+        processAsIterator(chunk, ids(chunk));
+    }
+
+    private void processAsIterator(final List<MetaExpression> chunk, final long[] ids) {
+        if (chunk.isEmpty() || control.shouldStop()) {
+            return;
+        }
+        MetaExpression argument = fromValue("[Chunk of " + chunk.size() + " items]");
+        argument.storeMeta(new MetaExpressionIterator<>(chunk.iterator(), item -> item));
+        processItem(construct(), argument, ids);
+    }
+
+    /**
+     * Get the journal ids of a chunk while the items are still as they were taken from the source.
+     *
+     * @return the ids or null if no journal is kept
+     */
+    private long[] ids(final List<MetaExpression> chunk) {
+        return journal == null ? null : journal.ids(chunk);
+    }
+
+    private Robot construct() {
+        Debugger debugger = control.getDebugger();
+        StoppableDebugger compileDebugger = (StoppableDebugger) debugger.createChild();
+        try {
+            return robotFactory.construct(control.getCalledRobotFqn(), control.getLoader(), compileDebugger);
+        } catch (WorkerCompileException e) {
+            throw new RobotRuntimeException(e.getMessage(), e);
+        } finally {
+            debugger.removeChild(compileDebugger);
+        }
+    }
+
+    private void processItem(final Robot robot, final MetaExpression arg, final long[] ids) {
+        if (!processRobot(control.getDebugger(), robot, control.getCalledRobotFqn(), arg, ids)) {
+            control.signalStop();
+        } else {
+            if (control.getDebugger().shouldStop()) {
+                control.signalStop();
+            } else {
+                control.incRunCount();
+            }
+        }
+    }
+
+    /**
+     * @return true if the robot ended up successfully, false if there was an error or interruption, etc.
+     */
+    private boolean processRobot(final Debugger debugger, final Robot robot, final String calledRobotQualifiedName, final MetaExpression arg, final long[] ids) {
+        // Process the robot
+        try {
+            return runRobot(debugger, robot, calledRobotQualifiedName, arg, ids);
+        } catch (Exception e) {
+            debugger.handle(e);
+        }
+
+        return false; // Something went wrong
+    }
+
+    /**
+     * Run a single robot.
+     *
+     * @param debugger                 The debugger to use as parent debugger
+     * @param robot                    The compiled robot
+     * @param calledRobotQualifiedName The qualified name of the robot to process
+     * @param arg                      The argument input to the robot
+     * @param ids                      The journal ids of the items processed by this run, or null
+     * @return True if the robot was successful, false otherwise
+     */
+    private boolean runRobot(Debugger debugger, Robot robot, String calledRobotQualifiedName, MetaExpression arg, long[] ids) {
+        StoppableDebugger childDebugger = (StoppableDebugger) debugger.createChild();
+        childDebugger.setStopOnError(stopOnError);
+
+        boolean completed = false;
+        try {
+            RobotRun.start(childDebugger);
+            robot.setArgument(childDebugger, arg);
+
+            InstructionFlow<MetaExpression> result = robot.process(childDebugger);
+            if (resultHandler != null && result.hasValue()) {
+                resultHandler.accept(result.get().share());
+            }
+
+            completed = !childDebugger.hasErrorOccurred() && !childDebugger.shouldStop();
+            return !(stopOnError && childDebugger.hasErrorOccurred());
+
+        } catch (RobotRuntimeException e) {
+            int line = childDebugger.getStackTrace().get(childDebugger.getStackDepth()).getLineNumber();
+            childDebugger.endInstruction(null, null);
+            throw new RobotRuntimeException("Caused by '" + calledRobotQualifiedName + "' (line " + line + ")", e);
+        } catch (Exception e) {
+            throw new RobotRuntimeException("An exception occurred while evaluating " + calledRobotQualifiedName, e);
+        } finally {
+            // Close the processors and values the robot left in its frame
+            childDebugger.getExecutionFrame().release();
+            debugger.removeChild(childDebugger);
+            if (journal != null && ids != null) {
+                journal.record(ids, completed);
+            }
+        }
+    }
+}
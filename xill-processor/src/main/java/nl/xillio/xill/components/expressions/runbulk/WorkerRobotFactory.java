@@ -16,6 +16,8 @@
 package nl.xillio.xill.components.expressions.runbulk;
 
 import nl.xillio.plugins.XillPlugin;
+import nl.xillio.xill.CompiledRobotCache;
+import nl.xillio.xill.LanguageInfrastructure;
 import nl.xillio.xill.XillProcessor;
 import nl.xillio.xill.api.OutputHandler;
 import nl.xillio.xill.api.StoppableDebugger;
@@ -24,13 +26,12 @@ import nl.xillio.xill.api.components.RobotID;
 import nl.xillio.xill.api.errors.XillParsingException;
 import nl.xillio.xill.loaders.AbstractRobotLoader;
 
-import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.util.List;
 
 /**
- * A factory creating {@link nl.xillio.xill.api.components.Robot robots} for {@link WorkerThread}.
+ * A factory creating {@link nl.xillio.xill.api.components.Robot robots} for {@link Worker}.
  */
 class WorkerRobotFactory {
 
@@ -38,37 +39,44 @@ class WorkerRobotFactory {
     private RobotID robotID;
     private List<XillPlugin> plugins;
     private OutputHandler outputHandler;
+    private CompiledRobotCache compiledRobotCache;
+    private final LanguageInfrastructure language;
 
-    public WorkerRobotFactory(final Path workingDirectory, RobotID robotID, List<XillPlugin> plugins, OutputHandler outputHandler) {
+    public WorkerRobotFactory(final Path workingDirectory, RobotID robotID, List<XillPlugin> plugins, OutputHandler outputHandler, CompiledRobotCache compiledRobotCache, LanguageInfrastructure language) {
         this.workingDirectory = workingDirectory;
         this.robotID = robotID;
         this.plugins = plugins;
         this.outputHandler = outputHandler;
+        this.compiledRobotCache = compiledRobotCache;
+        this.language = language;
     }
 
     /**
-     * Compile a {@link Robot}.
+     * Get a compiled {@link Robot}, compiling it if no cached version is available.
+     * The robot is shared by all workers, every worker runs it with its own debugger.
      *
      * @param robotPath     The path to the robot to compile
      * @param loader        The robotLoader that is used
      * @param childDebugger The debugger to compile with
      * @return The compiled robot
-     * @throws IOException          When the robot could not be read
-     * @throws XillParsingException When the robot could not be compiled
+     * @throws WorkerCompileException When the robot could not be found or compiled
      */
     public Robot construct(String robotPath, AbstractRobotLoader loader, StoppableDebugger childDebugger) throws WorkerCompileException {
-        XillProcessor processor = null;
         try {
             URL robotResource = loader.getResource(robotPath);
             if (robotResource == null) {
                 throw new WorkerCompileException("Could not find robot: " + robotPath);
             }
-            processor = new XillProcessor(workingDirectory, new RobotID(robotResource, robotPath), loader, plugins, childDebugger);
-            processor.setOutputHandler(outputHandler);
-            processor.compileAsSubRobot(robotID);
+            RobotID calledRobotID = new RobotID(robotResource, robotPath);
+            return compiledRobotCache.get(calledRobotID, robotID, () -> {
+                XillProcessor processor = new XillProcessor(workingDirectory, calledRobotID, loader, plugins, childDebugger, language);
+                processor.setOutputHandler(outputHandler);
+                processor.setCompiledRobotCache(compiledRobotCache);
+                processor.compileAsSubRobot(robotID);
+                return processor;
+            });
         } catch (XillParsingException e) {
             throw new WorkerCompileException("Could not parse robot", e);
         }
-        return processor.getRobot();
     }
 }
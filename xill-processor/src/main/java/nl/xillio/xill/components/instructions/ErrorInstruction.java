@@ -148,7 +148,7 @@ public class ErrorInstruction extends CompoundInstruction {
                     errorVar.put("robot", fromValue(errorBlockDebugger.getErroredInstruction().getRobotID().getURL().toString()));
                 }
 
-                cause.pushVariable(fromValue(errorVar), errorBlockDebugger.getStackDepth());
+                cause.pushVariable(debugger, fromValue(errorVar), errorBlockDebugger.getStackDepth());
             }
 
             errorInstructions.process(debugger);
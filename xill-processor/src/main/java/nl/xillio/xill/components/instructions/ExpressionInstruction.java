@@ -34,7 +34,6 @@ import java.util.Stack;
 public class ExpressionInstruction extends Instruction {
 
     private final Processable expression;
-    private final Stack<MetaExpression> results = new Stack<>();
 
     private static final Logger LOGGER = Log.get();
 
@@ -52,7 +51,7 @@ public class ExpressionInstruction extends Instruction {
         try {
             MetaExpression result = expression.process(debugger).get();
             result.registerReference();
-            results.push(result);
+            getResults(debugger).push(result);
             return InstructionFlow.doResume(result);
         } catch (Exception e) {
             debugger.handle(e);
@@ -69,8 +68,24 @@ public class ExpressionInstruction extends Instruction {
         return expression;
     }
 
+    /**
+     * Get the results of this instruction in the execution frame of a debugger.
+     *
+     * @param debugger the debugger of the current run
+     * @return the result stack
+     */
+    private Stack<MetaExpression> getResults(final Debugger debugger) {
+        return debugger.getExecutionFrame().get(this, Stack::new);
+    }
+
     @Override
-    public void close() {
+    public void close(final Debugger debugger) {
+        Stack<MetaExpression> results = debugger.getExecutionFrame().get(this);
+        if (results == null) {
+            return;
+        }
+        debugger.getExecutionFrame().remove(this);
+
         // Close all results
         while (!results.isEmpty()) {
             try {
@@ -83,9 +98,11 @@ public class ExpressionInstruction extends Instruction {
 
     /**
      * Clear the result stack.
+     *
+     * @param debugger the debugger of the current run
      */
-    public void clear() {
-        results.clear();
+    public void clear(final Debugger debugger) {
+        debugger.getExecutionFrame().remove(this);
     }
 
     @Override
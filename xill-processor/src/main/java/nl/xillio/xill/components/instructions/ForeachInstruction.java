@@ -88,7 +88,7 @@ public class ForeachInstruction extends CompoundInstruction {
         try {
             return process(result, debugger);
         } finally {
-            listInstruction.close();
+            listInstruction.close(debugger);
         }
     }
 
@@ -144,10 +144,11 @@ public class ForeachInstruction extends CompoundInstruction {
             // If there are string keys, get the next one.
             String keyString = keys != null ? keys.next() : null;
 
-            // Get the next key as a meta expression.
-            MetaExpression key = keyString != null ? ExpressionBuilderHelper.fromValue(keyString) : ExpressionBuilderHelper.fromValue(index);
+            // The key is only built when there is a key variable, it is a new expression because it can be stored
+            int keyIndex = index;
+            Supplier<MetaExpression> key = () -> keyString != null ? ExpressionBuilderHelper.fromValue(keyString) : ExpressionBuilderHelper.fromValue(keyIndex);
 
-            InstructionFlow<MetaExpression> instructionResult = processIteration(() -> key, value, debugger);
+            InstructionFlow<MetaExpression> instructionResult = processIteration(key, value, debugger);
 
             // If the instruction returns or breaks, set the result and break out of the loop.
             if (instructionResult.returns()) {
@@ -167,9 +168,9 @@ public class ForeachInstruction extends CompoundInstruction {
 
     private InstructionFlow<MetaExpression> processIteration(Supplier<MetaExpression> key, MetaExpression value, Debugger debugger) {
         // Push the value and key variable values.
-        valueVar.pushVariable(value, debugger.getStackDepth());
+        valueVar.pushVariable(debugger, value, debugger.getStackDepth());
         if (keyVar != null) {
-            keyVar.pushVariable(key.get(), debugger.getStackDepth());
+            keyVar.pushVariable(debugger, key.get(), debugger.getStackDepth());
         }
 
         InstructionFlow<MetaExpression> instructionResult = instructionSet.process(debugger);
@@ -177,20 +178,20 @@ public class ForeachInstruction extends CompoundInstruction {
         if (instructionResult.returns() && instructionResult.hasValue()) {
             // Prevent the instruction result from being disposed.
             instructionResult.get().preventDisposal();
-            releaseVariables();
+            releaseVariables(debugger);
             instructionResult.get().allowDisposal();
         } else {
-            releaseVariables();
+            releaseVariables(debugger);
         }
 
         return instructionResult;
     }
 
-    private void releaseVariables() {
+    private void releaseVariables(Debugger debugger) {
         // Release the value and key variables.
-        valueVar.releaseVariable();
+        valueVar.releaseVariable(debugger);
         if (keyVar != null) {
-            keyVar.releaseVariable();
+            keyVar.releaseVariable(debugger);
         }
     }
 
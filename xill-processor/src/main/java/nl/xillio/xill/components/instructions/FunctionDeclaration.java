@@ -76,7 +76,7 @@ public class FunctionDeclaration extends Instruction {
         Iterator<VariableDeclaration> parametersItt = parameters.iterator();
         while (argumentItt.hasNext() && parametersItt.hasNext()) {
             MetaExpression expression = argumentItt.next();
-            parametersItt.next().replaceVariable(expression);
+            parametersItt.next().replaceVariable(debugger, expression);
         }
 
         debugger.startFunction(this);
@@ -88,13 +88,13 @@ public class FunctionDeclaration extends Instruction {
         if (result.hasValue()) {
             result.get().preventDisposal();
 
-            parameters.forEach(VariableDeclaration::releaseVariable);
+            parameters.forEach(parameter -> parameter.releaseVariable(debugger));
 
             result.get().allowDisposal();
 
             return InstructionFlow.doResume(result.get());
         } else {
-            parameters.forEach(VariableDeclaration::releaseVariable);
+            parameters.forEach(parameter -> parameter.releaseVariable(debugger));
             return InstructionFlow.doResume(ExpressionBuilderHelper.NULL);
         }
 
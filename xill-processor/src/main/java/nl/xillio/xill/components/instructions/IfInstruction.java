@@ -52,7 +52,8 @@ public class IfInstruction extends CompoundInstruction {
      * @return true if and only if the condition of this statement evaluates to true
      */
     public boolean isTrue(final Debugger debugger) {
-        try (ExpressionInstruction conditionInstruction = new ExpressionInstruction(condition)) {
+        ExpressionInstruction conditionInstruction = new ExpressionInstruction(condition);
+        try {
             conditionInstruction.setHostInstruction(getHostInstruction());
             conditionInstruction.setPosition(getPosition());
             debugger.startInstruction(conditionInstruction);
@@ -64,6 +65,8 @@ public class IfInstruction extends CompoundInstruction {
             result.get().registerReference();
             debugger.endInstruction(conditionInstruction, result);
             return result.get().getBooleanValue();
+        } finally {
+            conditionInstruction.close(debugger);
         }
     }
 
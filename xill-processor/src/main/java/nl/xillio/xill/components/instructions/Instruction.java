@@ -16,6 +16,7 @@
 package nl.xillio.xill.components.instructions;
 
 import nl.xillio.xill.CodePosition;
+import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.components.RobotID;
 
 import java.io.UnsupportedEncodingException;
@@ -84,6 +85,17 @@ public abstract class Instruction implements nl.xillio.xill.api.components.Instr
 
     }
 
+    /**
+     * Release the state this instruction holds in the execution frame of a run.
+     * This is called by the host instruction set when it is done processing.
+     *
+     * @param debugger the debugger of the run
+     * @throws Exception if the state could not be released
+     */
+    public void close(final Debugger debugger) throws Exception {
+        close();
+    }
+
     public InstructionSet getHostInstruction() {
         return hostInstruction;
     }
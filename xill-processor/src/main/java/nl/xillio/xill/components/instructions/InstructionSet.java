@@ -22,6 +22,7 @@ import nl.xillio.xill.api.components.InstructionFlow;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.Processable;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.debugging.ProductionDebugger;
 import org.slf4j.Logger;
 
 import java.util.*;
@@ -69,8 +70,13 @@ public class InstructionSet implements nl.xillio.xill.api.components.Instruction
 
     @Override
     public InstructionFlow<MetaExpression> process(final Debugger debugger) throws RobotRuntimeException {
+        ProductionDebugger productionDebugger = ProductionDebugger.find(debugger);
+        if (productionDebugger != null) {
+            return processUntracked(debugger, productionDebugger);
+        }
+
         InstructionFlow<MetaExpression> processResult = null;
-        List<Instruction> processedInstructions = new ArrayList<>();
+        int processedInstructions = 0;
 
         for (Instruction instruction : instructions) {
             if (debugger.shouldStop()) {
@@ -91,7 +97,7 @@ public class InstructionSet implements nl.xillio.xill.api.components.Instruction
             }
 
             InstructionFlow<MetaExpression> result = processInstruction(instruction, debugger);
-            processedInstructions.add(instruction);
+            processedInstructions++;
 
             if (!instruction.preventDebugging()) {
                 debugger.endInstruction(instruction, result);
@@ -104,22 +110,70 @@ public class InstructionSet implements nl.xillio.xill.api.components.Instruction
             }
         }
 
+        return finish(processResult, processedInstructions, debugger);
+    }
+
+    /**
+     * Process the instructions without stack tracking or breakpoints.
+     * Only the stop flag is checked between instructions.
+     *
+     * @param debugger           the debugger of the current run
+     * @param productionDebugger the production debugger the debugger runs on
+     * @return the result
+     */
+    private InstructionFlow<MetaExpression> processUntracked(final Debugger debugger, final ProductionDebugger productionDebugger) {
+        InstructionFlow<MetaExpression> processResult = null;
+        int processedInstructions = 0;
+        nl.xillio.xill.api.components.Instruction outerInstruction = productionDebugger.getCurrentInstruction();
+
+        for (Instruction instruction : instructions) {
+            if (debugger.shouldStop()) {
+                processResult = InstructionFlow.doReturn(ExpressionBuilderHelper.NULL);
+                break;
+            }
+
+            productionDebugger.setCurrentInstruction(instruction);
+            InstructionFlow<MetaExpression> result = processInstruction(instruction, debugger);
+            processedInstructions++;
+
+            if (!result.resumes()) {
+                processResult = result;
+                break;
+            }
+        }
+
+        // Not restored when an exception escapes, so the failing instruction can still be found
+        productionDebugger.setCurrentInstruction(outerInstruction);
+
+        return finish(processResult, processedInstructions, debugger);
+    }
+
+    /**
+     * Close the processed instructions and this set.
+     *
+     * @param processResult         the result of the set or null if all instructions resumed
+     * @param processedInstructions the number of instructions that were processed, counting from the first
+     * @param debugger              the debugger of the current run
+     * @return the result
+     */
+    private InstructionFlow<MetaExpression> finish(InstructionFlow<MetaExpression> processResult, int processedInstructions, Debugger debugger) {
         // Make sure the result is not disposed
         if (processResult != null && processResult.hasValue()) {
             processResult.get().preventDisposal();
         }
 
         // Dispose all processed instructions
-        for (Instruction instruction : processedInstructions) {
+        Iterator<Instruction> processed = instructions.iterator();
+        for (int i = 0; i < processedInstructions; i++) {
             try {
-                instruction.close();
+                processed.next().close(debugger);
             } catch (Exception e) {
                 LOGGER.error(e.getMessage(), e);
             }
         }
         // Done so dispose of this
         try {
-            close();
+            close(debugger);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -170,6 +224,15 @@ public class InstructionSet implements nl.xillio.xill.api.components.Instruction
 
     }
 
+    /**
+     * Release the state this instruction set holds in the execution frame of a run.
+     *
+     * @param debugger the debugger of the run
+     */
+    public void close(final Debugger debugger) {
+        close();
+    }
+
     @Override
     public Iterator<Instruction> iterator() {
         return instructions.iterator();
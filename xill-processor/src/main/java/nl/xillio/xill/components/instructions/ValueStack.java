@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.instructions;
+
+import nl.xillio.xill.api.components.ExecutionFrame;
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the values of a single variable during a run.
+ * <p>
+ * Every value is stored together with the stack position it was declared on. Values are pushed in order of increasing
+ * stack position, so a value on a specific position can be found using a binary search.
+ * This class is not thread-safe, it lives in the {@link ExecutionFrame} of a single run.
+ * Frames of worker threads inherit the current value of the variable.
+ */
+final class ValueStack implements ExecutionFrame.Inheritable {
+    private static final int INITIAL_CAPACITY = 4;
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private MetaExpression[] values = new MetaExpression[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Push a value.
+     *
+     * @param position the stack position the value was declared on
+     * @param value    the value
+     */
+    void push(int position, MetaExpression value) {
+        if (size == values.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        positions[size] = position;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Remove the top value.
+     *
+     * @return the removed value
+     */
+    MetaExpression pop() {
+        MetaExpression value = values[--size];
+        values[size] = null;
+        return value;
+    }
+
+    /**
+     * @return the top value or null if the stack is empty
+     */
+    MetaExpression peek() {
+        return size == 0 ? null : values[size - 1];
+    }
+
+    /**
+     * Replace the top value, keeping its stack position.
+     *
+     * @param value the new value
+     * @return the replaced value
+     */
+    MetaExpression replace(MetaExpression value) {
+        MetaExpression current = values[size - 1];
+        values[size - 1] = value;
+        return current;
+    }
+
+    /**
+     * Find the first value that was declared on a stack position.
+     *
+     * @param position the stack position
+     * @return the value or null if no value was declared on that position
+     */
+    MetaExpression get(int position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (positions[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && positions[low] == position ? values[low] : null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public ValueStack inherit() {
+        ValueStack copy = new ValueStack();
+        MetaExpression value = peek();
+        if (value != null) {
+            value.registerReference();
+            copy.push(0, value);
+        }
+        return copy;
+    }
+
+    @Override
+    public void release() {
+        while (size > 0) {
+            pop().releaseReference();
+        }
+    }
+}
@@ -20,13 +20,10 @@ import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.components.*;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
 import nl.xillio.xill.components.operators.Assign;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Stack;
 
 /**
  * This {@link Instruction} represents the start of a variable's lifespan.
@@ -41,12 +38,11 @@ import java.util.Stack;
  */
 public class VariableDeclaration extends Instruction {
     private final Processable assignation;
-    // A stack of stack position, value pairs
-    private final Stack<Pair<Integer, MetaExpression>> valueStack = new Stack<>();
     /**
      * This is here for debugging purposes.
      */
     private final String name;
+    private int slot = -1;
 
     /**
      * Create a new {@link VariableDeclaration}.
@@ -67,7 +63,7 @@ public class VariableDeclaration extends Instruction {
 
     @Override
     public InstructionFlow<MetaExpression> process(final Debugger debugger) {
-        pushVariable(ExpressionBuilderHelper.NULL, getInsertionIndex(debugger));
+        pushVariable(debugger, ExpressionBuilderHelper.NULL, getInsertionIndex(debugger));
         assignation.process(debugger);
 
         return InstructionFlow.doResume();
@@ -83,11 +79,44 @@ public class VariableDeclaration extends Instruction {
     }
 
     /**
+     * Get the values of this variable in the execution frame of a debugger.
+     *
+     * @param debugger the debugger of the current run
+     * @return the value stack
+     */
+    private ValueStack getValueStack(Debugger debugger) {
+        ExecutionFrame frame = debugger.getExecutionFrame();
+        if (slot < 0) {
+            return frame.get(this, ValueStack::new);
+        }
+        return frame.getSlot(slot, ValueStack::new);
+    }
+
+    /**
+     * Assign the frame slot this variable stores its values in.
+     * Every declaration in a compiled program must have a different slot.
+     *
+     * @param slot the slot index
+     */
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * @return the frame slot of this variable or -1 if no slot was assigned
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @param debugger the debugger of the current run
      * @return the expression of the variable or null
      */
-    public MetaExpression getVariable() {
-        if (!valueStack.isEmpty()) {
-            return valueStack.peek().getValue();
+    public MetaExpression getVariable(final Debugger debugger) {
+        MetaExpression value = getValueStack(debugger).peek();
+        if (value != null) {
+            return value;
         }
         return ExpressionBuilder.NULL;
     }
@@ -95,14 +124,14 @@ public class VariableDeclaration extends Instruction {
     /**
      * Set the value of the variable.
      *
-     * @param value The value to which the variable needs to be set.
+     * @param debugger the debugger of the current run
+     * @param value    The value to which the variable needs to be set.
      */
-    public void replaceVariable(final MetaExpression value) {
-        if (hasValue()) {
-            Pair<Integer, MetaExpression> replace = valueStack.pop();
-            MetaExpression current = replace.getValue();
-            pushVariable(value, replace.getKey());
-            current.releaseReference();
+    public void replaceVariable(final Debugger debugger, final MetaExpression value) {
+        ValueStack valueStack = getValueStack(debugger);
+        if (!valueStack.isEmpty()) {
+            value.registerReference();
+            valueStack.replace(value).releaseReference();
         } else {
             throw new RobotRuntimeException("Reference to unknown variable '" + getName() + "', could not assign value.");
         }
@@ -111,19 +140,22 @@ public class VariableDeclaration extends Instruction {
     /**
      * Set the value of the variable without popping the last one
      *
+     * @param debugger      the debugger of the current run
      * @param value         The value of the variable.
      * @param stackPosition The position the variable is in counting from the robot root, starting at 0
      */
-    public void pushVariable(final MetaExpression value, final int stackPosition) {
+    public void pushVariable(final Debugger debugger, final MetaExpression value, final int stackPosition) {
         value.registerReference();
-        valueStack.push(new ImmutablePair<>(stackPosition, value));
+        getValueStack(debugger).push(stackPosition, value);
     }
 
     /**
      * Release the current variable.
+     *
+     * @param debugger the debugger of the current run
      */
-    public void releaseVariable() {
-        valueStack.pop().getValue().releaseReference();
+    public void releaseVariable(final Debugger debugger) {
+        getValueStack(debugger).pop().releaseReference();
     }
 
     /**
@@ -146,8 +178,8 @@ public class VariableDeclaration extends Instruction {
     }
 
     @Override
-    public void close() throws Exception {
-        releaseVariable();
+    public void close(final Debugger debugger) throws Exception {
+        releaseVariable(debugger);
     }
 
     /**
@@ -162,30 +194,22 @@ public class VariableDeclaration extends Instruction {
 
     /**
      * Check if there is a value at any position in the stack
+     * @param debugger the debugger of the current run
      * @return True if a value exists, false if not
      */
-    public boolean hasValue() {
-        return !valueStack.empty();
+    public boolean hasValue(final Debugger debugger) {
+        return !getValueStack(debugger).isEmpty();
     }
 
     /**
      * Peek at the value at the given stack position
      *
+     * @param debugger      the debugger of the current run
      * @param stackPosition The position in the stack counting from the root of the robot, starting at 0
      * @return The variable at the stack position, or null of it does not exist
      */
-    public MetaExpression peek(int stackPosition) {
-        for (Pair<Integer, MetaExpression> stackElement : valueStack) {
-            // Already past the stack position
-            int position = stackElement.getKey();
-            if (position > stackPosition) {
-                return null;
-            }
-            if (position == stackPosition) {
-                return stackElement.getValue();
-            }
-        }
-        return null;
+    public MetaExpression peek(final Debugger debugger, int stackPosition) {
+        return getValueStack(debugger).get(stackPosition);
     }
 
     /**
@@ -205,8 +229,8 @@ public class VariableDeclaration extends Instruction {
 
         @Override
         public InstructionFlow<MetaExpression> process(Debugger debugger) {
-            if (robot.hasArgument()) {
-                return InstructionFlow.doResume(robot.getArgument());
+            if (robot.hasArgument(debugger)) {
+                return InstructionFlow.doResume(robot.getArgument(debugger));
             }
 
             return InstructionFlow.doResume(expression.process(debugger).get());
@@ -87,7 +87,7 @@ public class WhileInstruction extends CompoundInstruction {
         boolean isValue = expression.getBooleanValue();
         debugger.endInstruction(condition, result);
         expression.releaseReference();
-        condition.clear();
+        condition.clear(debugger);
         return isValue;
     }
 
@@ -33,7 +33,7 @@ import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
 public final class Add extends BinaryNumberOperator {
 
     public Add(final Processable left, final Processable right) {
-        super(left, right, MathUtils::add);
+        super(left, right, MathUtils::add, MathUtils::add, MathUtils::add, MathUtils::add);
     }
 
     @SuppressWarnings("unchecked")
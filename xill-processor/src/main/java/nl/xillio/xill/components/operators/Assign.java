@@ -146,6 +146,11 @@ public class Assign implements Processable {
             default:
                 throw new IllegalStateException("Can only assign to children of OBJECT and LIST types.");
         }
+
+        // Only the collection at the end of the path changed, the collections containing it notice that themselves
+        if (pathID + 2 == path.size()) {
+            currentValue.markModified();
+        }
     }
 
     @Override
@@ -176,25 +181,28 @@ public class Assign implements Processable {
         // First we check if there is a path
         if (path.isEmpty()) {
             // Assign atomically
-            variableDeclaration.replaceVariable(value);
+            variableDeclaration.replaceVariable(debugger, value);
         } else {
             // No root level assignment so we register the reference manually
             value.registerReference();
 
             // Seems like we have a path
-            switch (variableDeclaration.getVariable().getType()) {
+            switch (variableDeclaration.getVariable(debugger).getType()) {
                 case LIST:
-                    List<MetaExpression> listValue = variableDeclaration.getVariable().getValue();
+                    List<MetaExpression> listValue = variableDeclaration.getVariable(debugger).getValue();
                     assign(listValue, 0, value, debugger);
                     break;
                 case OBJECT:
-                    Map<String, MetaExpression> mapValue = variableDeclaration.getVariable()
+                    Map<String, MetaExpression> mapValue = variableDeclaration.getVariable(debugger)
                             .getValue();
                     assign(mapValue, 0, value, debugger);
                     break;
                 default:
                     throw new RobotRuntimeException("Cannot assign to atomic variable using a path.");
             }
+            if (path.size() == 1) {
+                variableDeclaration.getVariable(debugger).markModified();
+            }
         }
 
         return value;
@@ -54,7 +54,7 @@ abstract class BinaryNumberComparisonOperator implements Processable {
 
         Number leftValue = left.getNumberValue();
         Number rightValue = right.getNumberValue();
-        int comparisonResult = MathUtils.compare(leftValue, rightValue);
+        int comparisonResult = compare(leftValue, rightValue);
         MetaExpression result = ExpressionBuilder.fromValue(translate(comparisonResult));
 
         left.releaseReference();
@@ -62,6 +62,22 @@ abstract class BinaryNumberComparisonOperator implements Processable {
         return InstructionFlow.doResume(result);
     }
 
+    /**
+     * Compare two numbers, comparing the primitive values of the common combinations directly.
+     */
+    private static int compare(Number a, Number b) {
+        if (a instanceof Integer && b instanceof Integer) {
+            return Integer.compare(a.intValue(), b.intValue());
+        }
+        if (a instanceof Double || b instanceof Double) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        if ((a instanceof Long || a instanceof Integer) && (b instanceof Long || b instanceof Integer)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        return MathUtils.compare(a, b);
+    }
+
     /**
      * Translate a comparison to a boolean result.
      *
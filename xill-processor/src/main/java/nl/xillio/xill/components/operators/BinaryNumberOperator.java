@@ -29,6 +29,9 @@ import java.util.function.BiFunction;
 
 /**
  * This class represents an abstract operation that involved two number operands and results in a new number.
+ * <p>
+ * Operands that are both ints, both integral or include a double are computed on their primitive values, other
+ * combinations go through the generic {@link Number} operator.
  *
  * @author Thomas Biesaart
  */
@@ -37,11 +40,18 @@ abstract class BinaryNumberOperator implements Processable {
     protected final Processable left;
     protected final Processable right;
     private final BiFunction<Number, Number, Number> operator;
+    private final IntOperator intOperator;
+    private final LongOperator longOperator;
+    private final DoubleOperator doubleOperator;
 
-    protected BinaryNumberOperator(Processable left, Processable right, BiFunction<Number, Number, Number> operator) {
+    protected BinaryNumberOperator(Processable left, Processable right, BiFunction<Number, Number, Number> operator,
+                                   IntOperator intOperator, LongOperator longOperator, DoubleOperator doubleOperator) {
         this.left = left;
         this.right = right;
         this.operator = operator;
+        this.intOperator = intOperator;
+        this.longOperator = longOperator;
+        this.doubleOperator = doubleOperator;
     }
 
     @Override
@@ -58,17 +68,55 @@ abstract class BinaryNumberOperator implements Processable {
         }
         leftValue.registerReference();
         rightValue.registerReference();
-        Number result = operator.apply(leftValue.getNumberValue(), rightValue.getNumberValue());
+        Number result = apply(leftValue.getNumberValue(), rightValue.getNumberValue());
         leftValue.releaseReference();
         rightValue.releaseReference();
 
         return InstructionFlow.doResume(ExpressionBuilder.fromValue(result));
     }
 
+    /**
+     * Apply the operator, resolving the operand types in the same order as {@link nl.xillio.util.MathUtils}.
+     */
+    private Number apply(Number a, Number b) {
+        if (a instanceof Integer && b instanceof Integer) {
+            return intOperator.apply(a.intValue(), b.intValue());
+        }
+        if (a instanceof Double || b instanceof Double) {
+            return doubleOperator.apply(a.doubleValue(), b.doubleValue());
+        }
+        if ((a instanceof Long || a instanceof Integer) && (b instanceof Long || b instanceof Integer)) {
+            return longOperator.apply(a.longValue(), b.longValue());
+        }
+        return operator.apply(a, b);
+    }
+
     @Override
     public Collection<Processable> getChildren() {
         return Arrays.asList(left, right);
     }
 
+    /**
+     * An operator on two int values.
+     */
+    @FunctionalInterface
+    interface IntOperator {
+        Number apply(int a, int b);
+    }
+
+    /**
+     * An operator on two long values.
+     */
+    @FunctionalInterface
+    interface LongOperator {
+        Number apply(long a, long b);
+    }
 
+    /**
+     * An operator on two double values.
+     */
+    @FunctionalInterface
+    interface DoubleOperator {
+        Number apply(double a, double b);
+    }
 }
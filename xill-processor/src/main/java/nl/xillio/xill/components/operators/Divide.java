@@ -24,6 +24,6 @@ import nl.xillio.xill.api.components.Processable;
 public class Divide extends BinaryNumberOperator {
 
     public Divide(final Processable left, final Processable right) {
-        super(left, right, MathUtils::divide);
+        super(left, right, MathUtils::divide, MathUtils::divide, MathUtils::divide, MathUtils::divide);
     }
 }
@@ -67,7 +67,8 @@ public final class IntegerShortcut implements Processable {
             value -= additiveValue;
         }
 
-        return InstructionFlow.doResume(ExpressionBuilderHelper.fromValue(value));
+        // The result is usually discarded, so return a shared value where possible
+        return InstructionFlow.doResume(ExpressionBuilderHelper.immutableValue(value));
     }
 
     @Override
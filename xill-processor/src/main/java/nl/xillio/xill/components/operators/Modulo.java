@@ -24,7 +24,7 @@ import nl.xillio.xill.api.components.Processable;
 public class Modulo extends BinaryNumberOperator {
 
     public Modulo(final Processable left, final Processable right) {
-        super(left, right, MathUtils::modulo);
+        super(left, right, MathUtils::modulo, MathUtils::modulo, MathUtils::modulo, MathUtils::modulo);
     }
 
 }
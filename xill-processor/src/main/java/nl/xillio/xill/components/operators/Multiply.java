@@ -24,7 +24,7 @@ import nl.xillio.xill.api.components.Processable;
 public class Multiply extends BinaryNumberOperator {
 
     public Multiply(final Processable left, final Processable right) {
-        super(left, right, MathUtils::multiply);
+        super(left, right, MathUtils::multiply, MathUtils::multiply, MathUtils::multiply, MathUtils::multiply);
     }
 
 }
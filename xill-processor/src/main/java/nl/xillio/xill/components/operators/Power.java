@@ -24,7 +24,7 @@ import nl.xillio.xill.api.components.Processable;
 public class Power extends BinaryNumberOperator {
 
     public Power(final Processable left, final Processable right) {
-        super(left, right, MathUtils::power);
+        super(left, right, MathUtils::power, MathUtils::power, MathUtils::power, MathUtils::power);
     }
 
 }
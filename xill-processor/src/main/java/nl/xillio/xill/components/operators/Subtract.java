@@ -24,7 +24,7 @@ import nl.xillio.xill.api.components.Processable;
 public class Subtract extends BinaryNumberOperator {
 
     public Subtract(final Processable left, final Processable right) {
-        super(left, right, MathUtils::subtract);
+        super(left, right, MathUtils::subtract, MathUtils::subtract, MathUtils::subtract, MathUtils::subtract);
     }
 
 }
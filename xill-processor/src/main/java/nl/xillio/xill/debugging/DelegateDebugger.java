@@ -42,6 +42,13 @@ public class DelegateDebugger implements Debugger {
         this.debugger = debugger;
     }
 
+    /**
+     * @return the debugger all calls are delegated to
+     */
+    public Debugger getDelegate() {
+        return debugger;
+    }
+
     @Override
     public void pause(boolean isUser) {
         debugger.pause(isUser);
@@ -177,6 +184,11 @@ public class DelegateDebugger implements Debugger {
         return debugger.getStackDepth();
     }
 
+    @Override
+    public ExecutionFrame getExecutionFrame() {
+        return debugger.getExecutionFrame();
+    }
+
     @Override
     public Debugger createChild() {
         return debugger.createChild();
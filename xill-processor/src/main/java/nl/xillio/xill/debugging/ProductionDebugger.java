@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.debugging;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.OutputHandler;
+import nl.xillio.xill.api.StoppableDebugger;
+import nl.xillio.xill.api.components.EventEx;
+import nl.xillio.xill.api.components.EventHostEx;
+import nl.xillio.xill.api.components.Instruction;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This debugger is used for headless runs, e.g. from the command line or the maven plugin.
+ * <p>
+ * It does not track the instruction stack and does not support breakpoints or pausing. The only thing that is checked
+ * between instructions is a stop flag. Instruction sets keep a reference to the instruction that is running, so the
+ * robot and line number of an error can be looked up when it is reported.
+ */
+public class ProductionDebugger extends StoppableDebugger {
+    private final EventHostEx<Object> onRobotInterrupt;
+    private Instruction currentInstruction;
+
+    /**
+     * Create a new root {@link ProductionDebugger}.
+     */
+    public ProductionDebugger() {
+        super(null);
+        onRobotInterrupt = new EventHostEx<>();
+    }
+
+    private ProductionDebugger(ProductionDebugger parent) {
+        super(parent);
+        onRobotInterrupt = parent.onRobotInterrupt;
+    }
+
+    /**
+     * Find the production debugger a debugger runs on, looking through delegating debuggers such as the one used for
+     * error blocks.
+     *
+     * @param debugger the debugger
+     * @return the production debugger or null if the debugger does not run on one
+     */
+    public static ProductionDebugger find(Debugger debugger) {
+        Debugger current = debugger;
+        while (current instanceof DelegateDebugger) {
+            current = ((DelegateDebugger) current).getDelegate();
+        }
+        return current instanceof ProductionDebugger ? (ProductionDebugger) current : null;
+    }
+
+    @Override
+    public void startInstruction(final Instruction instruction) {
+        // No stack tracking
+    }
+
+    @Override
+    public void endInstruction(final Instruction instruction, final InstructionFlow<MetaExpression> result) {
+        // No stack tracking
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        onRobotInterrupt.invoke(null);
+    }
+
+    @Override
+    public EventEx<Object> getOnRobotInterrupt() {
+        return onRobotInterrupt.getEvent();
+    }
+
+    /**
+     * @return the instruction that is running or failed last, or null if no instruction ran yet
+     */
+    public Instruction getCurrentInstruction() {
+        return currentInstruction;
+    }
+
+    /**
+     * Set the instruction that is running.
+     * Instruction sets restore the previous instruction when they complete normally, so after an error this still
+     * points to the instruction that failed.
+     *
+     * @param instruction the instruction
+     */
+    public void setCurrentInstruction(final Instruction instruction) {
+        currentInstruction = instruction;
+    }
+
+    @Override
+    protected void sendToOutputHandler(final Throwable e) {
+        OutputHandler outputHandler = getOutputHandler();
+        if (outputHandler != null) {
+            outputHandler.inspect(currentInstruction, e);
+        }
+    }
+
+    /**
+     * The stack is not tracked, so the trace only contains the current instruction.
+     *
+     * @return a list containing the current instruction or an empty list
+     */
+    @Override
+    public List<Instruction> getStackTrace() {
+        if (currentInstruction == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(currentInstruction);
+    }
+
+    @Override
+    public int getStackDepth() {
+        return 0;
+    }
+
+    @Override
+    protected StoppableDebugger newChild() {
+        return new ProductionDebugger(this);
+    }
+}
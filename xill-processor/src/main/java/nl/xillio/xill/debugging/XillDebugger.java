@@ -53,6 +53,7 @@ public class XillDebugger implements Debugger {
     private final Stack<nl.xillio.xill.api.components.Instruction> currentStack = new Stack<>();
     private final Stack<CounterWrapper> functionStack = new Stack<>();
     private final LinkedList<Debugger> childDebuggers = new LinkedList<>();
+    private final ExecutionFrame executionFrame = new ExecutionFrame();
     private DebugInfo debugInfo = new DebugInfo();
     private Instruction pausedOnInstruction = null;
     private ErrorHandlingPolicy handler = new NullDebugger();
@@ -197,6 +198,8 @@ public class XillDebugger implements Debugger {
         resume();
         currentStack.clear();
         functionStack.clear();
+        // Release values left behind by a previous (stopped) run, slot indices are reused by every compilation
+        executionFrame.release();
     }
 
     @Override
@@ -304,7 +307,7 @@ public class XillDebugger implements Debugger {
 
     private ScopeCheckResult checkScope(VariableDeclaration variableDeclaration, Instruction checkInstruction, int checkDepth) {
         if (variableDeclaration.getHostInstruction() == checkInstruction.getHostInstruction()) {
-            return new ScopeCheckResult(checkDepth, variableDeclaration.hasValue() && checkInstruction.getLineNumber() > variableDeclaration.getLineNumber(), variableDeclaration);
+            return new ScopeCheckResult(checkDepth, variableDeclaration.hasValue(this) && checkInstruction.getLineNumber() > variableDeclaration.getLineNumber(), variableDeclaration);
         }
 
         nl.xillio.xill.components.instructions.InstructionSet instructionSet = checkInstruction.getHostInstruction();
@@ -330,7 +333,7 @@ public class XillDebugger implements Debugger {
         MetaExpression value;
         Instruction parent = dec;
         do {
-            value = dec.peek(bottomPosition);
+            value = dec.peek(this, bottomPosition);
             parent = parent.getHostInstruction().getParentInstruction();
             bottomPosition--;
         }
@@ -338,7 +341,7 @@ public class XillDebugger implements Debugger {
 
         // If the variable was not found in a function call, look for it at robot level
         if (value == null) {
-            value = dec.peek(0);
+            value = dec.peek(this, 0);
         }
 
         return value;
@@ -407,6 +410,11 @@ public class XillDebugger implements Debugger {
         return stackSize > 0 ? stackSize - 1 : 0;
     }
 
+    @Override
+    public ExecutionFrame getExecutionFrame() {
+        return executionFrame;
+    }
+
     @Override
     public Debugger createChild() {
         Debugger debugger = new StoppableDebugger(this);
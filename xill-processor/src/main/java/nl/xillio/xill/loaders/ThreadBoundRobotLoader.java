@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.loaders;
+
+import xill.RobotLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A {@link RobotLoader} that forwards all calls to the loader that is bound to the current thread.
+ * This allows one Xtext injector to serve many processors that each load robots from different places.
+ */
+public class ThreadBoundRobotLoader extends AbstractRobotLoader {
+    private final ThreadLocal<AbstractRobotLoader> boundLoader = new ThreadLocal<>();
+
+    public ThreadBoundRobotLoader() {
+        super(null);
+    }
+
+    /**
+     * Bind a loader to the current thread until the returned binding is closed.
+     * Bindings can be nested, closing a binding restores the loader that was bound before it.
+     *
+     * @param loader the loader to forward to
+     * @return the binding
+     */
+    public Binding bind(AbstractRobotLoader loader) {
+        AbstractRobotLoader previous = boundLoader.get();
+        boundLoader.set(loader);
+        return () -> {
+            if (previous == null) {
+                boundLoader.remove();
+            } else {
+                boundLoader.set(previous);
+            }
+        };
+    }
+
+    private AbstractRobotLoader current() {
+        AbstractRobotLoader loader = boundLoader.get();
+        if (loader == null) {
+            throw new IllegalStateException("No robot loader is bound to this thread");
+        }
+        return loader;
+    }
+
+    @Override
+    public RobotLoader getParentLoader() {
+        return current().getParentLoader();
+    }
+
+    @Override
+    public URL getRobot(String fullyQualifiedName) {
+        return current().getRobot(fullyQualifiedName);
+    }
+
+    @Override
+    public InputStream getRobotAsStream(String fullyQualifiedName) throws IOException {
+        return current().getRobotAsStream(fullyQualifiedName);
+    }
+
+    @Override
+    public URL getResource(String path) {
+        return current().getResource(path);
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String path) throws IOException {
+        return current().getResourceAsStream(path);
+    }
+
+    @Override
+    public List<Path> getBasePaths() {
+        return current().getBasePaths();
+    }
+
+    @Override
+    protected URL doGetResource(String path) {
+        return current().doGetResource(path);
+    }
+
+    @Override
+    protected Path getBasePath() {
+        return current().getBasePath();
+    }
+
+    @Override
+    public void close() {
+        // The bound loaders are owned by their processors
+    }
+
+    /**
+     * A loader that is bound to a thread. Closing it restores the previous binding.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.collection.constructs;
+
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.WrappingIterator;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.components.expressions.pipeline.ParallelOptions;
+
+/**
+ * This construct will return an iterator over the given iterable that makes map and filter run their functions on
+ * multiple threads.
+ */
+public class ParallelConstruct extends Construct {
+
+    @Override
+    public ConstructProcessor prepareProcess(ConstructContext context) {
+        return new ConstructProcessor(
+                this::process,
+                new Argument("iterable", ATOMIC, LIST, OBJECT),
+                new Argument("options", NULL, OBJECT)
+        );
+    }
+
+    private MetaExpression process(MetaExpression iterable, MetaExpression options) {
+        ParallelOptions parallelOptions = ParallelOptions.parse(options);
+
+        MetaExpression result = fromValue("[Parallel iterator]");
+        result.storeMeta(WrappingIterator.identity(iterable));
+        result.storeMeta(parallelOptions);
+        return result;
+    }
+}
@@ -58,6 +58,7 @@ public class RemoveConstruct extends Construct {
                 object.remove(indexVar.getStringValue());
             }
         }
+        input.markModified();
         return NULL;
 
     }
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.constructs;
+
+import com.google.inject.Inject;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.plugins.concurrent.data.SharedScope;
+import nl.xillio.xill.plugins.concurrent.services.ConcurrentStore;
+
+/**
+ * Stores a value under a key in a named shared map, unless the key is already in use.
+ * Returns true if this call stored the value.
+ */
+public class PutIfAbsentConstruct extends Construct {
+
+    @Inject
+    ConcurrentStore store;
+
+    @Override
+    public ConstructProcessor prepareProcess(final ConstructContext context) {
+        return new ConstructProcessor(
+                (map, key, value) -> process(map, key, value, store.getScope(context)),
+                new Argument("map", ATOMIC),
+                new Argument("key", ATOMIC),
+                new Argument("value", ATOMIC, LIST, OBJECT));
+    }
+
+    static MetaExpression process(final MetaExpression map, final MetaExpression key, final MetaExpression value, final SharedScope scope) {
+        if (value.isNull()) {
+            throw new RobotRuntimeException("Cannot store null in a shared map");
+        }
+        return fromValue(scope.putIfAbsent(map.getStringValue(), key.getStringValue(), value));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.constructs;
+
+import com.google.inject.Inject;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.plugins.concurrent.data.Channel;
+import nl.xillio.xill.plugins.concurrent.services.ConcurrentStore;
+
+import java.util.function.Consumer;
+
+/**
+ * Receives a value from a channel, waiting while the channel is empty.
+ * Returns null when the channel is closed and empty or when the timeout expires.
+ */
+public class ReceiveConstruct extends Construct {
+
+    @Inject
+    ConcurrentStore store;
+
+    @Override
+    public ConstructProcessor prepareProcess(final ConstructContext context) {
+        return new ConstructProcessor(
+                (name, timeout) -> process(name, timeout, store.getScope(context).getChannel(name.getStringValue()), context),
+                new Argument("name", ATOMIC),
+                new Argument("timeout", fromValue(-1), ATOMIC));
+    }
+
+    static MetaExpression process(final MetaExpression name, final MetaExpression timeout, final Channel channel, final ConstructContext context) {
+        if (channel == null) {
+            throw new RobotRuntimeException("No channel named '" + name.getStringValue() + "' exists, create it using Concurrent.channel");
+        }
+
+        Thread thread = Thread.currentThread();
+        Consumer<Object> interruptListener = e -> thread.interrupt();
+        context.addRobotInterruptListener(interruptListener);
+        try {
+            MetaExpression value = channel.receive(timeout.getNumberValue().longValue());
+            return value == null ? NULL : value;
+        } catch (InterruptedException e) {
+            return NULL;
+        } finally {
+            context.removeRobotInterruptListener(interruptListener);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.constructs;
+
+import com.google.inject.Inject;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.plugins.concurrent.data.Channel;
+import nl.xillio.xill.plugins.concurrent.services.ConcurrentStore;
+
+import java.util.function.Consumer;
+
+/**
+ * Sends a value to a channel, waiting while the channel is full.
+ */
+public class SendConstruct extends Construct {
+
+    @Inject
+    ConcurrentStore store;
+
+    @Override
+    public ConstructProcessor prepareProcess(final ConstructContext context) {
+        return new ConstructProcessor(
+                (name, value, timeout) -> process(name, value, timeout, store.getScope(context).getChannel(name.getStringValue()), context),
+                new Argument("name", ATOMIC),
+                new Argument("value", ATOMIC, LIST, OBJECT),
+                new Argument("timeout", fromValue(-1), ATOMIC));
+    }
+
+    static MetaExpression process(final MetaExpression name, final MetaExpression value, final MetaExpression timeout, final Channel channel, final ConstructContext context) {
+        if (channel == null) {
+            throw new RobotRuntimeException("No channel named '" + name.getStringValue() + "' exists, create it using Concurrent.channel");
+        }
+        if (value.isNull()) {
+            throw new RobotRuntimeException("Cannot send null to a channel");
+        }
+
+        Thread thread = Thread.currentThread();
+        Consumer<Object> interruptListener = e -> thread.interrupt();
+        context.addRobotInterruptListener(interruptListener);
+        try {
+            return fromValue(channel.send(value, timeout.getNumberValue().longValue()));
+        } catch (InterruptedException e) {
+            return fromValue(false);
+        } catch (IllegalStateException e) {
+            throw new RobotRuntimeException("Cannot send to channel '" + name.getStringValue() + "' because it is closed", e);
+        } finally {
+            context.removeRobotInterruptListener(interruptListener);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.data;
+
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded blocking queue of {@link MetaExpression}s that can be closed.
+ * Senders block while the channel is full, which throttles producers to the speed of their consumers.
+ * Once a channel is closed no more values can be sent but the values that are still in it can be received.
+ * <p>
+ * The channel holds a copy of every value that was sent, so the sender and the receiver never share a value. The
+ * channel holds a reference to every copy in it, which it releases when the copy is received.
+ */
+public class Channel {
+    private final int capacity;
+    private final Deque<MetaExpression> values = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private boolean closed;
+
+    /**
+     * Create a new channel.
+     *
+     * @param capacity the maximum number of values that can wait in this channel
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public Channel(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of a channel must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Send a copy of a value, waiting for room if the channel is full.
+     *
+     * @param value   the value
+     * @param timeout the maximum number of milliseconds to wait, or a negative number to wait indefinitely
+     * @return true if the value was sent, false if the timeout expired
+     * @throws InterruptedException  if the thread was interrupted while waiting
+     * @throws IllegalStateException if the channel is closed
+     */
+    public boolean send(MetaExpression value, long timeout) throws InterruptedException {
+        MetaExpression copy = value.copy();
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!closed && values.size() >= capacity) {
+                if (timeout < 0) {
+                    notFull.await();
+                } else if (nanos <= 0) {
+                    return false;
+                } else {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("Cannot send a value to a closed channel");
+            }
+            copy.share().registerReference();
+            values.addLast(copy);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Receive a value, waiting for one if the channel is empty.
+     *
+     * @param timeout the maximum number of milliseconds to wait, or a negative number to wait indefinitely
+     * @return the value, or null if the timeout expired or the channel is closed and empty. The channel no longer holds
+     * a reference to it, so the caller should register one
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public MetaExpression receive(long timeout) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (values.isEmpty()) {
+                if (closed) {
+                    return null;
+                } else if (timeout < 0) {
+                    notEmpty.await();
+                } else if (nanos <= 0) {
+                    return null;
+                } else {
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            }
+            MetaExpression value = values.removeFirst();
+            notFull.signal();
+            return release(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the reference of a value that leaves the channel without disposing it.
+     *
+     * @param value the value
+     * @return the value
+     */
+    static MetaExpression release(MetaExpression value) {
+        value.preventDisposal();
+        value.releaseReference();
+        value.allowDisposal();
+        return value;
+    }
+
+    /**
+     * Close this channel and wake up everyone that is waiting on it.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close this channel and remove all values from it.
+     *
+     * @return the values that were still in the channel
+     */
+    public List<MetaExpression> drain() {
+        lock.lock();
+        try {
+            close();
+            List<MetaExpression> result = new ArrayList<>(values);
+            values.clear();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
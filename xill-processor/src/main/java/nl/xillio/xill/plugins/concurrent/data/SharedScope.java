@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.data;
+
+import nl.xillio.xill.api.components.MetaExpression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The named channels, counters and maps that are shared by all robots in one run.
+ * <p>
+ * Maps store a copy of every value, so a robot that changes the value it stored or got does not change it for the
+ * other robots. Every value in a map holds a reference that is released when it is replaced, removed or cleared.
+ */
+public class SharedScope {
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, MetaExpression>> maps = new ConcurrentHashMap<>();
+
+    /**
+     * Create a channel if no channel with this name exists.
+     *
+     * @param name     the name of the channel
+     * @param capacity the capacity of a new channel
+     * @return the channel with this name
+     */
+    public Channel createChannel(String name, int capacity) {
+        return channels.computeIfAbsent(name, key -> new Channel(capacity));
+    }
+
+    /**
+     * Get an existing channel.
+     *
+     * @param name the name of the channel
+     * @return the channel or null if no channel with this name exists
+     */
+    public Channel getChannel(String name) {
+        return channels.get(name);
+    }
+
+    /**
+     * Get a counter, creating it at 0 if it does not exist.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public AtomicLong getCounter(String name) {
+        return counters.computeIfAbsent(name, key -> new AtomicLong());
+    }
+
+    /**
+     * Get a map, creating it if it does not exist.
+     *
+     * @param name the name of the map
+     * @return the map
+     */
+    public ConcurrentMap<String, MetaExpression> getMap(String name) {
+        return maps.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Get a copy of a value in a map.
+     *
+     * @param map the name of the map
+     * @param key the key
+     * @return a copy of the value or null if there is no value
+     */
+    public MetaExpression get(String map, String key) {
+        MetaExpression value = getMap(map).get(key);
+        return value == null ? null : value.copy();
+    }
+
+    /**
+     * Store a copy of a value in a map and release the value it replaces.
+     *
+     * @param map   the name of the map
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(String map, String key, MetaExpression value) {
+        MetaExpression stored = value.copy();
+        stored.share().registerReference();
+        MetaExpression previous = getMap(map).put(key, stored);
+        if (previous != null) {
+            previous.releaseReference();
+        }
+    }
+
+    /**
+     * Store a copy of a value in a map if the key is not in use.
+     *
+     * @param map   the name of the map
+     * @param key   the key
+     * @param value the value
+     * @return true if the value was stored
+     */
+    public boolean putIfAbsent(String map, String key, MetaExpression value) {
+        if (getMap(map).containsKey(key)) {
+            return false;
+        }
+        MetaExpression stored = value.copy();
+        stored.share().registerReference();
+        if (getMap(map).putIfAbsent(key, stored) == null) {
+            return true;
+        }
+        stored.releaseReference();
+        return false;
+    }
+
+    /**
+     * Remove a value from a map. The map no longer holds a reference to it, so the caller should register one.
+     *
+     * @param map the name of the map
+     * @param key the key
+     * @return the removed value or null if there was no value
+     */
+    public MetaExpression remove(String map, String key) {
+        MetaExpression value = getMap(map).remove(key);
+        return value == null ? null : Channel.release(value);
+    }
+
+    /**
+     * Remove a value from a map and dispose it.
+     *
+     * @param map the name of the map
+     * @param key the key
+     */
+    public void discard(String map, String key) {
+        MetaExpression value = getMap(map).remove(key);
+        if (value != null) {
+            value.releaseReference();
+        }
+    }
+
+    /**
+     * Close all channels so robots that wait on them can continue.
+     */
+    public void closeChannels() {
+        channels.values().forEach(Channel::close);
+    }
+
+    /**
+     * Close all channels and release every value in this scope.
+     */
+    public void clear() {
+        channels.values().forEach(channel -> channel.drain().forEach(MetaExpression::releaseReference));
+        channels.clear();
+        counters.clear();
+        for (Map<String, MetaExpression> map : maps.values()) {
+            map.values().forEach(MetaExpression::releaseReference);
+            map.clear();
+        }
+        maps.clear();
+    }
+}
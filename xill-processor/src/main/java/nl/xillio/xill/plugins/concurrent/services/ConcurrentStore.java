@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.services;
+
+import com.google.inject.Singleton;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.plugins.concurrent.data.SharedScope;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This service keeps a {@link SharedScope} for every run of a root robot.
+ * All robots in a run, such as the robots started by runBulk, see the same channels, counters and maps. Runs are told
+ * apart by the {@link ConstructContext#getRootCompilerSerialId() serial id} of the compilation of their root robot, so
+ * two runs of the same robot do not share a scope.
+ * <p>
+ * When a scope is created, its channels are set up to close when the run is interrupted and the whole scope is cleared
+ * when the root robot stops, even if only sub-robots use it.
+ */
+@Singleton
+public class ConcurrentStore {
+    private final Map<UUID, SharedScope> scopes = new ConcurrentHashMap<>();
+
+    /**
+     * Get the scope that is shared by all robots in the same run as this context.
+     *
+     * @param context the context of the calling construct
+     * @return the scope
+     */
+    public SharedScope getScope(ConstructContext context) {
+        UUID run = context.getRootCompilerSerialId();
+        if (run == null) {
+            // Not compiled for a run, so there is nothing to share with
+            return new SharedScope();
+        }
+        SharedScope scope = scopes.get(run);
+        if (scope != null) {
+            return scope;
+        }
+        SharedScope created = new SharedScope();
+        scope = scopes.putIfAbsent(run, created);
+        if (scope != null) {
+            return scope;
+        }
+        bind(context, run, created);
+        return created;
+    }
+
+    private void bind(ConstructContext context, UUID run, SharedScope scope) {
+        Consumer<Object> interruptListener = e -> scope.closeChannels();
+        context.addRobotInterruptListener(interruptListener);
+        context.addRootRobotStoppedListener(e -> {
+            context.removeRobotInterruptListener(interruptListener);
+            scopes.remove(run, scope);
+            scope.clear();
+        });
+    }
+}
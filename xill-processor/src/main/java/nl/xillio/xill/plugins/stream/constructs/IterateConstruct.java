@@ -74,15 +74,15 @@ class IterateConstruct extends Construct {
             }
         };
 
-        MetaExpression result = fromValue(buildStringValue(stream, delimiter));
+        String delimiterValue = delimiter.getStringValue();
+        MetaExpression result = lazyValue(() -> buildStringValue(stream, delimiterValue));
         result.storeMeta(iterator);
 
         return result;
     }
 
-    private String buildStringValue(MetaExpression stream, MetaExpression delimiter) {
+    private String buildStringValue(MetaExpression stream, String delimiterValue) {
         String description = stream.getBinaryValue().getDescription();
-        String delimiterValue = delimiter.getStringValue();
 
         if (description == null) {
             return "[Stream Iterator]";
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.stream.constructs;
+
+import com.google.inject.Inject;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.InvalidUserInputException;
+import nl.xillio.xill.api.errors.OperationFailedException;
+import nl.xillio.xill.services.json.JsonException;
+import nl.xillio.xill.services.json.JsonExpressionIterator;
+import nl.xillio.xill.services.json.JsonParser;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+import static nl.xillio.xill.plugins.stream.utils.StreamUtils.getInputStream;
+
+/**
+ * Iterates over the elements of a json array or the values of a newline-delimited json stream, one at a time.
+ * The mode argument tells which of the two the stream holds, by default an array is expected if the stream starts
+ * with one.
+ */
+class IterateJSONConstruct extends Construct {
+    private final JsonParser jsonParser;
+
+    @Inject
+    IterateJSONConstruct(JsonParser jsonParser) {
+        this.jsonParser = jsonParser;
+    }
+
+    @Override
+    public ConstructProcessor prepareProcess(ConstructContext context) {
+        return new ConstructProcessor(
+                this::process,
+                new Argument("stream", ATOMIC),
+                new Argument("mode", fromValue("auto"), ATOMIC)
+        );
+    }
+
+    @SuppressWarnings("squid:UnusedPrivateMethod") // Sonar does not detect method references
+    private MetaExpression process(final MetaExpression stream, final MetaExpression mode) {
+        JsonExpressionIterator.Mode iterationMode = getMode(mode);
+        JsonExpressionIterator values;
+        try {
+            values = jsonParser.iterate(getInputStream(stream, "stream"), iterationMode);
+        } catch (JsonException e) {
+            throw new OperationFailedException("read JSON", e.getMessage(), e);
+        }
+
+        // Keep the stream alive for as long as the iterator is used, see Stream.iterate
+        stream.registerReference();
+        MetaExpressionIterator<MetaExpression> iterator = new MetaExpressionIterator<MetaExpression>(values, Function.identity()) {
+            @Override
+            public void close() throws Exception {
+                super.close(); // closes the json parser
+                stream.releaseReference();
+            }
+        };
+
+        MetaExpression result = lazyValue(() -> buildStringValue(stream));
+        result.storeMeta(iterator);
+
+        return result;
+    }
+
+    private JsonExpressionIterator.Mode getMode(MetaExpression mode) {
+        try {
+            return JsonExpressionIterator.Mode.valueOf(mode.getStringValue().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUserInputException("Unknown iteration mode.", mode.getStringValue(), "\"array\", \"lines\" or \"auto\"",
+                    "use File, Stream;\n" +
+                    "var file = File.openRead(\"path/to/export.ndjson\");\n" +
+                    "var documents = Stream.iterateJSON(file, \"lines\");", e);
+        }
+    }
+
+    private String buildStringValue(MetaExpression stream) {
+        String description = stream.getBinaryValue().getDescription();
+
+        if (description == null) {
+            return "[JSON Iterator]";
+        }
+
+        return "[JSON Iterator: " + description + "]";
+    }
+}
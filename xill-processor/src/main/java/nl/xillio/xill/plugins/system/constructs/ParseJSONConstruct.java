@@ -28,11 +28,12 @@ import nl.xillio.xill.services.json.JsonException;
 import nl.xillio.xill.services.json.JsonParser;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 /**
- * Forwards a JSON string to GSON
+ * Parses a JSON string or stream into a value
  */
 public class ParseJSONConstruct extends Construct {
 
@@ -75,11 +76,13 @@ public class ParseJSONConstruct extends Construct {
                     atomicJson.getStringValue(), "An ATOMIC representing a JSON string", "\"{\\\"1\\\":\\\"value\\\",\\\"2\\\":\\\"anotherValue\\\"}\"");
         }
 
-        String jsonValue = atomicJson.getStringValue();
-
         try {
-            Object result = jsonParser.fromJson(jsonValue, Object.class);
-            return parseObject(result);
+            if (atomicJson.getBinaryValue().hasInputStream()) {
+                return jsonParser.parse(atomicJson.getBinaryValue().getInputStream());
+            }
+            return jsonParser.parse(atomicJson.getStringValue());
+        } catch (IOException e) {
+            throw new OperationFailedException("open stream", e.getMessage(), e);
         } catch (JsonException e) {
             Throwable exception = ExceptionUtils.getRootCause(e);
             if (exception == null) {
@@ -21,13 +21,17 @@ import nl.xillio.xill.api.construct.Argument;
 import nl.xillio.xill.api.construct.Construct;
 import nl.xillio.xill.api.construct.ConstructContext;
 import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.OperationFailedException;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
 import nl.xillio.xill.services.json.JsonException;
 import nl.xillio.xill.services.json.JsonParser;
 import nl.xillio.xill.services.json.PrettyJsonParser;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
- * Returns a json string representation of the input.
+ * Returns a json string representation of the input, or writes it to a stream.
  *
  * @author Thomas Biesaart
  */
@@ -40,16 +44,42 @@ public class ToJSONConstruct extends Construct {
 
     @Override
     public ConstructProcessor prepareProcess(final ConstructContext context) {
-        return new ConstructProcessor((expression, pretty) -> process(expression, pretty, jsonParser, prettyJsonParser), new Argument("expression"), new Argument("pretty", FALSE, ATOMIC));
+        return new ConstructProcessor(
+                (expression, pretty, output) -> process(expression, pretty, output, jsonParser, prettyJsonParser),
+                new Argument("expression"),
+                new Argument("pretty", FALSE, ATOMIC),
+                new Argument("output", NULL, ATOMIC));
     }
 
     static MetaExpression process(final MetaExpression expression, final MetaExpression pretty, final JsonParser parser, final JsonParser prettyParser) {
+        return process(expression, pretty, NULL, parser, prettyParser);
+    }
+
+    static MetaExpression process(final MetaExpression expression, final MetaExpression pretty, final MetaExpression output, final JsonParser parser, final JsonParser prettyParser) {
         JsonParser jsonParser = pretty.getBooleanValue() ? prettyParser : parser;
 
         try {
-            return fromValue(jsonParser.toJson(expression));
+            if (output.isNull()) {
+                return fromValue(jsonParser.toJson(expression));
+            }
+
+            // Write straight to the stream so large values are never held in memory as a string
+            jsonParser.toJson(expression, getOutputStream(output));
+            return output;
         } catch (JsonException e) {
             throw new RobotRuntimeException(e.getMessage(), e);
         }
     }
+
+    private static OutputStream getOutputStream(final MetaExpression output) {
+        if (!output.getBinaryValue().hasOutputStream()) {
+            throw new RobotRuntimeException("Expected a writing data stream for parameter output but found: " + output);
+        }
+
+        try {
+            return output.getBinaryValue().getOutputStream();
+        } catch (IOException e) {
+            throw new OperationFailedException("open stream", e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.api.errors.XillParsingException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link CompiledRobotCache}.
+ */
+public class CompiledRobotCacheTest {
+    private Path robotFile;
+    private RobotID robotID;
+    private RobotID rootRobot;
+    private CompiledRobotCache cache;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        robotFile = Files.createTempFile("robot", ".xill");
+        Files.write(robotFile, "use System;".getBytes());
+        robotID = new RobotID(robotFile.toUri().toURL(), "robot.xill");
+        rootRobot = RobotID.dummyRobot();
+        cache = new CompiledRobotCache();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(robotFile);
+    }
+
+    @Test
+    public void testCompiledRobotIsShared() throws XillParsingException {
+        CompiledRobotCache.Compiler compiler = compiler();
+
+        Robot first = cache.get(robotID, rootRobot, compiler);
+        Robot second = cache.get(robotID, rootRobot, compiler);
+
+        assertSame(second, first);
+        verify(compiler, times(1)).compile();
+    }
+
+    @Test
+    public void testChangedSourceIsRecompiled() throws XillParsingException, IOException {
+        CompiledRobotCache.Compiler compiler = compiler();
+
+        Robot first = cache.get(robotID, rootRobot, compiler);
+
+        Files.write(robotFile, "use System;\nSystem.print(\"changed\");".getBytes());
+        Robot second = cache.get(robotID, rootRobot, compiler);
+
+        assertNotSame(second, first);
+        verify(compiler, times(2)).compile();
+    }
+
+    @Test
+    public void testDifferentRootRobotIsNotShared() throws XillParsingException {
+        CompiledRobotCache.Compiler compiler = compiler();
+
+        Robot first = cache.get(robotID, rootRobot, compiler);
+        Robot second = cache.get(robotID, robotID, compiler);
+
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void testClear() throws XillParsingException {
+        CompiledRobotCache.Compiler compiler = compiler();
+
+        Robot first = cache.get(robotID, rootRobot, compiler);
+        cache.clear();
+        Robot second = cache.get(robotID, rootRobot, compiler);
+
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void testNonFileSourceIsNotReadOnEveryLookup() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        URL source = new URL(null, "counting:robot.xill", new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                        // Nothing to connect to
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        reads.incrementAndGet();
+                        return new ByteArrayInputStream("use System;".getBytes());
+                    }
+                };
+            }
+        });
+        CompiledRobotCache.Compiler compiler = compiler(source);
+
+        cache = new CompiledRobotCache(TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < 100; i++) {
+            cache.get(robotID, rootRobot, compiler);
+        }
+        assertEquals(reads.get(), 1);
+
+        cache = new CompiledRobotCache(0);
+        cache.get(robotID, rootRobot, compiler);
+        cache.get(robotID, rootRobot, compiler);
+        assertEquals(reads.get(), 3);
+        verify(compiler, times(2)).compile();
+    }
+
+    private CompiledRobotCache.Compiler compiler() throws XillParsingException {
+        return compiler(robotID.getURL());
+    }
+
+    private CompiledRobotCache.Compiler compiler(URL source) throws XillParsingException {
+        CompiledRobotCache.Compiler compiler = mock(CompiledRobotCache.Compiler.class);
+        when(compiler.compile()).thenAnswer(invocation -> {
+            XillProcessor processor = mock(XillProcessor.class);
+            nl.xillio.xill.components.Robot robot = new nl.xillio.xill.components.Robot(robotID, new NullDebugger(), null, null, UUID.randomUUID());
+            when(processor.getRobot()).thenReturn(robot);
+            when(processor.getCompiledSources()).thenReturn(Collections.singletonList(source));
+            return processor;
+        });
+        return compiler;
+    }
+}
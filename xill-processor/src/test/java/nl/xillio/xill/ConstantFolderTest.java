@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill;
+
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.ExpressionBuilder;
+import nl.xillio.xill.api.components.ExpressionBuilderHelper;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Processable;
+import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.expressions.ConstantExpression;
+import nl.xillio.xill.components.operators.Add;
+import nl.xillio.xill.components.operators.Concat;
+import nl.xillio.xill.components.operators.Equals;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link ConstantFolder}.
+ */
+public class ConstantFolderTest {
+    private final CodePosition position = new CodePosition(RobotID.dummyRobot(), 1);
+
+    @Test
+    public void testFoldArithmetic() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable left = folder.literal(new ExpressionBuilder(2));
+        Processable right = folder.literal(new ExpressionBuilder(1024));
+
+        Processable result = folder.fold(new Add(left, right), position, left, right);
+
+        assertTrue(result instanceof ConstantExpression);
+        assertTrue(folder.isConstant(result));
+        assertEquals(result.process(new NullDebugger()).get().getNumberValue().intValue(), 1026);
+        assertEquals(folder.getReport().size(), 1);
+        assertSame(folder.getReport().getEntries().get(0).getPosition(), position);
+    }
+
+    @Test
+    public void testFoldedResultsAreNested() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable a = folder.literal(new ExpressionBuilder("a"));
+        Processable b = folder.literal(new ExpressionBuilder("b"));
+        Processable c = folder.literal(new ExpressionBuilder("c"));
+
+        Processable ab = folder.fold(new Concat(a, b), position, a, b);
+        Processable abc = folder.fold(new Concat(ab, c), position, ab, c);
+
+        assertEquals(abc.process(new NullDebugger()).get().getStringValue(), "abc");
+        assertEquals(folder.getReport().size(), 2);
+    }
+
+    @Test
+    public void testNonConstantOperandIsNotFolded() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable left = folder.literal(new ExpressionBuilder(2));
+        Processable right = mock(Processable.class);
+        Add add = new Add(left, right);
+
+        assertSame(folder.fold(add, position, left, right), add);
+        assertEquals(folder.getReport().size(), 0);
+    }
+
+    @Test
+    public void testFailingExpressionIsKept() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable left = folder.literal(new ExpressionBuilder(1));
+        Processable right = folder.literal(mock(Processable.class));
+        when(right.process(any())).thenThrow(new RobotRuntimeException("Failed"));
+        Add add = new Add(left, right);
+
+        assertSame(folder.fold(add, position, left, right), add);
+        assertEquals(folder.getReport().size(), 0);
+    }
+
+    @Test
+    public void testListIsNotHoisted() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable first = folder.literal(new ExpressionBuilder(1));
+        Processable second = folder.literal(new ExpressionBuilder(2));
+        List<Processable> elements = Arrays.asList(first, second);
+        ExpressionBuilder builder = new ExpressionBuilder(elements);
+
+        Processable list = folder.fold(builder, position, first, second);
+        assertSame(list, builder);
+        assertTrue(folder.isConstant(list));
+        assertEquals(folder.getReport().size(), 0);
+
+        MetaExpression value = list.process(new NullDebugger()).get();
+        List<MetaExpression> values = value.getValue();
+        values.add(ExpressionBuilderHelper.fromValue(3));
+
+        List<MetaExpression> fresh = list.process(new NullDebugger()).get().getValue();
+        assertEquals(fresh.size(), 2);
+        assertNotSame(fresh, values);
+    }
+
+    @Test
+    public void testConstantListOperandsAreFolded() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable element = folder.literal(new ExpressionBuilder(1));
+        Processable left = folder.fold(new ExpressionBuilder(Collections.singletonList(element)), position, element);
+        Processable right = folder.fold(new ExpressionBuilder(Collections.singletonList(element)), position, element);
+
+        Processable result = folder.fold(new Equals(left, right), position, left, right);
+
+        assertTrue(result instanceof ConstantExpression);
+        assertTrue(result.process(new NullDebugger()).get().getBooleanValue());
+    }
+
+    @Test
+    public void testGetType() {
+        ConstantFolder folder = new ConstantFolder();
+        Processable list = folder.fold(new ExpressionBuilder(Collections.emptyList()), position);
+        Processable typed = folder.typed(mock(Processable.class), ExpressionDataType.OBJECT);
+
+        assertEquals(folder.getType(folder.literal(new ExpressionBuilder("a"))).get(), ExpressionDataType.ATOMIC);
+        assertEquals(folder.getType(list).get(), ExpressionDataType.LIST);
+        assertEquals(folder.getType(typed).get(), ExpressionDataType.OBJECT);
+        assertFalse(folder.getType(mock(Processable.class)).isPresent());
+    }
+
+    @Test
+    public void testEvaluateCondition() {
+        ConstantFolder folder = new ConstantFolder();
+
+        assertEquals(folder.evaluateCondition(folder.literal(ExpressionBuilderHelper.TRUE)).get(), Boolean.TRUE);
+        assertEquals(folder.evaluateCondition(folder.literal(ExpressionBuilderHelper.FALSE)).get(), Boolean.FALSE);
+        assertFalse(folder.evaluateCondition(mock(Processable.class)).isPresent());
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components;
+
+import nl.xillio.events.EventHost;
+import nl.xillio.xill.api.DefaultOutputHandler;
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.ExecutionFrame;
+import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.events.RobotStoppedAction;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests for {@link RobotRun}.
+ */
+public class RobotRunTest {
+    private final UUID compiledId = UUID.randomUUID();
+    private final UUID rootId = UUID.randomUUID();
+    private final EventHost<RobotStoppedAction> rootStopped = new EventHost<>();
+
+    @Test
+    public void testEveryRunHasItsOwnContext() {
+        ConstructContext compiled = context(new NullDebugger());
+        NullDebugger first = new NullDebugger();
+        NullDebugger second = new NullDebugger();
+        RobotRun.start(first);
+        RobotRun.start(second);
+
+        ConstructContext firstContext = RobotRun.contextOf(first, compiled);
+        ConstructContext secondContext = RobotRun.contextOf(second, compiled);
+
+        assertNotEquals(firstContext.getCompilerSerialId(), secondContext.getCompilerSerialId());
+        assertNotEquals(firstContext.getCompilerSerialId(), compiledId);
+        assertEquals(firstContext.getRootCompilerSerialId(), rootId);
+        assertSame(RobotRun.contextOf(new NullDebugger(), compiled), compiled);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOnlyTheStoppedRunIsNotified() {
+        ConstructContext compiled = context(new NullDebugger());
+        NullDebugger first = new NullDebugger();
+        NullDebugger second = new NullDebugger();
+        RobotRun.start(first);
+        RobotRun.start(second);
+        Consumer<RobotStoppedAction> firstListener = mock(Consumer.class);
+        Consumer<RobotStoppedAction> secondListener = mock(Consumer.class);
+        RobotRun.contextOf(first, compiled).addRobotStoppedListener(firstListener);
+        RobotRun.contextOf(second, compiled).addRobotStoppedListener(secondListener);
+
+        EventHost<RobotStoppedAction> robotStopped = new EventHost<>();
+        Consumer<RobotStoppedAction> robotListener = mock(Consumer.class);
+        robotStopped.getEvent().addListener(robotListener);
+        new Robot(RobotID.dummyRobot(), new NullDebugger(), new EventHost<>(), robotStopped, compiledId).process(first);
+
+        verify(firstListener).accept(any());
+        verify(secondListener, never()).accept(any());
+        verify(robotListener, never()).accept(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRunIsStoppedWhenItsFrameIsReleased() {
+        NullDebugger debugger = new NullDebugger();
+        RobotRun run = RobotRun.start(debugger);
+        Consumer<RobotStoppedAction> listener = mock(Consumer.class);
+        RobotRun.contextOf(debugger, context(debugger)).addRobotStoppedListener(listener);
+        run.started(robot());
+
+        ExecutionFrame worker = new ExecutionFrame();
+        worker.inherit(debugger.getExecutionFrame());
+        worker.release();
+        verify(listener, never()).accept(any());
+
+        debugger.getExecutionFrame().release();
+        debugger.getExecutionFrame().release();
+        verify(listener).accept(any());
+    }
+
+    private ConstructContext context(NullDebugger debugger) {
+        return new ConstructContext(null, RobotID.dummyRobot(), RobotID.dummyRobot(), null, null, debugger, compiledId, rootId, new DefaultOutputHandler(),
+                new EventHost<>(), new EventHost<>(), rootStopped);
+    }
+
+    private Robot robot() {
+        return new Robot(RobotID.dummyRobot(), new NullDebugger(), new EventHost<>(), new EventHost<>(), compiledId);
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions;
+
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.ExpressionBuilder;
+import nl.xillio.xill.api.components.Processable;
+import nl.xillio.xill.api.construct.Argument;
+import nl.xillio.xill.api.construct.Construct;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.components.RobotRun;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+import static nl.xillio.xill.api.components.ExpressionDataType.ATOMIC;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests for {@link ConstructCall}.
+ */
+public class ConstructCallTest {
+
+    @Test
+    public void testProcessorIsReusedWithinFrame() {
+        Construct construct = lengthConstruct();
+        ConstructCall call = new ConstructCall(construct, Collections.singletonList(new ExpressionBuilder("abc")), mock(ConstructContext.class), 0);
+        Debugger debugger = new NullDebugger();
+
+        assertEquals(call.process(debugger).get().getNumberValue().intValue(), 3);
+        assertEquals(call.process(debugger).get().getNumberValue().intValue(), 3);
+
+        verify(construct, times(1)).prepareProcess(any());
+    }
+
+    @Test
+    public void testEveryFrameHasItsOwnProcessor() {
+        Construct construct = lengthConstruct();
+        ConstructCall call = new ConstructCall(construct, Collections.singletonList(new ExpressionBuilder("abc")), mock(ConstructContext.class));
+
+        call.process(new NullDebugger());
+        call.process(new NullDebugger());
+
+        verify(construct, times(2)).prepareProcess(any());
+    }
+
+    @Test
+    public void testReentrantCallPreparesNewProcessor() {
+        Construct construct = lengthConstruct();
+        Debugger debugger = new NullDebugger();
+        ConstructCall[] call = new ConstructCall[1];
+        int[] depth = new int[1];
+
+        // The outer evaluation of the argument calls the construct again, the inner one returns a plain value
+        Processable argument = mock(Processable.class);
+        when(argument.process(any())).thenAnswer(invocation -> {
+            if (depth[0]++ == 0) {
+                return call[0].process(debugger);
+            }
+            return new ExpressionBuilder("ab").process(debugger);
+        });
+        call[0] = new ConstructCall(construct, Collections.singletonList(argument), mock(ConstructContext.class), 0);
+
+        assertEquals(call[0].process(debugger).get().getNumberValue().intValue(), 1);
+        verify(construct, times(2)).prepareProcess(any());
+    }
+
+    @Test
+    public void testCheckedArgumentIsNotCheckedAgain() {
+        ConstructProcessor processor = spy(new ConstructProcessor(
+                value -> fromValue(value.getStringValue().length()),
+                new Argument("value", ATOMIC)
+        ));
+        Construct construct = mock(Construct.class);
+        when(construct.prepareProcess(any())).thenReturn(processor);
+        ConstructCall call = new ConstructCall(construct, Collections.singletonList(new ExpressionBuilder("abc")), mock(ConstructContext.class), 0, new boolean[]{true});
+
+        assertEquals(call.process(new NullDebugger()).get().getNumberValue().intValue(), 3);
+
+        verify(processor).setCheckedArgument(eq(0), any());
+        verify(processor, never()).setArgument(anyInt(), any());
+    }
+
+    @Test
+    public void testProcessorIsClosedWhenFrameIsReleased() {
+        ConstructProcessor processor = spy(new ConstructProcessor(
+                value -> fromValue(value.getStringValue().length()),
+                new Argument("value")
+        ));
+        Construct construct = mock(Construct.class);
+        when(construct.prepareProcess(any())).thenReturn(processor);
+        ConstructCall call = new ConstructCall(construct, Collections.singletonList(new ExpressionBuilder("abc")), mock(ConstructContext.class), 0);
+        Debugger debugger = new NullDebugger();
+
+        call.process(debugger);
+        verify(processor, never()).close();
+
+        debugger.getExecutionFrame().release();
+        verify(processor).close();
+    }
+
+    @Test
+    public void testProcessorIsPreparedWithTheContextOfTheRun() {
+        Construct construct = lengthConstruct();
+        ConstructContext compiled = mock(ConstructContext.class);
+        ConstructContext run = mock(ConstructContext.class);
+        when(compiled.forRun(any(), any(), any(), any())).thenReturn(run);
+        ConstructCall call = new ConstructCall(construct, Collections.singletonList(new ExpressionBuilder("abc")), compiled, 0);
+        Debugger debugger = new NullDebugger();
+        RobotRun.start(debugger);
+
+        call.process(debugger);
+        call.process(new NullDebugger());
+
+        verify(construct).prepareProcess(run);
+        verify(construct).prepareProcess(compiled);
+    }
+
+    private Construct lengthConstruct() {
+        Construct construct = mock(Construct.class);
+        when(construct.prepareProcess(any())).thenAnswer(invocation -> new ConstructProcessor(
+                value -> fromValue(value.getStringValue().length()),
+                new Argument("value")
+        ));
+        return construct;
+    }
+}
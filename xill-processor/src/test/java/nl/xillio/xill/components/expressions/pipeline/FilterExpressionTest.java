@@ -17,6 +17,7 @@ package nl.xillio.xill.components.expressions.pipeline;
 
 import nl.xillio.xill.TestUtils;
 import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
 import nl.xillio.xill.api.components.InstructionFlow;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.MetaExpressionIterator;
@@ -74,6 +75,23 @@ public class FilterExpressionTest extends TestUtils {
         iterator.next();
     }
 
+    @Test
+    public void testParallel() {
+        MetaExpression input = parseObject(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+        input.storeMeta(new ParallelOptions(4, 4, true));
+        FilterExpression expression = new FilterExpression(input);
+        expression.setFunction(new IsEvenFunction());
+
+        MetaExpression result = expression.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        assertEquals(iterator.next(), fromValue(2));
+        assertEquals(iterator.next(), fromValue(4));
+        assertEquals(iterator.next(), fromValue(6));
+        assertEquals(iterator.next(), fromValue(8));
+        assertFalse(iterator.hasNext());
+    }
+
     private class IsEvenFunction extends FunctionDeclaration {
 
         public IsEvenFunction() {
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.pipeline;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.components.Processable;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.instructions.FunctionDeclaration;
+import nl.xillio.xill.components.instructions.InstructionSet;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link FusedPipelineExpression}.
+ */
+public class FusedPipelineExpressionTest extends TestUtils {
+
+    @Test
+    public void testFuseSingleStage() {
+        MapExpression map = new MapExpression(parseObject(Arrays.asList(1, 2)));
+
+        assertSame(FusedPipelineExpression.fuse(map), map);
+    }
+
+    @Test
+    public void testFusedChain() {
+        List<Integer> peeked = new ArrayList<>();
+        Processable pipeline = chain(parseObject(Arrays.asList(1, 2, 3, 4, 5)), peeked);
+
+        MetaExpression result = pipeline.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        assertEquals(iterator.next(), fromValue(20));
+        assertEquals(iterator.next(), fromValue(40));
+        assertFalse(iterator.hasNext());
+        assertEquals(peeked, Arrays.asList(1, 2, 3, 4, 5));
+        assertEquals(result.getStringValue(), "map(filter(peek([1,2,3,4,5])))");
+    }
+
+    @Test
+    public void testParallelChainWithPeekRunsPerStage() {
+        List<Integer> peeked = new ArrayList<>();
+        MetaExpression input = parseObject(Arrays.asList(1, 2, 3, 4));
+        input.storeMeta(new ParallelOptions(2, 4, true));
+        Processable pipeline = chain(input, peeked);
+
+        MetaExpression result = pipeline.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        assertEquals(iterator.next(), fromValue(20));
+        assertEquals(iterator.next(), fromValue(40));
+        assertFalse(iterator.hasNext());
+        assertEquals(peeked, Arrays.asList(1, 2, 3, 4));
+        assertTrue(result.hasMeta(ParallelOptions.class));
+    }
+
+    @Test
+    public void testParallelChain() {
+        MetaExpression input = parseObject(Arrays.asList(1, 2, 3, 4));
+        input.storeMeta(new ParallelOptions(2, 4, true));
+        FilterExpression filter = new FilterExpression(input);
+        filter.setFunction(new TestFunction(value -> fromValue(value % 2 == 0)));
+        MapExpression map = new MapExpression(FusedPipelineExpression.fuse(filter));
+        map.setFunction(new TestFunction(value -> fromValue(value * 10)));
+        Processable pipeline = FusedPipelineExpression.fuse(map);
+
+        MetaExpression result = pipeline.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        assertTrue(pipeline instanceof FusedPipelineExpression);
+        assertEquals(iterator.next(), fromValue(20));
+        assertEquals(iterator.next(), fromValue(40));
+        assertFalse(iterator.hasNext());
+        assertTrue(result.hasMeta(ParallelOptions.class));
+    }
+
+    /**
+     * Build map(filter(peek(input))) the way the program factory does.
+     */
+    private Processable chain(Processable input, List<Integer> peeked) {
+        PeekExpression peek = new PeekExpression(input);
+        peek.setFunction(new TestFunction(value -> {
+            peeked.add(value);
+            return NULL;
+        }));
+        FilterExpression filter = new FilterExpression(FusedPipelineExpression.fuse(peek));
+        filter.setFunction(new TestFunction(value -> fromValue(value % 2 == 0)));
+        MapExpression map = new MapExpression(FusedPipelineExpression.fuse(filter));
+        map.setFunction(new TestFunction(value -> fromValue(value * 10)));
+        return FusedPipelineExpression.fuse(map);
+    }
+
+    private class TestFunction extends FunctionDeclaration {
+        private final Function<Integer, MetaExpression> function;
+
+        public TestFunction(Function<Integer, MetaExpression> function) {
+            super(mock(InstructionSet.class), new ArrayList<>());
+            this.function = function;
+        }
+
+        @Override
+        public InstructionFlow<MetaExpression> run(Debugger debugger, List<MetaExpression> arguments) throws RobotRuntimeException {
+            return InstructionFlow.doResume(function.apply(arguments.get(0).getNumberValue().intValue()));
+        }
+    }
+}
@@ -17,6 +17,7 @@ package nl.xillio.xill.components.expressions.pipeline;
 
 import nl.xillio.xill.TestUtils;
 import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
 import nl.xillio.xill.api.components.InstructionFlow;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.MetaExpressionIterator;
@@ -28,11 +29,16 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 
 public class MapExpressionTest extends TestUtils {
@@ -64,6 +70,75 @@ public class MapExpressionTest extends TestUtils {
         assertFalse(iterator.hasNext());
     }
 
+    @Test
+    public void testDescription() {
+        MetaExpression input = parseObject(Arrays.asList(1, 2));
+        MapExpression expression = new MapExpression(input);
+        expression.setFunction(new IdentityFunction());
+
+        MetaExpression result = expression.process(mock(Debugger.class)).get();
+
+        assertEquals(result.getStringValue(), "map([1,2])");
+    }
+
+    @Test
+    public void testParallelOrdered() {
+        List<Integer> values = IntStream.range(0, 200).boxed().collect(Collectors.toList());
+        MetaExpression input = parseObject(values);
+        input.storeMeta(new ParallelOptions(4, 8, true));
+        MapExpression expression = new MapExpression(input);
+        expression.setFunction(new IdentityFunction());
+
+        MetaExpression result = expression.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        for (Integer value : values) {
+            assertEquals(iterator.next(), fromValue(value));
+        }
+        assertFalse(iterator.hasNext());
+        assertTrue(result.hasMeta(ParallelOptions.class));
+    }
+
+    @Test
+    public void testParallelUnordered() {
+        MetaExpression input = parseObject(Arrays.asList(1, 2, 3, 4, 5));
+        input.storeMeta(new ParallelOptions(3, 2, false));
+        MapExpression expression = new MapExpression(input);
+        expression.setFunction(new IdentityFunction());
+
+        MetaExpression result = expression.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        Set<Integer> found = new HashSet<>();
+        while (iterator.hasNext()) {
+            found.add(iterator.next().getNumberValue().intValue());
+        }
+        assertEquals(found, new HashSet<>(Arrays.asList(1, 2, 3, 4, 5)));
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = "Failed on 3")
+    public void testParallelError() {
+        MetaExpression input = parseObject(Arrays.asList(1, 2, 3, 4, 5));
+        input.storeMeta(new ParallelOptions(2, 4, true));
+        MapExpression expression = new MapExpression(input);
+        expression.setFunction(new IdentityFunction() {
+            @Override
+            public InstructionFlow<MetaExpression> run(Debugger debugger, List<MetaExpression> arguments) throws RobotRuntimeException {
+                if (arguments.get(0).getNumberValue().intValue() == 3) {
+                    throw new RobotRuntimeException("Failed on 3");
+                }
+                return super.run(debugger, arguments);
+            }
+        });
+
+        MetaExpression result = expression.process(new NullDebugger()).get();
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+    }
+
     private class IdentityFunction extends FunctionDeclaration {
 
         public IdentityFunction() {
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.pipeline;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
+import nl.xillio.xill.api.components.MetaExpression;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link ParallelIterator}.
+ */
+public class ParallelIteratorTest extends TestUtils {
+
+    @Test
+    public void testCloseReleasesWorkers() {
+        MetaExpression input = parseObject(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+        Debugger debugger = spy(new NullDebugger());
+        AtomicInteger processed = new AtomicInteger();
+        ParallelIterator iterator = new ParallelIterator(input, debugger, new ParallelOptions(2, 4, true), (worker, item) -> {
+            processed.incrementAndGet();
+            return item;
+        });
+
+        assertEquals(iterator.next(), fromValue(0));
+        iterator.close();
+
+        verify(debugger, times(2)).removeChild(any());
+        assertTrue(processed.get() <= 4, "Only prefetched items may be processed, processed " + processed.get());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testUnorderedReturnsEveryItem() {
+        MetaExpression input = parseObject(IntStream.range(0, 50).boxed().collect(Collectors.toList()));
+        ParallelIterator iterator = new ParallelIterator(input, new NullDebugger(), new ParallelOptions(4, 8, false), (worker, item) -> item);
+
+        int sum = 0;
+        int count = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next().getNumberValue().intValue();
+            count++;
+        }
+
+        assertEquals(count, 50);
+        assertEquals(sum, 49 * 50 / 2);
+    }
+}
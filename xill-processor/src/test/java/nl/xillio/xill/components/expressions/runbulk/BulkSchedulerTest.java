@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.XillThreadFactoryImpl;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link BulkScheduler}.
+ */
+public class BulkSchedulerTest {
+
+    @Test(timeOut = 10000)
+    public void testAllJobsAreRun() throws InterruptedException {
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 4);
+        AtomicInteger count = new AtomicInteger();
+
+        BulkScheduler.Bulk bulk = scheduler.open(4, 8);
+        for (int i = 0; i < 100; i++) {
+            bulk.submit(count::incrementAndGet);
+        }
+        bulk.awaitDone();
+
+        assertEquals(count.get(), 100);
+    }
+
+    @Test(timeOut = 10000)
+    public void testNestedBulksDoNotDeadlock() throws InterruptedException {
+        // A single thread is busy with the parent jobs, the children are run by the waiting parents
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 1);
+        AtomicInteger count = new AtomicInteger();
+
+        BulkScheduler.Bulk parent = scheduler.open(2, 2);
+        for (int i = 0; i < 4; i++) {
+            parent.submit(() -> {
+                BulkScheduler.Bulk child = scheduler.open(2, 2);
+                try {
+                    for (int j = 0; j < 3; j++) {
+                        child.submit(count::incrementAndGet);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                child.awaitDone();
+            });
+        }
+        parent.awaitDone();
+
+        assertEquals(count.get(), 12);
+    }
+
+    @Test(timeOut = 10000)
+    public void testConcurrencyIsCapped() throws InterruptedException {
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        BulkScheduler.Bulk bulk = scheduler.open(16, 16);
+        for (int i = 0; i < 50; i++) {
+            bulk.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+        }
+        bulk.awaitDone();
+
+        // The pool threads and the waiting caller
+        assertTrue(maxRunning.get() <= 3, "At most 3 jobs should run at the same time, found " + maxRunning.get());
+    }
+
+    @Test(timeOut = 10000)
+    public void testCancelDropsQueuedJobs() throws InterruptedException {
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 1);
+        AtomicInteger count = new AtomicInteger();
+
+        BulkScheduler.Bulk bulk = scheduler.open(1, 10);
+        for (int i = 0; i < 10; i++) {
+            bulk.submit(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                count.incrementAndGet();
+            });
+        }
+        bulk.cancel();
+        bulk.awaitDone();
+
+        assertTrue(count.get() < 10);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link MetaExpressionCodec}.
+ */
+public class MetaExpressionCodecTest extends TestUtils {
+
+    private MetaExpression roundTrip(MetaExpression expression) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MetaExpressionCodec.write(expression, new DataOutputStream(bytes));
+        return MetaExpressionCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @DataProvider
+    public Object[][] values() {
+        return new Object[][]{
+                {NULL},
+                {TRUE},
+                {FALSE},
+                {fromValue(0)},
+                {fromValue(-1)},
+                {fromValue(Integer.MIN_VALUE)},
+                {fromValue(Long.MAX_VALUE)},
+                {fromValue(-3.25)},
+                {fromValue(new BigDecimal("12345678901234567890.5"))},
+                {fromValue("")},
+                {fromValue("A string with ünïcode")},
+                {createList(fromValue(1), fromValue("two"), NULL)},
+                {createMap("name", "value", "nested", createList(fromValue(true)))}
+        };
+    }
+
+    @Test(dataProvider = "values")
+    public void testRoundTrip(MetaExpression expression) throws IOException {
+        MetaExpression result = roundTrip(expression);
+
+        assertEquals(result.getType(), expression.getType());
+        assertEquals(result.isNull(), expression.isNull());
+        assertEquals(result.getStringValue(), expression.getStringValue());
+    }
+
+    @Test
+    public void testNumberTypesArePreserved() throws IOException {
+        assertEquals(roundTrip(fromValue(42)).getNumberValue(), 42);
+        assertEquals(roundTrip(fromValue(42L)).getNumberValue(), 42L);
+        assertEquals(roundTrip(fromValue(4.2)).getNumberValue(), 4.2);
+    }
+
+    @Test
+    public void testSmallValuesAreCompact() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MetaExpressionCodec.write(createList(fromValue(1), fromValue(2), fromValue(3)), new DataOutputStream(bytes));
+
+        // A tag and a size byte for the list, a tag and a value byte for every number
+        assertEquals(bytes.size(), 8);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCircularValue() throws IOException {
+        List<MetaExpression> elements = new ArrayList<>();
+        MetaExpression list = fromValue(elements);
+        elements.add(list);
+
+        MetaExpressionCodec.write(list, new DataOutputStream(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testSharedValueIsNotCircular() throws IOException {
+        MetaExpression shared = createList(fromValue(1));
+        MetaExpression result = roundTrip(createList(shared, shared));
+
+        assertTrue(result.getType() == ExpressionDataType.LIST);
+        assertEquals(result.getStringValue(), "[[1],[1]]");
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.XillEnvironment;
+import nl.xillio.xill.api.XillProcessor;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.debugging.ProductionDebugger;
+import nl.xillio.xill.loaders.AbstractRobotLoader;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link RemoteBulkRunner} and {@link RemoteBulkWorker}, connected over a local socket.
+ */
+public class RemoteBulkRunnerTest extends TestUtils {
+    private static final String TOKEN = "secret";
+    private final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+    private Debugger debugger;
+    private RunBulkControl control;
+    private int port;
+
+    @BeforeMethod
+    public void startWorker() throws IOException, InterruptedException {
+        processed.clear();
+        debugger = mock(Debugger.class);
+        control = new RunBulkControl(debugger, "robot.xill", mock(AbstractRobotLoader.class));
+
+        // Every robot run records its argument, fails for the number 3 and handles an error for the number 5
+        Robot robot = mock(Robot.class);
+        MetaExpression[] argument = new MetaExpression[1];
+        doAnswer(invocation -> argument[0] = (MetaExpression) invocation.getArguments()[1]).when(robot).setArgument(any(Debugger.class), any(MetaExpression.class));
+        when(robot.process(any())).thenAnswer(invocation -> {
+            int value = argument[0].getNumberValue().intValue();
+            if (value == 3) {
+                throw new RobotRuntimeException("Failed on 3");
+            }
+            if (value == 5) {
+                Debugger childDebugger = (Debugger) invocation.getArguments()[0];
+                childDebugger.setErrorHandler(e -> {
+                });
+                childDebugger.handle(new RobotRuntimeException("Handled on 5"));
+            }
+            processed.add(value);
+            return InstructionFlow.doResume();
+        });
+        XillProcessor processor = mock(XillProcessor.class);
+        when(processor.getRobot()).thenReturn(robot);
+        when(processor.getDebugger()).thenReturn(new ProductionDebugger());
+        XillEnvironment environment = mock(XillEnvironment.class);
+        when(environment.buildProcessor(any(Path.class), anyString(), any(Debugger.class), anyVararg())).thenReturn(processor);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RemoteBulkWorker worker = new RemoteBulkWorker(environment, Paths.get("."), new Path[0], TOKEN);
+        Thread thread = new Thread(() -> {
+            try {
+                worker.serve(0, new PrintStream(output, true));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        while (!output.toString().contains(RemoteBulkWorker.LISTENING_MESSAGE)) {
+            Thread.sleep(10);
+        }
+        port = Integer.parseInt(output.toString().trim().substring(RemoteBulkWorker.LISTENING_MESSAGE.length()));
+    }
+
+    private List<MetaExpression> items(int count) {
+        List<MetaExpression> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(fromValue(i));
+        }
+        return items;
+    }
+
+    @Test(timeOut = 10000)
+    public void testItemsRunInTheWorker() throws IOException {
+        RemoteBulkRunner runner = new RemoteBulkRunner(control, false, 2, null);
+        runner.connect(TOKEN + "@localhost:" + port);
+
+        runner.run(items(20).iterator());
+
+        assertEquals(control.getRunCount(), 18);
+        assertEquals(processed.size(), 19);
+        assertFalse(processed.contains(3));
+        assertNull(control.getError());
+        ArgumentCaptor<RobotRuntimeException> errors = ArgumentCaptor.forClass(RobotRuntimeException.class);
+        verify(debugger, times(2)).handle(errors.capture());
+        assertTrue(errors.getAllValues().get(0).getMessage().endsWith(": Failed on 3"));
+        assertTrue(errors.getAllValues().get(1).getMessage().endsWith(": Handled on 5"));
+    }
+
+    @Test(timeOut = 10000)
+    public void testResultsAreHandledOnTheCallingThread() throws IOException {
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> threads.add(Thread.currentThread())).when(debugger).handle(any(Throwable.class));
+        RemoteBulkRunner runner = new RemoteBulkRunner(control, false, 2, null);
+        runner.connect(TOKEN + "@localhost:" + port);
+
+        runner.run(items(20).iterator());
+
+        assertEquals(threads, Arrays.asList(Thread.currentThread(), Thread.currentThread()));
+    }
+
+    @Test(timeOut = 10000, expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".*refused the session.*")
+    public void testWrongTokenIsRefused() throws IOException {
+        new RemoteBulkRunner(control, false, 1, null).connect("other@localhost:" + port);
+    }
+
+    @Test(timeOut = 10000)
+    public void testStopOnError() throws IOException {
+        RemoteBulkRunner runner = new RemoteBulkRunner(control, true, 1, null);
+        runner.connect(TOKEN + "@localhost:" + port);
+
+        runner.run(items(100).iterator());
+
+        assertTrue(control.shouldStop());
+        assertTrue(control.getRunCount() < 99);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidAddress() throws IOException {
+        new RemoteBulkRunner(control, false, 1, null).connect("localhost");
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.components.MetaExpression;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link RunBulkJournal}.
+ */
+public class RunBulkJournalTest extends TestUtils {
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = Files.createTempFile("runbulk", ".journal");
+        Files.delete(file);
+    }
+
+    @AfterMethod
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testCompletedItemsSurviveARestart() throws IOException {
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            journal.record(journal.ids(Arrays.asList(fromValue("a"), fromValue("b"))), true);
+            journal.record(journal.ids(Collections.singletonList(fromValue("c"))), false);
+            assertTrue(journal.isCompleted(fromValue("a")));
+        }
+
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            assertTrue(journal.isCompleted(fromValue("a")));
+            assertTrue(journal.isCompleted(fromValue("b")));
+            assertFalse(journal.isCompleted(fromValue("c")));
+            assertFalse(journal.isCompleted(fromValue("d")));
+        }
+    }
+
+    @Test
+    public void testSkipCompleted() throws IOException {
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            journal.record(journal.ids(Arrays.asList(fromValue(1), fromValue(3))), true);
+
+            List<MetaExpression> remaining = new ArrayList<>();
+            journal.skipCompleted(Arrays.asList(fromValue(1), fromValue(2), fromValue(3), fromValue(4)).iterator())
+                    .forEachRemaining(remaining::add);
+
+            assertEquals(remaining.size(), 2);
+            assertEquals(remaining.get(0).getNumberValue().intValue(), 2);
+            assertEquals(remaining.get(1).getNumberValue().intValue(), 4);
+        }
+    }
+
+    @Test
+    public void testIdsAreTakenFromTheSource() throws IOException {
+        try (RunBulkJournal journal = RunBulkJournal.open(file, "id")) {
+            MetaExpression changed = createMap("id", 1);
+            MetaExpression closed = createMap("id", 2);
+            Iterator<MetaExpression> source = journal.skipCompleted(Arrays.asList(changed, closed).iterator());
+            List<MetaExpression> chunk = Arrays.asList(source.next(), source.next());
+            long[] ids = journal.ids(chunk);
+
+            // The robot changes the first item and closes the second one before the run is recorded
+            changed.<Map<String, MetaExpression>>getValue().put("id", fromValue(3));
+            closed.registerReference();
+            closed.releaseReference();
+            journal.record(ids, true);
+
+            assertTrue(journal.isCompleted(createMap("id", 1)));
+            assertTrue(journal.isCompleted(createMap("id", 2)));
+            assertFalse(journal.isCompleted(createMap("id", 3)));
+        }
+    }
+
+    @Test
+    public void testIdKey() throws IOException {
+        try (RunBulkJournal journal = RunBulkJournal.open(file, "id")) {
+            journal.record(journal.ids(Collections.singletonList(createMap("id", 7, "name", "first"))), true);
+
+            assertTrue(journal.isCompleted(createMap("id", 7, "name", "second")));
+            assertFalse(journal.isCompleted(createMap("id", 8, "name", "first")));
+        }
+    }
+
+    @Test
+    public void testPartialRecordIsDropped() throws IOException {
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            journal.record(journal.ids(Collections.singletonList(fromValue("a"))), true);
+        }
+        long size = Files.size(file);
+        Files.write(file, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            assertTrue(journal.isCompleted(fromValue("a")));
+            journal.record(journal.ids(Collections.singletonList(fromValue("b"))), true);
+        }
+        assertEquals(Files.size(file), size + 9);
+
+        try (RunBulkJournal journal = RunBulkJournal.open(file, null)) {
+            assertTrue(journal.isCompleted(fromValue("b")));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".*is not a runBulk journal")
+    public void testNotAJournal() throws IOException {
+        Files.write(file, "some text".getBytes());
+
+        RunBulkJournal.open(file, null);
+    }
+
+    @Test
+    public void testLongSet() {
+        RunBulkJournal.LongSet set = new RunBulkJournal.LongSet();
+        for (long i = 0; i < 10000; i++) {
+            set.add(i * 31);
+        }
+
+        assertEquals(set.size(), 10000);
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(9999 * 31));
+        assertFalse(set.contains(2));
+    }
+}
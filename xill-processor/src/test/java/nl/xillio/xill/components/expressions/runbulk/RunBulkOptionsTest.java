@@ -23,10 +23,15 @@ import nl.xillio.xill.api.errors.RobotRuntimeException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Tests for {@link RunBulkOptions}.
@@ -133,4 +138,147 @@ public class RunBulkOptionsTest extends TestUtils {
         // Run
         new RunBulkOptions(optionsProcessable);
     }
+
+    /**
+     * Test the prefetch option of {@link RunBulkOptions}.
+     */
+    @Test
+    public void testRunBulkOptionsPrefetch() {
+        assertEquals(new RunBulkOptions(mockOptions(createMap())).getPrefetch(), -1);
+        assertEquals(new RunBulkOptions(mockOptions(createMap("prefetch", 0))).getPrefetch(), 0);
+        assertEquals(new RunBulkOptions(mockOptions(createMap("prefetch", 16))).getPrefetch(), 16);
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when a wrong value for the prefetch option is given.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"prefetch\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongPrefetch() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("prefetch", -1));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
+
+    /**
+     * Test the chunkSize and chunkMode options of {@link RunBulkOptions}.
+     */
+    @Test
+    public void testRunBulkOptionsChunk() {
+        RunBulkOptions defaults = new RunBulkOptions(mockOptions(createMap()));
+        assertEquals(defaults.getChunkSize(), 1);
+        assertFalse(defaults.isChunkAsIterator());
+
+        RunBulkOptions chunked = new RunBulkOptions(mockOptions(createMap("chunkSize", 50, "chunkMode", "iterator")));
+        assertEquals(chunked.getChunkSize(), 50);
+        assertTrue(chunked.isChunkAsIterator());
+
+        assertFalse(new RunBulkOptions(mockOptions(createMap("chunkMode", "items"))).isChunkAsIterator());
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when a wrong value for the chunkSize option is given.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"chunkSize\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongChunkSize() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("chunkSize", 0));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when a wrong value for the chunkMode option is given.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"chunkMode\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongChunkMode() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("chunkMode", "lines"));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
+
+    /**
+     * Test the collectResults and resultBuffer options of {@link RunBulkOptions}.
+     */
+    @Test
+    public void testRunBulkOptionsCollectResults() {
+        RunBulkOptions defaults = new RunBulkOptions(mockOptions(createMap()));
+        assertFalse(defaults.shouldCollectResults());
+        assertEquals(defaults.getResultBuffer(), -1);
+
+        RunBulkOptions collecting = new RunBulkOptions(mockOptions(createMap("collectResults", "yes", "resultBuffer", 32)));
+        assertTrue(collecting.shouldCollectResults());
+        assertEquals(collecting.getResultBuffer(), 32);
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when a wrong value for the resultBuffer option is given.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"resultBuffer\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongResultBuffer() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("resultBuffer", 0));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
+
+    /**
+     * Test the journal and journalKey options of {@link RunBulkOptions}.
+     */
+    @Test
+    public void testRunBulkOptionsJournal() {
+        RunBulkOptions defaults = new RunBulkOptions(mockOptions(createMap()));
+        assertNull(defaults.getJournal());
+        assertNull(defaults.getJournalKey());
+
+        RunBulkOptions journaled = new RunBulkOptions(mockOptions(createMap("journal", "bulk.journal", "journalKey", "id")));
+        assertEquals(journaled.getJournal(), "bulk.journal");
+        assertEquals(journaled.getJournalKey(), "id");
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when an empty journal is given.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"journal\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongJournal() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("journal", ""));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
+
+    /**
+     * Test the processes and workers options of {@link RunBulkOptions}.
+     */
+    @Test
+    public void testRunBulkOptionsRemote() {
+        RunBulkOptions defaults = new RunBulkOptions(mockOptions(createMap()));
+        assertFalse(defaults.isRemote());
+
+        RunBulkOptions processes = new RunBulkOptions(mockOptions(createMap("processes", 4)));
+        assertTrue(processes.isRemote());
+        assertEquals(processes.getProcesses(), 4);
+
+        RunBulkOptions workers = new RunBulkOptions(mockOptions(createMap("workers", createList("localhost:9400", "localhost:9401"))));
+        assertTrue(workers.isRemote());
+        assertEquals(workers.getWorkers(), Arrays.asList("localhost:9400", "localhost:9401"));
+    }
+
+    /**
+     * Test {@link RunBulkOptions#RunBulkOptions(Processable)} when the workers option is not a list.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*The \"workers\" value in the \"options\" argument was not valid.*")
+    public void testRunBulkOptionsWrongWorkers() {
+        // Mock
+        Processable optionsProcessable = mockOptions(createMap("workers", "localhost:9400"));
+
+        // Run
+        new RunBulkOptions(optionsProcessable);
+    }
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.XillThreadFactoryImpl;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.XillThreadFactory;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.data.MetadataExpression;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.loaders.AbstractRobotLoader;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link RunBulkResultIterator}.
+ */
+public class RunBulkResultIteratorTest extends TestUtils {
+    private RunBulkControl control;
+    private RunBulkOptions options;
+    private Worker worker;
+    private Consumer<MetaExpression> resultHandler;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void mockObjects() {
+        control = new RunBulkControl(mock(Debugger.class), "robot.xill", mock(AbstractRobotLoader.class));
+        options = new RunBulkOptions(null);
+        worker = mock(Worker.class);
+        doAnswer(invocation -> resultHandler = (Consumer<MetaExpression>) invocation.getArguments()[0])
+                .when(worker).setResultHandler(any());
+        // Every robot returns its argument
+        when(worker.createJob(any(), anyBoolean())).thenAnswer(invocation -> {
+            List<MetaExpression> chunk = (List<MetaExpression>) invocation.getArguments()[0];
+            return (Runnable) () -> chunk.forEach(resultHandler);
+        });
+    }
+
+    private List<MetaExpression> items(int count) {
+        List<MetaExpression> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(fromValue(i));
+        }
+        return items;
+    }
+
+    @Test(timeOut = 10000)
+    public void testAllResultsAreStreamed() {
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 4);
+        RunBulkResultIterator results = new RunBulkResultIterator(items(50).iterator(), scheduler.open(4, 8), worker, control, options, 8, 4);
+
+        Set<Integer> collected = new HashSet<>();
+        results.forEachRemaining(result -> collected.add(result.getNumberValue().intValue()));
+        assertEquals(collected.size(), 50);
+    }
+
+    @Test(timeOut = 10000)
+    public void testJobsWaitForTheConsumer() {
+        // The pool threads never run, so jobs only run when the consumer waits for a result
+        XillThreadFactory factory = mock(XillThreadFactory.class);
+        when(factory.create(any(), any())).thenAnswer(invocation -> new Thread(() -> {
+        }));
+        BulkScheduler scheduler = new BulkScheduler(factory, 1);
+
+        RunBulkResultIterator results = new RunBulkResultIterator(items(100).iterator(), scheduler.open(2, 2), worker, control, options, 2, 2);
+        verify(worker, times(2)).createJob(any(), anyBoolean());
+
+        assertEquals(results.next().getNumberValue().intValue(), 0);
+        verify(worker, times(3)).createJob(any(), anyBoolean());
+
+        int count = 1;
+        while (results.hasNext()) {
+            results.next();
+            count++;
+        }
+        assertEquals(count, 100);
+    }
+
+    @Test(timeOut = 10000, expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = "Robot failed")
+    public void testErrorIsRethrown() {
+        when(worker.createJob(any(), anyBoolean())).thenReturn(() -> control.signalError(new RobotRuntimeException("Robot failed")));
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 2);
+
+        RunBulkResultIterator results = new RunBulkResultIterator(items(10).iterator(), scheduler.open(2, 4), worker, control, options, 4, 2);
+
+        results.hasNext();
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseStopsTheBulk() {
+        BulkScheduler scheduler = new BulkScheduler(new XillThreadFactoryImpl(), 2);
+
+        RunBulkResultIterator results = new RunBulkResultIterator(items(100).iterator(), scheduler.open(2, 4), worker, control, options, 4, 2);
+        results.next();
+        results.close();
+
+        assertTrue(control.shouldStop());
+        assertFalse(results.hasNext());
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseReleasesBufferedResults() {
+        // The pool threads never run, so only the results offered here are buffered
+        XillThreadFactory factory = mock(XillThreadFactory.class);
+        when(factory.create(any(), any())).thenAnswer(invocation -> new Thread(() -> {
+        }));
+        BulkScheduler scheduler = new BulkScheduler(factory, 1);
+        RunBulkResultIterator results = new RunBulkResultIterator(items(10).iterator(), scheduler.open(1, 1), worker, control, options, 1, 2);
+
+        MetaExpression taken = fromValue("taken");
+        MetaExpression buffered = fromValue("buffered");
+        resultHandler.accept(taken);
+        resultHandler.accept(buffered);
+
+        assertSame(results.next(), taken);
+        results.close();
+
+        // The consumer owns the result it took, the buffered one is closed
+        taken.storeMeta(mock(MetadataExpression.class));
+        assertThrows(IllegalStateException.class, () -> buffered.storeMeta(mock(MetadataExpression.class)));
+    }
+}
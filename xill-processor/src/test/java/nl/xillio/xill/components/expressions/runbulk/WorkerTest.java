@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.expressions.runbulk;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.OutputHandler;
+import nl.xillio.xill.api.StoppableDebugger;
+import nl.xillio.xill.api.components.ExecutionFrame;
+import nl.xillio.xill.api.components.ExpressionDataType;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.components.Robot;
+import nl.xillio.xill.api.components.RobotID;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.loaders.AbstractRobotLoader;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests for {@link WorkerThread}.
+ *
+ * @author Geert Konijnendijk
+ */
+public class WorkerTest extends TestUtils {
+
+    private RunBulkControl control;
+    private OutputHandler outputHandler;
+    private RobotID robotID;
+    private Debugger debugger;
+    private Debugger childDebugger;
+    private String robotQualifiedName;
+    private AbstractRobotLoader loader;
+    private WorkerRobotFactory workerRobotFactory;
+    private Robot robot;
+    private ExecutionFrame childFrame;
+
+    @BeforeMethod
+    public void mockObjects() throws WorkerCompileException {
+        debugger = mock(Debugger.class);
+        childDebugger = mock(StoppableDebugger.class, RETURNS_DEEP_STUBS);
+        when(debugger.createChild()).thenReturn(childDebugger);
+        childFrame = spy(new ExecutionFrame());
+        when(childDebugger.getExecutionFrame()).thenReturn(childFrame);
+        robotQualifiedName = "";
+        loader = mock(AbstractRobotLoader.class);
+        control = mock(RunBulkControl.class);
+        when(control.getDebugger()).thenReturn(debugger);
+        when(control.getCalledRobotFqn()).thenReturn(robotQualifiedName);
+        when(control.getLoader()).thenReturn(loader);
+        outputHandler = mock(OutputHandler.class);
+        robotID = mock(RobotID.class);
+        robot = mock(Robot.class);
+        workerRobotFactory = mock(WorkerRobotFactory.class);
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} under normal conditions.
+     */
+    @Test
+    public void testRun() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(debugger.shouldStop()).thenReturn(false);
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(mock(Robot.class));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+
+        // verify
+        verify(control).incRunCount();
+    }
+
+    /**
+     * Test that the frame of the robot run is released after every item.
+     */
+    @Test
+    public void testRunReleasesTheFrame() throws WorkerCompileException {
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(mock(Robot.class));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+        worker.process(item);
+
+        verify(childFrame).release();
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} when the debugger signals to stop.
+     */
+    @Test
+    public void testRunDebuggerStop() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(debugger.shouldStop()).thenReturn(true);
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(mock(Robot.class));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+
+        // verify
+        verify(control).signalStop();
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} when the the robot could not be compiled.
+     */
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*Robot error.*")
+    public void testRunErrorCompile() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(debugger.shouldStop()).thenReturn(false);
+        when(workerRobotFactory.construct(any(), any(), any())).thenThrow(new WorkerCompileException("Robot error", new Exception()));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} when a {@link RobotRuntimeException} occurs while running a robot.
+     */
+    @Test
+    public void testRunRobotRuntimeException() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(debugger.shouldStop()).thenReturn(false);
+        RobotRuntimeException runtimeException = new RobotRuntimeException("Error running robot");
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(robot);
+        when(robot.process(any())).thenThrow(runtimeException);
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+
+        // verify
+        verify(debugger).handle(isA(RobotRuntimeException.class));
+        verify(control).signalStop();
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} when an {@link Exception} occurs while running a robot.
+     */
+    @Test
+    public void testRunException() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+        when(debugger.shouldStop()).thenReturn(false);
+        RuntimeException runtimeException = new RuntimeException("Error running robot");
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(robot);
+        when(robot.process(any())).thenThrow(runtimeException);
+        when(childDebugger.getStackTrace().get(anyInt()).getLineNumber()).thenReturn(0);
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+
+        // verify
+        verify(debugger).handle(isA(RobotRuntimeException.class));
+        verify(control).signalStop();
+    }
+
+    /**
+     * Test {@link Worker#process(MetaExpression)} when the bulk was stopped.
+     */
+    @Test
+    public void testProcessStopped() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(true);
+        MetaExpression item = mockExpression(ExpressionDataType.ATOMIC);
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(item);
+
+        // verify
+        verify(workerRobotFactory, never()).construct(any(), any(), any());
+        verify(control, never()).incRunCount();
+    }
+
+    /**
+     * Test {@link Worker#process(java.util.List)} runs the robot for every item but looks it up once.
+     */
+    @Test
+    public void testProcessChunk() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        when(debugger.shouldStop()).thenReturn(false);
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(robot);
+        List<MetaExpression> chunk = Arrays.asList(
+                mockExpression(ExpressionDataType.ATOMIC),
+                mockExpression(ExpressionDataType.ATOMIC),
+                mockExpression(ExpressionDataType.ATOMIC));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.process(chunk);
+
+        // verify
+        verify(workerRobotFactory, times(1)).construct(any(), any(), any());
+        verify(robot, times(3)).process(any());
+        verify(control, times(3)).incRunCount();
+    }
+
+    /**
+     * Test {@link Worker#processAsIterator(java.util.List)} runs the robot once with an iterator over the chunk.
+     */
+    @Test
+    public void testProcessAsIterator() throws WorkerCompileException {
+        // mock
+        when(control.shouldStop()).thenReturn(false);
+        when(debugger.shouldStop()).thenReturn(false);
+        when(workerRobotFactory.construct(any(), any(), any())).thenReturn(robot);
+        List<MetaExpression> chunk = Arrays.asList(
+                mockExpression(ExpressionDataType.ATOMIC),
+                mockExpression(ExpressionDataType.ATOMIC));
+
+        Worker worker = new Worker(control, false, workerRobotFactory);
+
+        // run
+        worker.processAsIterator(chunk);
+
+        // verify
+        ArgumentCaptor<MetaExpression> argument = ArgumentCaptor.forClass(MetaExpression.class);
+        verify(robot).setArgument(any(), argument.capture());
+        MetaExpressionIterator iterator = argument.getValue().getMeta(MetaExpressionIterator.class);
+        assertSame(iterator.next(), chunk.get(0));
+        assertSame(iterator.next(), chunk.get(1));
+        assertFalse(iterator.hasNext());
+        verify(control, times(1)).incRunCount();
+    }
+
+}
@@ -188,7 +188,7 @@ public class ErrorInstructionTest {
        when(errorDebugger.hasError()).thenReturn(true);
        InstructionFlow<MetaExpression> var = instruction.process(xillDebugger, errorDebugger);
 
-       Map<String, MetaExpression> status = cause.getVariable().getValue();
+       Map<String, MetaExpression> status = cause.getVariable(xillDebugger).getValue();
        assertEquals(status.get("message").getStringValue(), "Cause\n\tIdentifying Exception");
     }
 }
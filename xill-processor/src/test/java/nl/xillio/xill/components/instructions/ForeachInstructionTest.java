@@ -16,11 +16,14 @@
 package nl.xillio.xill.components.instructions;
 
 import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.components.ExecutionFrame;
+import nl.xillio.xill.api.components.ExpressionBuilderHelper;
 import nl.xillio.xill.api.components.InstructionFlow;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.MetaExpressionIterator;
 import nl.xillio.xill.api.components.Processable;
 import nl.xillio.xill.debugging.XillDebugger;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -39,6 +42,7 @@ public class ForeachInstructionTest extends TestUtils {
     public void setUp() {
         debugger = mock(XillDebugger.class);
         when(debugger.getStackDepth()).thenReturn(STACK_DEPTH);
+        when(debugger.getExecutionFrame()).thenReturn(new ExecutionFrame());
         instructions = spy(new InstructionSet(debugger));
     }
 
@@ -48,14 +52,14 @@ public class ForeachInstructionTest extends TestUtils {
 
         // For each key and value, verify it was pushed to the var once. If the list is null, verify nothing was pushed.
         if (keys != null) {
-            keys.forEach(key -> verify(keyVar, times(1)).pushVariable(eq(key), eq(STACK_DEPTH)));
+            keys.forEach(key -> verify(keyVar, times(1)).pushVariable(eq(debugger), eq(key), eq(STACK_DEPTH)));
         } else {
-            verify(keyVar, times(0)).pushVariable(any(), anyInt());
+            verify(keyVar, times(0)).pushVariable(any(), any(), anyInt());
         }
         if (values != null) {
-            values.forEach(value -> verify(valueVar, times(1)).pushVariable(eq(value), eq(STACK_DEPTH)));
+            values.forEach(value -> verify(valueVar, times(1)).pushVariable(eq(debugger), eq(value), eq(STACK_DEPTH)));
         } else {
-            verify(valueVar, times(0)).pushVariable(any(), anyInt());
+            verify(valueVar, times(0)).pushVariable(any(), any(), anyInt());
         }
 
         // Assert that the result does not have a value.
@@ -144,6 +148,22 @@ public class ForeachInstructionTest extends TestUtils {
         verifyAll(key, keyList, value, valueList, result);
     }
 
+    @Test
+    public void testListKeysAreNotShared() {
+        MetaExpression metaValueList = fromValue(Collections.singletonList(fromValue("a")));
+        metaValueList.preventDisposal();
+        VariableDeclaration key = mock(VariableDeclaration.class);
+        VariableDeclaration value = mock(VariableDeclaration.class);
+
+        new ForeachInstruction(instructions, metaValueList, value, key).process(debugger);
+
+        // Keys can be stored in variables and get metadata, so they must not be the shared small integers
+        ArgumentCaptor<MetaExpression> captor = ArgumentCaptor.forClass(MetaExpression.class);
+        verify(key).pushVariable(eq(debugger), captor.capture(), eq(STACK_DEPTH));
+        assertEquals(captor.getValue(), fromValue(0));
+        assertNotSame(captor.getValue(), ExpressionBuilderHelper.immutableValue(0));
+    }
+
     @Test
     public void testProcessObject() {
         // Create the map.
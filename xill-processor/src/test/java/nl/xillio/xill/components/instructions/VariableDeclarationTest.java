@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.components.instructions;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.NullDebugger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link VariableDeclaration}.
+ */
+public class VariableDeclarationTest extends TestUtils {
+
+    @Test
+    public void testValuesAreKeptPerDebugger() {
+        VariableDeclaration declaration = new VariableDeclaration(fromValue("default"), "var");
+        Debugger first = new NullDebugger();
+        Debugger second = new NullDebugger();
+
+        declaration.process(first);
+        declaration.process(second);
+        declaration.replaceVariable(first, fromValue("first"));
+
+        assertEquals(declaration.getVariable(first).getStringValue(), "first");
+        assertEquals(declaration.getVariable(second).getStringValue(), "default");
+    }
+
+    @Test
+    public void testCloseReleasesValue() throws Exception {
+        VariableDeclaration declaration = new VariableDeclaration(fromValue("value"), "var");
+        Debugger debugger = new NullDebugger();
+
+        declaration.process(debugger);
+        assertTrue(declaration.hasValue(debugger));
+
+        declaration.close(debugger);
+        assertFalse(declaration.hasValue(debugger));
+    }
+
+    @Test
+    public void testSlottedDeclarationsAreSeparated() {
+        VariableDeclaration first = new VariableDeclaration(fromValue("first"), "first");
+        first.setSlot(0);
+        VariableDeclaration second = new VariableDeclaration(fromValue("second"), "second");
+        second.setSlot(20);
+        Debugger debugger = new NullDebugger();
+
+        first.process(debugger);
+        second.process(debugger);
+
+        assertEquals(first.getVariable(debugger).getStringValue(), "first");
+        assertEquals(second.getVariable(debugger).getStringValue(), "second");
+    }
+
+    @Test
+    public void testPeekStackPosition() {
+        VariableDeclaration declaration = new VariableDeclaration(NULL, "var");
+        declaration.setSlot(3);
+        Debugger debugger = new NullDebugger();
+
+        declaration.pushVariable(debugger, fromValue("a"), 0);
+        declaration.pushVariable(debugger, fromValue("b"), 2);
+        declaration.pushVariable(debugger, fromValue("c"), 5);
+
+        assertEquals(declaration.peek(debugger, 0).getStringValue(), "a");
+        assertEquals(declaration.peek(debugger, 2).getStringValue(), "b");
+        assertEquals(declaration.peek(debugger, 5).getStringValue(), "c");
+        assertNull(declaration.peek(debugger, 3));
+
+        declaration.replaceVariable(debugger, fromValue("d"));
+        assertEquals(declaration.peek(debugger, 5).getStringValue(), "d");
+    }
+
+    @Test
+    public void testInheritedFrameHoldsSnapshot() {
+        VariableDeclaration slotted = new VariableDeclaration(fromValue("slotted"), "slotted");
+        slotted.setSlot(1);
+        VariableDeclaration mapped = new VariableDeclaration(fromValue("mapped"), "mapped");
+        Debugger parent = new NullDebugger();
+        Debugger worker = new NullDebugger();
+
+        slotted.process(parent);
+        mapped.process(parent);
+        worker.getExecutionFrame().inherit(parent.getExecutionFrame());
+        slotted.replaceVariable(worker, fromValue("changed"));
+
+        assertEquals(slotted.getVariable(worker).getStringValue(), "changed");
+        assertEquals(slotted.getVariable(parent).getStringValue(), "slotted");
+        assertEquals(mapped.getVariable(worker).getStringValue(), "mapped");
+
+        worker.getExecutionFrame().release();
+        assertFalse(slotted.hasValue(worker));
+        assertFalse(mapped.hasValue(worker));
+        assertEquals(mapped.getVariable(parent).getStringValue(), "mapped");
+    }
+}
@@ -40,10 +40,10 @@ public class AssignTest extends TestUtils {
 
         Assign assign = new Assign(variableDeclaration, Collections.emptyList(), fromValue("World"));
 
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "Hello");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "Hello");
 
         assign.process(debugger);
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "World");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "World");
     }
 
     @Test
@@ -56,10 +56,10 @@ public class AssignTest extends TestUtils {
 
 
         Assign assign = new Assign(variableDeclaration, Collections.singletonList(fromValue(1)), fromValue("World"));
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "[\"Hello\"]");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "[\"Hello\"]");
 
         assign.process(debugger);
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "[\"Hello\",\"World\"]");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "[\"Hello\",\"World\"]");
     }
 
     @Test
@@ -89,10 +89,10 @@ public class AssignTest extends TestUtils {
                 fromValue("New Value")
         );
 
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "[{\"test\":[{\"other\":4}]}]");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "[{\"test\":[{\"other\":4}]}]");
 
         assign.process(debugger);
-        assertEquals(variableDeclaration.getVariable().getStringValue(), "[{\"test\":[{\"other\":4,\"hello\":\"New Value\"}]}]");
+        assertEquals(variableDeclaration.getVariable(debugger).getStringValue(), "[{\"test\":[{\"other\":4,\"hello\":\"New Value\"}]}]");
     }
 
     @Test
@@ -103,7 +103,7 @@ public class AssignTest extends TestUtils {
         VariableDeclaration variableDeclaration = new VariableDeclaration(fromValue("Hello"), "testVar");
         variableDeclaration.process(debugger);
 
-        assertTrue(variableDeclaration.getVariable().isNull());
+        assertTrue(variableDeclaration.getVariable(debugger).isNull());
     }
 
     private MetaExpression map(String key, MetaExpression value) {
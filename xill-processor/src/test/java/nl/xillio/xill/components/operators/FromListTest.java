@@ -16,6 +16,7 @@
 package nl.xillio.xill.components.operators;
 
 import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
 import nl.xillio.xill.api.NullDebugger;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.components.Processable;
@@ -28,8 +29,10 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 public class FromListTest extends TestUtils {
+    private final Debugger debugger = new NullDebugger();
+
     private MetaExpression process(Processable list, Processable index) {
-        return new FromList(list, index).process(new NullDebugger()).get();
+        return new FromList(list, index).process(debugger).get();
     }
 
     @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*'member'.*")
@@ -84,7 +87,7 @@ public class FromListTest extends TestUtils {
         String key = "foo";
 
         VariableDeclaration declaration = new VariableDeclaration(NULL, "obj");
-        declaration.pushVariable(createMap(key, "bar"), 0);
+        declaration.pushVariable(debugger, createMap(key, "bar"), 0);
         VariableAccessExpression var = new VariableAccessExpression(declaration);
 
         process(new FromList(var, fromValue(key)), fromValue("member"));
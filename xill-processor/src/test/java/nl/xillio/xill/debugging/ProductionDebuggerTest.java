@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.debugging;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.Debugger;
+import nl.xillio.xill.api.components.InstructionFlow;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.components.instructions.Instruction;
+import nl.xillio.xill.components.instructions.InstructionSet;
+import org.testng.annotations.Test;
+
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link ProductionDebugger}.
+ */
+public class ProductionDebuggerTest extends TestUtils {
+
+    @Test
+    public void testChildStopsWithParent() {
+        ProductionDebugger debugger = new ProductionDebugger();
+        Debugger child = debugger.createChild();
+
+        assertFalse(child.shouldStop());
+        debugger.stop();
+
+        assertTrue(child.shouldStop());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStopInterruptsRobot() {
+        ProductionDebugger debugger = new ProductionDebugger();
+        Consumer<Object> listener = mock(Consumer.class);
+        debugger.createChild().getOnRobotInterrupt().addListener(listener);
+
+        debugger.stop();
+
+        verify(listener).accept(null);
+    }
+
+    @Test
+    public void testInstructionsAreNotTracked() {
+        ProductionDebugger debugger = spy(new ProductionDebugger());
+        InstructionSet instructionSet = new InstructionSet(debugger);
+        instructionSet.add(instruction(InstructionFlow.doResume(NULL)));
+        instructionSet.add(instruction(InstructionFlow.doResume(NULL)));
+
+        instructionSet.process(debugger);
+
+        verify(debugger, never()).startInstruction(any());
+        verify(debugger, never()).endInstruction(any(), any());
+        assertTrue(debugger.getStackTrace().isEmpty());
+    }
+
+    @Test
+    public void testFailedInstructionIsReported() {
+        ProductionDebugger debugger = new ProductionDebugger();
+        Instruction failing = instruction(null);
+        when(failing.process(any())).thenThrow(new RobotRuntimeException("Failed"));
+        InstructionSet instructionSet = new InstructionSet(debugger);
+        instructionSet.add(instruction(InstructionFlow.doResume(NULL)));
+        instructionSet.add(failing);
+
+        try {
+            instructionSet.process(debugger);
+            fail("The error should not be caught");
+        } catch (RobotRuntimeException e) {
+            assertEquals(e.getMessage(), "Failed");
+        }
+
+        assertSame(debugger.getStackTrace().get(debugger.getStackDepth()), failing);
+    }
+
+    private Instruction instruction(InstructionFlow<MetaExpression> result) {
+        Instruction instruction = mock(Instruction.class);
+        when(instruction.process(any())).thenReturn(result);
+        return instruction;
+    }
+}
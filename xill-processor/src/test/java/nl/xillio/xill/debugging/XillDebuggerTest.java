@@ -62,7 +62,7 @@ public class XillDebuggerTest extends TestUtils{
         MetaExpression value = debugger.getVariableValue(target, 1);
 
         // Verify
-        verify(var).peek(0);
+        verify(var).peek(debugger, 0);
 
         // Assert
         assertSame(value, result);
@@ -81,7 +81,7 @@ public class XillDebuggerTest extends TestUtils{
         MetaExpression value = debugger.getVariableValue(target, 2);
 
         // Verify
-        verify(var).peek(0);
+        verify(var).peek(debugger, 0);
 
         // Assert
         assertSame(value, result);
@@ -103,7 +103,7 @@ public class XillDebuggerTest extends TestUtils{
         MetaExpression value = debugger.getVariableValue(target, 1);
 
         // Verify
-        verify(var, never()).peek(0);
+        verify(var, never()).peek(debugger, 0);
 
         // Assert
         assertSame(value, result);
@@ -126,8 +126,8 @@ public class XillDebuggerTest extends TestUtils{
         MetaExpression value = debugger.getVariableValue(target, 2);
 
         // Verify
-        verify(var, never()).peek(1);
-        verify(var, never()).peek(0);
+        verify(var, never()).peek(debugger, 1);
+        verify(var, never()).peek(debugger, 0);
 
         // Assert
         assertSame(value, results[1]);
@@ -157,7 +157,7 @@ public class XillDebuggerTest extends TestUtils{
         for (int i=0; i<positions.length; i++) {
             MetaExpression result = mockExpression(ATOMIC);
             results[i] = result;
-            when(var.peek(positions[i])).thenReturn(result);
+            when(var.peek(debugger, positions[i])).thenReturn(result);
         }
         variables.put(target, var);
         info.setVariables(variables);
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.loaders;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+public class ThreadBoundRobotLoaderTest {
+    private Path dir;
+    private DirectoryRobotLoader firstLoader;
+    private DirectoryRobotLoader secondLoader;
+
+    @BeforeClass
+    private void beforeClass() throws IOException {
+        dir = Files.createTempDirectory(getClass().getSimpleName());
+        Path first = Files.createDirectories(dir.resolve("first"));
+        Path second = Files.createDirectories(dir.resolve("second"));
+        Files.createFile(first.resolve("robot.xill"));
+        Files.createFile(second.resolve("other.xill"));
+
+        firstLoader = new DirectoryRobotLoader(null, first);
+        secondLoader = new DirectoryRobotLoader(null, second);
+    }
+
+    @AfterClass
+    private void afterClass() throws IOException {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Test
+    public void testForwardsToBoundLoader() {
+        ThreadBoundRobotLoader loader = new ThreadBoundRobotLoader();
+
+        try (ThreadBoundRobotLoader.Binding binding = loader.bind(firstLoader)) {
+            assertNotNull(loader.getRobot("robot"));
+            assertNull(loader.getRobot("other"));
+            assertEquals(loader.getBasePaths(), firstLoader.getBasePaths());
+        }
+    }
+
+    @Test
+    public void testNestedBindings() {
+        ThreadBoundRobotLoader loader = new ThreadBoundRobotLoader();
+
+        try (ThreadBoundRobotLoader.Binding outer = loader.bind(firstLoader)) {
+            try (ThreadBoundRobotLoader.Binding inner = loader.bind(secondLoader)) {
+                assertNotNull(loader.getRobot("other"));
+            }
+            assertNotNull(loader.getRobot("robot"));
+        }
+    }
+
+    @Test
+    public void testThreadsUseTheirOwnLoader() throws Exception {
+        ThreadBoundRobotLoader loader = new ThreadBoundRobotLoader();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (ThreadBoundRobotLoader.Binding binding = loader.bind(firstLoader)) {
+            Future<Boolean> other = executor.submit(() -> {
+                try (ThreadBoundRobotLoader.Binding otherBinding = loader.bind(secondLoader)) {
+                    return loader.getRobot("other") != null;
+                }
+            });
+
+            assertTrue(other.get());
+            assertNotNull(loader.getRobot("robot"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testNoBoundLoader() {
+        new ThreadBoundRobotLoader().getRobot("robot");
+    }
+}
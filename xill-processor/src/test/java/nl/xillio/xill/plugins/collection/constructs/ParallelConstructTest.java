@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.collection.constructs;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.errors.InvalidUserInputException;
+import nl.xillio.xill.components.expressions.pipeline.ParallelOptions;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * The test class for {@link ParallelConstruct}.
+ */
+public class ParallelConstructTest extends TestUtils {
+    @Test
+    public void testProcessWithOptions() {
+        MetaExpression result = process(new ParallelConstruct(),
+                parseObject(Arrays.asList(1, 2)),
+                createMap("threads", 3, "prefetch", 5, "ordered", false));
+
+        ParallelOptions options = result.getMeta(ParallelOptions.class);
+        assertEquals(options.getThreads(), 3);
+        assertEquals(options.getPrefetch(), 5);
+        assertFalse(options.isOrdered());
+
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+        assertEquals(iterator.next(), fromValue(1));
+        assertEquals(iterator.next(), fromValue(2));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testProcessWithoutOptions() {
+        MetaExpression result = process(new ParallelConstruct(), parseObject(Arrays.asList(1, 2)));
+
+        ParallelOptions options = result.getMeta(ParallelOptions.class);
+        assertEquals(options.getPrefetch(), options.getThreads() * 2);
+        assertTrue(options.isOrdered());
+        assertEquals(result.getStringValue(), "[Parallel iterator]");
+    }
+
+    @Test(expectedExceptions = InvalidUserInputException.class)
+    public void testInvalidThreads() {
+        process(new ParallelConstruct(), parseObject(Arrays.asList(1, 2)), createMap("threads", 0));
+    }
+
+    @Test(expectedExceptions = InvalidUserInputException.class)
+    public void testUnknownOption() {
+        process(new ParallelConstruct(), parseObject(Arrays.asList(1, 2)), createMap("speed", 10));
+    }
+}
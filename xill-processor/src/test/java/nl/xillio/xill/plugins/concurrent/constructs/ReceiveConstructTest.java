@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.constructs;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.plugins.concurrent.data.Channel;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test the {@link ReceiveConstruct}
+ */
+public class ReceiveConstructTest extends TestUtils {
+
+    @Test
+    public void testProcess() throws InterruptedException {
+        Channel channel = new Channel(2);
+        channel.send(fromValue("value"), -1);
+        ConstructContext context = mock(ConstructContext.class);
+
+        assertEquals(ReceiveConstruct.process(fromValue("c"), fromValue(-1), channel, context).getStringValue(), "value");
+        assertEquals(ReceiveConstruct.process(fromValue("c"), fromValue(0), channel, context), NULL);
+    }
+
+    @Test
+    public void testClosedAndEmpty() {
+        Channel channel = new Channel(2);
+        channel.close();
+
+        assertEquals(ReceiveConstruct.process(fromValue("c"), fromValue(-1), channel, mock(ConstructContext.class)), NULL);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.constructs;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.plugins.concurrent.data.Channel;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test the {@link SendConstruct}
+ */
+public class SendConstructTest extends TestUtils {
+
+    @Test
+    public void testProcess() throws InterruptedException {
+        Channel channel = new Channel(1);
+        ConstructContext context = mock(ConstructContext.class);
+
+        assertEquals(SendConstruct.process(fromValue("c"), fromValue(5), fromValue(-1), channel, context), TRUE);
+        assertEquals(SendConstruct.process(fromValue("c"), fromValue(6), fromValue(0), channel, context), FALSE);
+
+        assertEquals(channel.receive(0).getNumberValue().intValue(), 5);
+        verify(context, times(2)).addRobotInterruptListener(any());
+        verify(context, times(2)).removeRobotInterruptListener(any());
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*No channel named 'c'.*")
+    public void testUnknownChannel() {
+        SendConstruct.process(fromValue("c"), fromValue(5), fromValue(-1), null, mock(ConstructContext.class));
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = ".*closed.*")
+    public void testClosedChannel() {
+        Channel channel = new Channel(1);
+        channel.close();
+
+        SendConstruct.process(fromValue("c"), fromValue(5), fromValue(-1), channel, mock(ConstructContext.class));
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class)
+    public void testSendNull() {
+        SendConstruct.process(fromValue("c"), NULL, fromValue(-1), new Channel(1), mock(ConstructContext.class));
+    }
+}
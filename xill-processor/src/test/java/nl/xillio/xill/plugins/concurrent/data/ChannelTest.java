@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.data;
+
+import nl.xillio.xill.api.components.MetaExpression;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+import static org.testng.Assert.*;
+
+public class ChannelTest {
+
+    @Test
+    public void testSendAndReceiveInOrder() throws InterruptedException {
+        Channel channel = new Channel(3);
+
+        assertTrue(channel.send(fromValue(1), -1));
+        assertTrue(channel.send(fromValue(2), -1));
+
+        assertEquals(channel.receive(-1).getNumberValue().intValue(), 1);
+        assertEquals(channel.receive(-1).getNumberValue().intValue(), 2);
+        assertNull(channel.receive(0));
+    }
+
+    @Test
+    public void testReceiveGetsAReleasedCopy() throws InterruptedException {
+        Channel channel = new Channel(1);
+        MetaExpression value = fromValue("value");
+
+        channel.send(value, -1);
+        MetaExpression received = channel.receive(-1);
+
+        assertNotSame(received, value);
+        assertEquals(received.getStringValue(), "value");
+        received.registerReference();
+        received.releaseReference();
+        assertThrows(IllegalStateException.class, received::getType);
+    }
+
+    @Test
+    public void testSendTimesOutWhenFull() throws InterruptedException {
+        Channel channel = new Channel(1);
+
+        assertTrue(channel.send(fromValue(1), 0));
+        assertFalse(channel.send(fromValue(2), 10));
+    }
+
+    @Test
+    public void testFullChannelBlocksSenderUntilReceive() throws InterruptedException {
+        Channel channel = new Channel(1);
+        channel.send(fromValue(1), -1);
+        CountDownLatch sent = new CountDownLatch(1);
+
+        Thread producer = new Thread(() -> {
+            try {
+                channel.send(fromValue(2), -1);
+                sent.countDown();
+            } catch (InterruptedException e) {
+                // The test will fail on the latch
+            }
+        });
+        producer.start();
+
+        assertFalse(sent.await(50, TimeUnit.MILLISECONDS));
+        assertEquals(channel.receive(-1).getNumberValue().intValue(), 1);
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertEquals(channel.receive(-1).getNumberValue().intValue(), 2);
+    }
+
+    @Test
+    public void testCloseWakesReceiverAfterDrain() throws InterruptedException {
+        Channel channel = new Channel(2);
+        channel.send(fromValue("a"), -1);
+        channel.close();
+
+        assertEquals(channel.receive(-1).getStringValue(), "a");
+        assertNull(channel.receive(-1));
+        assertTrue(channel.isClosed());
+    }
+
+    @Test
+    public void testCloseWakesBlockedReceiver() throws InterruptedException {
+        Channel channel = new Channel(2);
+        MetaExpression[] received = {fromValue("not received")};
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = channel.receive(-1);
+            } catch (InterruptedException e) {
+                // The test will fail on the result
+            }
+        });
+        consumer.start();
+
+        channel.close();
+        consumer.join(5000);
+
+        assertFalse(consumer.isAlive());
+        assertNull(received[0]);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSendToClosedChannel() throws InterruptedException {
+        Channel channel = new Channel(2);
+        channel.close();
+
+        channel.send(fromValue(1), -1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new Channel(0);
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.data;
+
+import nl.xillio.xill.api.components.MetaExpression;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static nl.xillio.xill.api.components.ExpressionBuilderHelper.fromValue;
+import static org.testng.Assert.*;
+
+public class SharedScopeTest {
+
+    @Test
+    public void testCreateChannelKeepsExisting() {
+        SharedScope scope = new SharedScope();
+
+        Channel channel = scope.createChannel("a", 5);
+
+        assertSame(scope.createChannel("a", 10), channel);
+        assertEquals(channel.getCapacity(), 5);
+        assertNull(scope.getChannel("b"));
+    }
+
+    @Test
+    public void testCounterFromManyThreads() throws InterruptedException {
+        SharedScope scope = new SharedScope();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> scope.getCounter("count").incrementAndGet());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(scope.getCounter("count").get(), 1000);
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        SharedScope scope = new SharedScope();
+
+        assertTrue(scope.putIfAbsent("map", "key", fromValue("first")));
+        assertFalse(scope.putIfAbsent("map", "key", fromValue("second")));
+
+        assertEquals(scope.getMap("map").get("key").getStringValue(), "first");
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveReturns() {
+        SharedScope scope = new SharedScope();
+
+        scope.put("map", "key", fromValue("first"));
+        scope.put("map", "key", fromValue("second"));
+
+        assertEquals(scope.remove("map", "key").getStringValue(), "second");
+        assertNull(scope.remove("map", "key"));
+    }
+
+    @Test
+    public void testValuesAreCopied() {
+        SharedScope scope = new SharedScope();
+        List<MetaExpression> list = new ArrayList<>();
+        list.add(fromValue("first"));
+        MetaExpression value = fromValue(list);
+
+        scope.put("map", "key", value);
+        list.add(fromValue("second"));
+        MetaExpression got = scope.get("map", "key");
+        got.<List<MetaExpression>>getValue().add(fromValue("third"));
+
+        assertNotSame(got, value);
+        assertEquals(scope.get("map", "key").<List<MetaExpression>>getValue().size(), 1);
+        assertNull(scope.get("map", "other"));
+    }
+
+    @Test
+    public void testRemoveReleasesTheMapReference() {
+        SharedScope scope = new SharedScope();
+        scope.put("map", "key", fromValue("value"));
+
+        MetaExpression removed = scope.remove("map", "key");
+        removed.registerReference();
+        removed.releaseReference();
+
+        assertThrows(IllegalStateException.class, removed::getType);
+    }
+
+    @Test
+    public void testClear() throws InterruptedException {
+        SharedScope scope = new SharedScope();
+        Channel channel = scope.createChannel("channel", 5);
+        channel.send(fromValue("value"), -1);
+        scope.getCounter("counter").incrementAndGet();
+        List<MetaExpression> list = new ArrayList<>();
+        scope.put("map", "key", fromValue(list));
+
+        scope.clear();
+
+        assertTrue(channel.isClosed());
+        assertNull(channel.receive(0));
+        assertNull(scope.getChannel("channel"));
+        assertEquals(scope.getCounter("counter").get(), 0);
+        assertTrue(scope.getMap("map").isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.concurrent.services;
+
+import nl.xillio.xill.api.construct.ConstructContext;
+import nl.xillio.xill.api.events.RobotStoppedAction;
+import nl.xillio.xill.plugins.concurrent.data.SharedScope;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class ConcurrentStoreTest {
+
+    @Test
+    public void testSubRobotsShareTheScopeOfTheirRun() {
+        ConcurrentStore store = new ConcurrentStore();
+        UUID run = UUID.randomUUID();
+
+        SharedScope rootScope = store.getScope(context(run, run));
+        SharedScope childScope = store.getScope(context(UUID.randomUUID(), run));
+
+        assertSame(childScope, rootScope);
+    }
+
+    @Test
+    public void testOtherRunsGetOtherScopes() {
+        ConcurrentStore store = new ConcurrentStore();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        SharedScope firstScope = store.getScope(context(first, first));
+        SharedScope secondScope = store.getScope(context(second, second));
+
+        assertNotSame(firstScope, secondScope);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScopeIsClearedWhenRootStops() {
+        ConcurrentStore store = new ConcurrentStore();
+        UUID run = UUID.randomUUID();
+        ConstructContext context = context(run, run);
+
+        SharedScope scope = store.getScope(context);
+        scope.getCounter("counter").incrementAndGet();
+        store.getScope(context(run, run));
+
+        ArgumentCaptor<Consumer> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(context, times(1)).addRootRobotStoppedListener(listener.capture());
+        listener.getValue().accept(mock(RobotStoppedAction.class));
+
+        assertEquals(scope.getCounter("counter").get(), 0);
+        assertNotSame(store.getScope(context), scope);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScopeOfSubRobotsIsClearedWhenRootStops() {
+        ConcurrentStore store = new ConcurrentStore();
+        UUID run = UUID.randomUUID();
+        ConstructContext context = context(UUID.randomUUID(), run);
+
+        SharedScope scope = store.getScope(context);
+
+        ArgumentCaptor<Consumer> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(context).addRootRobotStoppedListener(listener.capture());
+        verify(context, never()).addRobotStoppedListener(any());
+        listener.getValue().accept(mock(RobotStoppedAction.class));
+
+        assertNotSame(store.getScope(context), scope);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStoppingOneRunKeepsTheOthers() {
+        ConcurrentStore store = new ConcurrentStore();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        ConstructContext firstContext = context(first, first);
+        store.getScope(firstContext);
+        SharedScope secondScope = store.getScope(context(second, second));
+        secondScope.getCounter("counter").incrementAndGet();
+
+        ArgumentCaptor<Consumer> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(firstContext).addRootRobotStoppedListener(listener.capture());
+        listener.getValue().accept(mock(RobotStoppedAction.class));
+
+        assertSame(store.getScope(context(second, second)), secondScope);
+        assertEquals(secondScope.getCounter("counter").get(), 1);
+    }
+
+    private ConstructContext context(UUID compilerSerialId, UUID rootCompilerSerialId) {
+        ConstructContext context = mock(ConstructContext.class);
+        when(context.getCompilerSerialId()).thenReturn(compilerSerialId);
+        when(context.getRootCompilerSerialId()).thenReturn(rootCompilerSerialId);
+        return context;
+    }
+}
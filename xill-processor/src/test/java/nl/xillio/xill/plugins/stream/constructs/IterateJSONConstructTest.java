@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014 Xillio (support@xillio.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.xillio.xill.plugins.stream.constructs;
+
+import nl.xillio.xill.TestUtils;
+import nl.xillio.xill.api.components.MetaExpression;
+import nl.xillio.xill.api.components.MetaExpressionIterator;
+import nl.xillio.xill.api.construct.ConstructProcessor;
+import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.api.io.IOStream;
+import nl.xillio.xill.api.io.SimpleIOStream;
+import nl.xillio.xill.services.json.JacksonParser;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+public class IterateJSONConstructTest extends TestUtils {
+    private final IterateJSONConstruct construct = new IterateJSONConstruct(new JacksonParser(false));
+
+    @Test
+    public void testIterateArray() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("[{\"id\": 1}, {\"id\": 2}, 3]"), "export.json"));
+
+        assertEquals(result.getStringValue(), "[JSON Iterator: export.json]");
+        assertEquals(collect(result), Arrays.asList("{\"id\":1}", "{\"id\":2}", "3"));
+    }
+
+    @Test
+    public void testIterateLines() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("{\"id\": 1}\n{\"id\": 2}\n\"text\"\n"), null));
+
+        assertEquals(result.getStringValue(), "[JSON Iterator]");
+        assertEquals(collect(result), Arrays.asList("{\"id\":1}", "{\"id\":2}", "text"));
+    }
+
+    @Test
+    public void testIterateEmptyArray() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream(" [ ] "), null));
+
+        assertEquals(collect(result), new ArrayList<>());
+    }
+
+    @Test
+    public void testValuesAreReadLazily() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("[{\"id\": 1}, {\"id\": "), null));
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+
+        Map<String, MetaExpression> first = iterator.next().getValue();
+        assertEquals(first.get("id").getNumberValue().intValue(), 1);
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class)
+    public void testInvalidJson() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("[1, 2"), null));
+
+        collect(result);
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = "(?s).*Unexpected data after the end of the array.*")
+    public void testTrailingDataAfterArray() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("[1, 2] [3]"), null));
+
+        collect(result);
+    }
+
+    @Test
+    public void testLinesModeReturnsArrays() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("[1, 2]\n[3]\n"), null), "lines");
+
+        assertEquals(collect(result), Arrays.asList("[1,2]", "[3]"));
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class, expectedExceptionsMessageRegExp = "(?s).*not a JSON array.*")
+    public void testArrayModeRequiresAnArray() {
+        MetaExpression result = process(new SimpleIOStream(IOUtils.toInputStream("{\"id\": 1}"), null), "array");
+
+        collect(result);
+    }
+
+    @Test(expectedExceptions = RobotRuntimeException.class)
+    public void testUnknownMode() {
+        process(new SimpleIOStream(IOUtils.toInputStream("[]"), null), "objects");
+    }
+
+    @Test
+    public void testStreamIsRegisteredReleased() {
+        IOStream inputStream = spy(new SimpleIOStream(IOUtils.toInputStream("[1, 2]"), "Irrelevant Description"));
+
+        MetaExpression iterateInstance = process(inputStream);
+        assertEquals(collect(iterateInstance), Arrays.asList("1", "2"));
+
+        verify(inputStream, never()).close();
+        iterateInstance.close();
+        verify(inputStream, times(1)).close();
+    }
+
+    private List<String> collect(MetaExpression result) {
+        MetaExpressionIterator iterator = result.getMeta(MetaExpressionIterator.class);
+        List<String> results = new ArrayList<>();
+        while (iterator.hasNext()) {
+            MetaExpression item = iterator.next();
+            results.add(item.getStringValue());
+        }
+        return results;
+    }
+
+    private MetaExpression process(IOStream stream) {
+        return process(stream, "auto");
+    }
+
+    private MetaExpression process(IOStream stream, String mode) {
+        return ConstructProcessor.process(
+                construct.prepareProcess(context(construct)),
+                fromValue(stream),
+                fromValue(mode)
+        );
+    }
+}
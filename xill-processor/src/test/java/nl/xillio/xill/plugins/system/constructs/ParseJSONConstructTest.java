@@ -20,16 +20,21 @@ import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.errors.InvalidUserInputException;
 import nl.xillio.xill.api.errors.OperationFailedException;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.api.io.SimpleIOStream;
+import nl.xillio.xill.services.json.JacksonParser;
 import nl.xillio.xill.services.json.JsonException;
 import nl.xillio.xill.services.json.JsonParser;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
-import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -53,13 +58,13 @@ public class ParseJSONConstructTest extends TestUtils {
 
         // Mock context
         JsonParser parser = mock(JsonParser.class);
-        when(parser.fromJson(eq(json), any())).thenReturn(expectedOutput);
+        when(parser.parse(json)).thenReturn(parseObject(expectedOutput));
 
         // Run method
         MetaExpression result = ParseJSONConstruct.process(expression, parser);
 
         // Verify calls to service
-        verify(parser).fromJson(eq(json), any());
+        verify(parser).parse(json);
 
         // Assertions
         Assert.assertEquals((ArrayList) result.getValue(), parseObject(expectedOutput).getValue());
@@ -89,14 +94,14 @@ public class ParseJSONConstructTest extends TestUtils {
 
         // Mock context
         JsonParser parser = mock(JsonParser.class);
-        when(parser.fromJson(eq("[\"this\", \"is\"]"), any())).thenReturn(outputList1);
-        when(parser.fromJson(eq("[\"valid\", \"json\"]"), any())).thenReturn(outputList2);
+        when(parser.parse("[\"this\", \"is\"]")).thenReturn(parseObject(outputList1));
+        when(parser.parse("[\"valid\", \"json\"]")).thenReturn(parseObject(outputList2));
 
         // Run method
         MetaExpression result = ParseJSONConstruct.process(expression, parser);
 
         // Verify calls to service
-        verify(parser, times(2)).fromJson(any(), any());
+        verify(parser, times(2)).parse(anyString());
 
         // Assertions
         Assert.assertEquals((ArrayList) result.getValue(), parseObject(expectedOutput).getValue());
@@ -160,11 +165,28 @@ public class ParseJSONConstructTest extends TestUtils {
     @Test(expectedExceptions = OperationFailedException.class, expectedExceptionsMessageRegExp = "Could not parse JSON input..*")
     public void testProcessInvalid() throws Throwable {
         // Mock context
-        MetaExpression expression = mockExpression(ATOMIC);
+        MetaExpression expression = fromValue("{invalid");
         JsonParser parser = mock(JsonParser.class);
-        when(parser.fromJson(anyString(), any())).thenThrow(new JsonException("CORRECT", null));
+        when(parser.parse(anyString())).thenThrow(new JsonException("CORRECT", null));
 
         // Run method
         ParseJSONConstruct.process(expression, parser);
     }
+
+    /**
+     * Test the process method with a stream as input
+     */
+    @Test
+    public void testProcessStream() throws JsonException {
+        // Initialize
+        InputStream stream = new ByteArrayInputStream("{\"key\": [1, 2]}".getBytes(StandardCharsets.UTF_8));
+        MetaExpression expression = fromValue(new SimpleIOStream(stream, "test"));
+
+        // Run method
+        MetaExpression result = ParseJSONConstruct.process(expression, new JacksonParser(false));
+
+        // Assertions
+        Map<String, MetaExpression> object = result.getValue();
+        Assert.assertEquals(object.get("key").<List<MetaExpression>>getValue().size(), 2);
+    }
 }
@@ -18,13 +18,16 @@ package nl.xillio.xill.plugins.system.constructs;
 import nl.xillio.xill.TestUtils;
 import nl.xillio.xill.api.components.MetaExpression;
 import nl.xillio.xill.api.errors.RobotRuntimeException;
+import nl.xillio.xill.api.io.SimpleIOStream;
 import nl.xillio.xill.services.json.JacksonParser;
 import nl.xillio.xill.services.json.JsonException;
 import nl.xillio.xill.services.json.JsonParser;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.mockito.Mockito.*;
 
@@ -94,4 +97,21 @@ public class ToJSONConstructTest extends TestUtils {
         // Run
         ToJSONConstruct.process(list, fromValue(false), parser, null);
     }
+
+    /**
+     * Test the process method when writing to a stream
+     */
+    @Test
+    public void testProcessToStream() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        MetaExpression output = fromValue(new SimpleIOStream(stream, "test"));
+        MetaExpression input = fromValue(Arrays.asList(fromValue(1), fromValue("two")));
+
+        // Run
+        MetaExpression result = ToJSONConstruct.process(input, fromValue(false), output, new JacksonParser(false), null);
+
+        // Assert
+        Assert.assertSame(result, output);
+        Assert.assertEquals(stream.toString("UTF-8"), "[1,\"two\"]");
+    }
 }